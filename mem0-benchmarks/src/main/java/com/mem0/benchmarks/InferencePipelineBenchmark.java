@@ -0,0 +1,93 @@
+package com.mem0.benchmarks;
+
+import com.mem0.benchmarks.support.PipelineFixture;
+import com.mem0.core.llm.replay.HashingEmbeddingModel;
+import com.mem0.core.llm.replay.LatencySimulator;
+import com.mem0.core.llm.replay.ReplayChatModel;
+import com.mem0.core.service.MemoryInferenceService;
+import com.mem0.core.service.MemoryInferenceService.MemoryOperationResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 完整记忆推理链路基准
+ * 
+ * 事实提取、相关记忆检索、记忆更新推理和写入全部走真实代码，模型为回放模型，
+ * 向量库为进程内HNSW，数据库为内存Mapper。modelLatencyMs 用于模拟模型调用的网络耗时。
+ * 每轮迭代重建环境，避免向量库随迭代无限增长。
+ * 
+ * @author changyu496
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector"})
+public class InferencePipelineBenchmark {
+    
+    /**
+     * 每次对话提取出的事实数
+     */
+    @Param({"3", "10"})
+    public int facts;
+    
+    @Param({"0"})
+    public long modelLatencyMs;
+    
+    @Param({"1536"})
+    public int dimension;
+    
+    /**
+     * 推理模式：two_step 两次LLM调用，fused 一次
+     */
+    @Param({"two_step", "fused"})
+    public String mode;
+    
+    private PipelineFixture fixture;
+    private MemoryInferenceService inferenceService;
+    private final AtomicLong turn = new AtomicLong();
+    
+    @Setup(Level.Iteration)
+    public void setup() {
+        List<String> factList = new ArrayList<>();
+        for (int i = 0; i < facts; i++) {
+            factList.add("User mentioned preference number " + i + " about travel and food");
+        }
+        Map<String, Object> properties = new HashMap<>();
+        // 关闭嵌入缓存，衡量未命中时的完整开销
+        properties.put("mem0.embedding.cache.enabled", "false");
+        properties.put("mem0.inference.mode", mode);
+        fixture = new PipelineFixture(new ReplayChatModel(null, LatencySimulator.fixed(modelLatencyMs), factList),
+                new HashingEmbeddingModel(dimension, LatencySimulator.fixed(modelLatencyMs)), properties);
+        inferenceService = fixture.inferenceService();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        fixture.close();
+    }
+    
+    @Benchmark
+    public List<MemoryOperationResult> addMemoryWithInference() {
+        long n = turn.incrementAndGet();
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "user", "content", "I am planning a trip to Hangzhou next spring, turn " + n));
+        messages.add(Map.of("role", "assistant", "content", "Great, would you like some recommendations?"));
+        
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("user_id", "10001");
+        metadata.put("agent_id", "20001");
+        metadata.put("app_id", "1");
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("user_id", "10001");
+        
+        return inferenceService.addMemoryWithInference(messages, metadata, filters, true);
+    }
+}
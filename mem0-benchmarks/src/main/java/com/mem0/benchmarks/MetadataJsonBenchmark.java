@@ -0,0 +1,65 @@
+package com.mem0.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mem0.core.utils.JsonUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记忆元数据JSON序列化与反序列化基准
+ * 
+ * @author changyu496
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetadataJsonBenchmark {
+    
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Map<String, Object> metadata;
+    private String metadataJson;
+    
+    @Setup
+    public void setup() {
+        metadata = new HashMap<>();
+        metadata.put("user_id", "10001");
+        metadata.put("agent_id", "20001");
+        metadata.put("app_id", "1");
+        metadata.put("run_id", "run-3f2a9c");
+        metadata.put("source", "chat");
+        metadata.put("tags", List.of("travel", "preference"));
+        metadata.put("content", "User prefers window seats on long-haul flights");
+        metadataJson = JsonUtil.mapToJson(metadata);
+    }
+    
+    @Benchmark
+    public String jsonUtilSerialize() {
+        return JsonUtil.mapToJson(metadata);
+    }
+    
+    @Benchmark
+    public Map<String, Object> jsonUtilDeserialize() {
+        return JsonUtil.fromJsonToMap(metadataJson);
+    }
+    
+    @Benchmark
+    public Map<String, Object> jsonUtilRoundTrip() {
+        return JsonUtil.fromJsonToMap(JsonUtil.mapToJson(metadata));
+    }
+    
+    @Benchmark
+    public Map<String, Object> objectMapperRoundTrip() throws Exception {
+        return objectMapper.readValue(objectMapper.writeValueAsString(metadata), MAP_TYPE);
+    }
+}
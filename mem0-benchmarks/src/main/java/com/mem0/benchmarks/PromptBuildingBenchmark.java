@@ -0,0 +1,61 @@
+package com.mem0.benchmarks;
+
+import com.mem0.core.prompt.PromptService;
+import com.mem0.core.prompt.impl.DefaultPromptService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记忆更新提示词构建基准
+ * 
+ * @author changyu496
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBuildingBenchmark {
+    
+    @Param({"5", "50"})
+    public int oldMemories;
+    
+    @Param({"3", "20"})
+    public int facts;
+    
+    private PromptService promptService;
+    private List<Map<String, String>> retrievedOldMemory;
+    private List<String> newFacts;
+    
+    @Setup
+    public void setup() {
+        promptService = new DefaultPromptService();
+        retrievedOldMemory = new ArrayList<>();
+        for (int i = 0; i < oldMemories; i++) {
+            Map<String, String> memory = new HashMap<>();
+            memory.put("id", String.valueOf(i));
+            memory.put("text", "User prefers window seats on long-haul flights, item " + i);
+            retrievedOldMemory.add(memory);
+        }
+        newFacts = new ArrayList<>();
+        for (int i = 0; i < facts; i++) {
+            newFacts.add("Plans a trip to Hangzhou in spring with family, fact " + i);
+        }
+    }
+    
+    @Benchmark
+    public String getUpdateMemoryMessages() {
+        return promptService.getUpdateMemoryMessages(retrievedOldMemory, newFacts, null);
+    }
+    
+    @Benchmark
+    public String[] getFactRetrievalMessages() {
+        return promptService.getFactRetrievalMessages(String.join("\n", newFacts));
+    }
+}
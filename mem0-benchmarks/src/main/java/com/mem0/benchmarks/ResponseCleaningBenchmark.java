@@ -0,0 +1,46 @@
+package com.mem0.benchmarks;
+
+import com.mem0.core.utils.LlmResponseUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大模型响应代码块清理基准
+ * 
+ * @author changyu496
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseCleaningBenchmark {
+    
+    /**
+     * 响应中的记忆条数
+     */
+    @Param({"3", "30"})
+    public int items;
+    
+    private String response;
+    
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("```json\n{\n  \"memory\": [\n");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                sb.append(",\n");
+            }
+            sb.append("    {\"id\": \"").append(i)
+                    .append("\", \"text\": \"User prefers window seats on long-haul flights\", \"event\": \"NONE\"}");
+        }
+        response = sb.append("\n  ]\n}\n```").toString();
+    }
+    
+    @Benchmark
+    public String removeCodeBlocks() {
+        return LlmResponseUtil.removeCodeBlocks(response);
+    }
+}
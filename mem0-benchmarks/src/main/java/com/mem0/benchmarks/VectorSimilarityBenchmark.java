@@ -0,0 +1,81 @@
+package com.mem0.benchmarks;
+
+import com.mem0.core.embedding.EmbeddingService;
+import com.mem0.core.embedding.impl.DashScopeEmbeddingService;
+import com.mem0.core.vector.DenseVector;
+import com.mem0.core.vector.math.VectorMath;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 向量相似度计算基准
+ * 
+ * 分别在标量内核和SIMD内核两个进程中运行，内核在类加载时确定。
+ * 
+ * @author changyu496
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector"})
+public class VectorSimilarityBenchmark {
+    
+    @Param({"1536"})
+    public int dimension;
+    
+    @Param({"true", "false"})
+    public boolean simd;
+    
+    /**
+     * 一对多打分的候选数
+     */
+    @Param({"100"})
+    public int candidates;
+    
+    private final EmbeddingService embeddingService = new DashScopeEmbeddingService();
+    private DenseVector query;
+    private DenseVector other;
+    private List<DenseVector> candidateVectors;
+    
+    @Setup
+    public void setup() {
+        // 内核在VectorMath类加载时选择，必须在首次使用前设置
+        System.setProperty("mem0.vector.simd", String.valueOf(simd));
+        SplittableRandom random = new SplittableRandom(42);
+        query = randomVector(random);
+        other = randomVector(random);
+        candidateVectors = new ArrayList<>(candidates);
+        for (int i = 0; i < candidates; i++) {
+            candidateVectors.add(randomVector(random));
+        }
+    }
+    
+    @Benchmark
+    public double cosineSimilarity() {
+        return embeddingService.cosineSimilarity(query, other);
+    }
+    
+    @Benchmark
+    public double euclideanDistance() {
+        return embeddingService.euclideanDistance(query, other);
+    }
+    
+    @Benchmark
+    public float[] cosineOneVsMany() {
+        return VectorMath.cosineMany(query, candidateVectors);
+    }
+    
+    private DenseVector randomVector(SplittableRandom random) {
+        float[] values = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            values[i] = (float) random.nextGaussian();
+        }
+        return DenseVector.of(values);
+    }
+}
@@ -0,0 +1,55 @@
+package com.mem0.benchmarks.locomo;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+/**
+ * 统计调用次数和耗时的ChatModel包装，按提示词区分事实提取和记忆更新两个阶段，
+ * 融合推理模式下的单次调用计入记忆更新
+ * 
+ * @author changyu496
+ */
+public class InstrumentedChatModel implements ChatModel {
+    
+    private static final String FACT_RETRIEVAL_MARKER = "Personal Information Organizer";
+    
+    private final ChatModel delegate;
+    private final LatencyRecorder factExtraction = new LatencyRecorder();
+    private final LatencyRecorder memoryUpdate = new LatencyRecorder();
+    
+    public InstrumentedChatModel(ChatModel delegate) {
+        this.delegate = delegate;
+    }
+    
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        long start = System.nanoTime();
+        try {
+            return delegate.call(prompt);
+        } finally {
+            LatencyRecorder recorder = prompt.getContents().contains(FACT_RETRIEVAL_MARKER)
+                    ? factExtraction : memoryUpdate;
+            recorder.record(System.nanoTime() - start);
+        }
+    }
+    
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            LatencyRecorder recorder = prompt.getContents().contains(FACT_RETRIEVAL_MARKER)
+                    ? factExtraction : memoryUpdate;
+            return delegate.stream(prompt).doFinally(signal -> recorder.record(System.nanoTime() - start));
+        });
+    }
+    
+    public LatencyRecorder getFactExtraction() {
+        return factExtraction;
+    }
+    
+    public LatencyRecorder getMemoryUpdate() {
+        return memoryUpdate;
+    }
+}
@@ -0,0 +1,53 @@
+package com.mem0.benchmarks.locomo;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计请求次数、文本数和耗时的EmbeddingModel包装
+ * 
+ * @author changyu496
+ */
+public class InstrumentedEmbeddingModel implements EmbeddingModel {
+    
+    private final EmbeddingModel delegate;
+    private final LatencyRecorder requests = new LatencyRecorder();
+    private final LongAdder texts = new LongAdder();
+    
+    public InstrumentedEmbeddingModel(EmbeddingModel delegate) {
+        this.delegate = delegate;
+    }
+    
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        long start = System.nanoTime();
+        try {
+            return delegate.call(request);
+        } finally {
+            requests.record(System.nanoTime() - start);
+            texts.add(request.getInstructions().size());
+        }
+    }
+    
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+    
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+    
+    public LatencyRecorder getRequests() {
+        return requests;
+    }
+    
+    public long getTexts() {
+        return texts.sum();
+    }
+}
@@ -0,0 +1,59 @@
+package com.mem0.benchmarks.locomo;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 延迟记录，线程安全，按需计算分位数
+ * 
+ * @author changyu496
+ */
+public class LatencyRecorder {
+    
+    private long[] samples = new long[1024];
+    private int count;
+    
+    public synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+    
+    public synchronized int count() {
+        return count;
+    }
+    
+    /**
+     * 汇总：次数、平均值和p50/p90/p99/最大值，单位毫秒
+     */
+    public synchronized Map<String, Object> summary() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", count);
+        if (count == 0) {
+            return result;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long sample : sorted) {
+            total += sample;
+        }
+        result.put("meanMs", toMillis(total / count));
+        result.put("p50Ms", toMillis(percentile(sorted, 0.50)));
+        result.put("p90Ms", toMillis(percentile(sorted, 0.90)));
+        result.put("p99Ms", toMillis(percentile(sorted, 0.99)));
+        result.put("maxMs", toMillis(sorted[sorted.length - 1]));
+        return result;
+    }
+    
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+    
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+}
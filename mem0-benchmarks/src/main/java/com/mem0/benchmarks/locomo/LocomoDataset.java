@@ -0,0 +1,149 @@
+package com.mem0.benchmarks.locomo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * LoCoMo数据集（dataset/locomo10.json）
+ * 
+ * 每个样本包含两位说话人的多轮会话（session_1、session_2 ...）和一组问答，
+ * 问答的evidence指向会话中的对话ID（如 D1:3）。
+ * 
+ * @author changyu496
+ */
+public class LocomoDataset {
+    
+    private final List<Conversation> conversations;
+    
+    private LocomoDataset(List<Conversation> conversations) {
+        this.conversations = conversations;
+    }
+    
+    public static LocomoDataset load(Path file, ObjectMapper objectMapper) throws IOException {
+        List<Conversation> conversations = new ArrayList<>();
+        for (JsonNode sample : objectMapper.readTree(file.toFile())) {
+            JsonNode conversationNode = sample.get("conversation");
+            
+            // session_N 按编号排序
+            TreeMap<Integer, Session> sessions = new TreeMap<>();
+            Iterator<String> fields = conversationNode.fieldNames();
+            while (fields.hasNext()) {
+                String field = fields.next();
+                if (!field.matches("session_\\d+")) {
+                    continue;
+                }
+                int index = Integer.parseInt(field.substring("session_".length()));
+                List<Turn> turns = new ArrayList<>();
+                for (JsonNode turn : conversationNode.get(field)) {
+                    turns.add(new Turn(turn.path("dia_id").asText(), turn.path("speaker").asText(),
+                            turn.path("text").asText()));
+                }
+                String dateTime = conversationNode.path(field + "_date_time").asText(null);
+                sessions.put(index, new Session(index, dateTime, turns));
+            }
+            
+            List<Qa> qas = new ArrayList<>();
+            for (JsonNode qa : sample.path("qa")) {
+                List<String> evidence = new ArrayList<>();
+                qa.path("evidence").forEach(e -> evidence.add(e.asText()));
+                // 对抗类问题没有answer字段
+                String answer = qa.has("answer") ? qa.get("answer").asText() : null;
+                qas.add(new Qa(qa.path("question").asText(), answer, evidence, qa.path("category").asInt()));
+            }
+            
+            conversations.add(new Conversation(sample.path("sample_id").asText(),
+                    new ArrayList<>(sessions.values()), qas));
+        }
+        return new LocomoDataset(conversations);
+    }
+    
+    public List<Conversation> getConversations() {
+        return conversations;
+    }
+    
+    /**
+     * 一个样本：多轮会话及问答
+     */
+    public static class Conversation {
+        private final String sampleId;
+        private final List<Session> sessions;
+        private final List<Qa> qas;
+        
+        public Conversation(String sampleId, List<Session> sessions, List<Qa> qas) {
+            this.sampleId = sampleId;
+            this.sessions = sessions;
+            this.qas = qas;
+        }
+        
+        public String getSampleId() { return sampleId; }
+        public List<Session> getSessions() { return sessions; }
+        public List<Qa> getQas() { return qas; }
+    }
+    
+    /**
+     * 一次会话
+     */
+    public static class Session {
+        private final int index;
+        private final String dateTime;
+        private final List<Turn> turns;
+        
+        public Session(int index, String dateTime, List<Turn> turns) {
+            this.index = index;
+            this.dateTime = dateTime;
+            this.turns = turns;
+        }
+        
+        public int getIndex() { return index; }
+        public String getDateTime() { return dateTime; }
+        public List<Turn> getTurns() { return turns; }
+    }
+    
+    /**
+     * 一轮发言
+     */
+    public static class Turn {
+        private final String diaId;
+        private final String speaker;
+        private final String text;
+        
+        public Turn(String diaId, String speaker, String text) {
+            this.diaId = diaId;
+            this.speaker = speaker;
+            this.text = text;
+        }
+        
+        public String getDiaId() { return diaId; }
+        public String getSpeaker() { return speaker; }
+        public String getText() { return text; }
+    }
+    
+    /**
+     * 一个问答
+     */
+    public static class Qa {
+        private final String question;
+        private final String answer;
+        private final List<String> evidence;
+        private final int category;
+        
+        public Qa(String question, String answer, List<String> evidence, int category) {
+            this.question = question;
+            this.answer = answer;
+            this.evidence = evidence;
+            this.category = category;
+        }
+        
+        public String getQuestion() { return question; }
+        public String getAnswer() { return answer; }
+        public List<String> getEvidence() { return evidence; }
+        public int getCategory() { return category; }
+    }
+}
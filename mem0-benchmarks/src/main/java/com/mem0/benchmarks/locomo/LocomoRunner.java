@@ -0,0 +1,270 @@
+package com.mem0.benchmarks.locomo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mem0.benchmarks.locomo.LocomoDataset.Conversation;
+import com.mem0.benchmarks.locomo.LocomoDataset.Qa;
+import com.mem0.benchmarks.locomo.LocomoDataset.Session;
+import com.mem0.benchmarks.locomo.LocomoDataset.Turn;
+import com.mem0.benchmarks.support.PipelineFixture;
+import com.mem0.core.embedding.EmbeddingCache;
+import com.mem0.core.entity.Memory;
+import com.mem0.core.llm.replay.HashingEmbeddingModel;
+import com.mem0.core.llm.replay.LatencySimulator;
+import com.mem0.core.llm.replay.ModelRecordingStore;
+import com.mem0.core.llm.replay.ReplayChatModel;
+import com.mem0.core.service.MemoryInferenceService;
+import com.mem0.core.service.MemoryInferenceService.MemoryOperationResult;
+import com.mem0.core.vector.VectorStoreService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LoCoMo端到端基准
+ * 
+ * 按会话顺序把LoCoMo对话逐个session送入 addMemoryWithInference，再用向量检索回答问答集，
+ * 输出写入吞吐、各阶段延迟分位数、模型调用次数和检索准确率。
+ * 默认使用回放模型（echo事实提取 + 词袋哈希嵌入），不需要DashScope密钥，结果可重复。
+ * 指定 --recording 时优先回放 record profile 录制的真实响应，--latency-mode=recorded 复现录制的延迟分布。
+ * 
+ * 用法：
+ * java -cp target/benchmarks.jar com.mem0.benchmarks.locomo.LocomoRunner
+ *     [--dataset=dataset/locomo10.json] [--samples=10] [--top-k=10]
+ *     [--concurrency=1] [--model-latency-ms=0] [--dimension=1536] [--output=report.json]
+ *     [--recording=data/replay/model-recordings.jsonl] [--latency-mode=none|fixed|recorded]
+ *     [--mode=two_step|fused] [--streaming=true] [--quantization=none|int8|binary] [--rescore-factor=4]
+ * 
+ * @author changyu496
+ */
+public class LocomoRunner {
+    
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    
+    private final LatencyRecorder addLatency = new LatencyRecorder();
+    private final LatencyRecorder firstWriteLatency = new LatencyRecorder();
+    private final LatencyRecorder searchLatency = new LatencyRecorder();
+    private final LongAdder sessions = new LongAdder();
+    private final LongAdder turns = new LongAdder();
+    private final LongAdder memoryEvents = new LongAdder();
+    
+    public LocomoRunner(Map<String, String> options) {
+        this.options = options;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(eq < 0 ? arg.substring(2) : arg.substring(2, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+        }
+        new LocomoRunner(options).run();
+    }
+    
+    public void run() throws Exception {
+        Path datasetPath = Paths.get(options.getOrDefault("dataset", "dataset/locomo10.json"));
+        int topK = Integer.parseInt(options.getOrDefault("top-k", "10"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1"));
+        long modelLatencyMs = Long.parseLong(options.getOrDefault("model-latency-ms", "0"));
+        int dimension = Integer.parseInt(options.getOrDefault("dimension", "1536"));
+        
+        List<Conversation> conversations = LocomoDataset.load(datasetPath, objectMapper).getConversations();
+        int samples = Integer.parseInt(options.getOrDefault("samples", String.valueOf(conversations.size())));
+        conversations = conversations.subList(0, Math.min(samples, conversations.size()));
+        
+        ModelRecordingStore recordings = options.containsKey("recording")
+                ? new ModelRecordingStore(Paths.get(options.get("recording")), objectMapper) : null;
+        // 未指定时有 --model-latency-ms 用固定延迟，否则不注入
+        LatencySimulator.Mode latencyMode = LatencySimulator.Mode.valueOf(options.getOrDefault("latency-mode",
+                modelLatencyMs > 0 ? "fixed" : "none").toUpperCase(Locale.ROOT));
+        
+        InstrumentedChatModel chatModel = new InstrumentedChatModel(new ReplayChatModel(recordings,
+                new LatencySimulator(latencyMode, modelLatencyMs, recordings), null));
+        InstrumentedEmbeddingModel embeddingModel = new InstrumentedEmbeddingModel(new HashingEmbeddingModel(dimension,
+                new LatencySimulator(latencyMode, modelLatencyMs, recordings)));
+        
+        Map<String, Object> report = new LinkedHashMap<>();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("mem0.inference.mode", options.getOrDefault("mode", "two_step"));
+        properties.put("mem0.inference.streaming.enabled", options.getOrDefault("streaming", "false"));
+        properties.put("mem0.vector-store.hnsw.quantization", options.getOrDefault("quantization", "none"));
+        properties.put("mem0.vector-store.hnsw.rescore-factor", options.getOrDefault("rescore-factor", "4"));
+        try (PipelineFixture fixture = new PipelineFixture(chatModel, embeddingModel, properties)) {
+            MemoryInferenceService inferenceService = fixture.inferenceService();
+            VectorStoreService vectorStoreService = fixture.getBean(VectorStoreService.class);
+            
+            // 1. 写入：不同样本可并发，同一样本内的session严格按顺序
+            long ingestStart = System.nanoTime();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, concurrency));
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < conversations.size(); i++) {
+                    Conversation conversation = conversations.get(i);
+                    String userId = String.valueOf(i + 1);
+                    futures.add(executor.submit(() -> ingest(inferenceService, conversation, userId)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+            double ingestSeconds = (System.nanoTime() - ingestStart) / 1e9;
+            
+            // 2. 问答检索
+            Map<String, Object> retrieval = evaluate(vectorStoreService, conversations, topK);
+            
+            Map<String, Object> ingest = new LinkedHashMap<>();
+            ingest.put("conversations", conversations.size());
+            ingest.put("sessions", sessions.sum());
+            ingest.put("turns", turns.sum());
+            ingest.put("memoryEvents", memoryEvents.sum());
+            ingest.put("seconds", round(ingestSeconds));
+            ingest.put("sessionsPerSecond", round(sessions.sum() / ingestSeconds));
+            ingest.put("turnsPerSecond", round(turns.sum() / ingestSeconds));
+            
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("addMemoryWithInference", addLatency.summary());
+            latency.put("firstWrite", firstWriteLatency.summary());
+            latency.put("llmFactExtraction", chatModel.getFactExtraction().summary());
+            latency.put("llmMemoryUpdate", chatModel.getMemoryUpdate().summary());
+            latency.put("embeddingRequest", embeddingModel.getRequests().summary());
+            latency.put("search", searchLatency.summary());
+            
+            Map<String, Object> calls = new LinkedHashMap<>();
+            calls.put("llm", chatModel.getFactExtraction().count() + chatModel.getMemoryUpdate().count());
+            calls.put("embeddingRequests", embeddingModel.getRequests().count());
+            calls.put("embeddingTexts", embeddingModel.getTexts());
+            calls.put("embeddingCache", fixture.getBean(EmbeddingCache.class).getStats());
+            
+            report.put("options", options);
+            report.put("ingest", ingest);
+            report.put("latency", latency);
+            report.put("calls", calls);
+            report.put("retrieval", retrieval);
+        }
+        
+        String json = objectMapper.writeValueAsString(report);
+        System.out.println(json);
+        if (options.containsKey("output")) {
+            Files.writeString(Paths.get(options.get("output")), json);
+        }
+    }
+    
+    private void ingest(MemoryInferenceService inferenceService, Conversation conversation, String userId) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("user_id", userId);
+        metadata.put("agent_id", "1");
+        metadata.put("app_id", "1");
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("user_id", userId);
+        
+        for (Session session : conversation.getSessions()) {
+            List<Map<String, String>> messages = new ArrayList<>();
+            for (Turn turn : session.getTurns()) {
+                Map<String, String> message = new HashMap<>();
+                message.put("role", "user");
+                // 带上对话ID，便于按evidence统计召回
+                message.put("content", "[" + turn.getDiaId() + "] " + turn.getSpeaker() + ": " + turn.getText());
+                messages.add(message);
+            }
+            
+            long start = System.nanoTime();
+            AtomicBoolean firstWrite = new AtomicBoolean();
+            List<MemoryOperationResult> results = inferenceService.addMemoryWithInference(messages, metadata, filters,
+                    true, null, operation -> {
+                        if (firstWrite.compareAndSet(false, true)) {
+                            firstWriteLatency.record(System.nanoTime() - start);
+                        }
+                    });
+            addLatency.record(System.nanoTime() - start);
+            
+            sessions.increment();
+            turns.add(session.getTurns().size());
+            memoryEvents.add(results.size());
+        }
+    }
+    
+    private Map<String, Object> evaluate(VectorStoreService vectorStoreService, List<Conversation> conversations, int topK) {
+        int questions = 0;
+        int evidenceHits = 0;
+        double evidenceRecall = 0;
+        int answerQuestions = 0;
+        int answerHits = 0;
+        Map<Integer, int[]> byCategory = new TreeMap<>();
+        
+        for (int i = 0; i < conversations.size(); i++) {
+            Map<String, Object> filters = new HashMap<>();
+            filters.put("user_id", String.valueOf(i + 1));
+            
+            for (Qa qa : conversations.get(i).getQas()) {
+                long start = System.nanoTime();
+                List<Memory> memories = vectorStoreService.searchMemories(qa.getQuestion(), topK, filters);
+                searchLatency.record(System.nanoTime() - start);
+                
+                StringBuilder retrieved = new StringBuilder();
+                for (Memory memory : memories) {
+                    retrieved.append(memory.getContent()).append('\n');
+                }
+                String text = retrieved.toString();
+                
+                if (!qa.getEvidence().isEmpty()) {
+                    int found = 0;
+                    for (String evidence : qa.getEvidence()) {
+                        if (text.contains("[" + evidence + "]")) {
+                            found++;
+                        }
+                    }
+                    questions++;
+                    evidenceRecall += (double) found / qa.getEvidence().size();
+                    int[] category = byCategory.computeIfAbsent(qa.getCategory(), c -> new int[2]);
+                    category[0]++;
+                    if (found > 0) {
+                        evidenceHits++;
+                        category[1]++;
+                    }
+                }
+                if (qa.getAnswer() != null && !qa.getAnswer().isBlank()) {
+                    answerQuestions++;
+                    if (text.toLowerCase(Locale.ROOT).contains(qa.getAnswer().toLowerCase(Locale.ROOT))) {
+                        answerHits++;
+                    }
+                }
+            }
+        }
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("topK", topK);
+        result.put("questions", questions);
+        result.put("evidenceRecallAtK", questions == 0 ? 0 : round(evidenceRecall / questions));
+        result.put("evidenceHitRateAtK", questions == 0 ? 0 : round((double) evidenceHits / questions));
+        result.put("answerHitRateAtK", answerQuestions == 0 ? 0 : round((double) answerHits / answerQuestions));
+        Map<String, Object> categories = new LinkedHashMap<>();
+        for (Map.Entry<Integer, int[]> entry : byCategory.entrySet()) {
+            categories.put(String.valueOf(entry.getKey()), round((double) entry.getValue()[1] / entry.getValue()[0]));
+        }
+        result.put("evidenceHitRateByCategory", categories);
+        return result;
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,139 @@
+package com.mem0.benchmarks.support;
+
+import com.mem0.core.entity.Memory;
+import com.mem0.core.mapper.EmbeddingCacheMapper;
+import com.mem0.core.mapper.MemoryMapper;
+import com.mem0.core.mapper.MemoryOutboxMapper;
+import com.mem0.core.mapper.VectorIndexVersionMapper;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于内存的Mapper实现，替代MySQL
+ * 
+ * 使用动态代理，只实现推理链路用到的方法，其余方法返回默认值。
+ * 
+ * @author changyu496
+ */
+public final class InMemoryMappers {
+    
+    private InMemoryMappers() {
+    }
+    
+    /**
+     * 记忆表：支持单条与批量的insert、update、select、delete
+     */
+    @SuppressWarnings("unchecked")
+    public static MemoryMapper memoryMapper() {
+        Map<Long, Memory> rows = new ConcurrentHashMap<>();
+        AtomicLong sequence = new AtomicLong();
+        return (MemoryMapper) Proxy.newProxyInstance(MemoryMapper.class.getClassLoader(),
+                new Class<?>[] {MemoryMapper.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "insert": {
+                            Memory memory = (Memory) args[0];
+                            memory.setId(sequence.incrementAndGet());
+                            rows.put(memory.getId(), memory);
+                            return 1;
+                        }
+                        case "update": {
+                            Memory memory = (Memory) args[0];
+                            return rows.replace(memory.getId(), memory) != null ? 1 : 0;
+                        }
+                        case "insertBatch": {
+                            List<Memory> memories = (List<Memory>) args[0];
+                            for (Memory memory : memories) {
+                                memory.setId(sequence.incrementAndGet());
+                                rows.put(memory.getId(), memory);
+                            }
+                            return memories.size();
+                        }
+                        case "updateBatch": {
+                            int updated = 0;
+                            for (Memory memory : (List<Memory>) args[0]) {
+                                updated += rows.replace(memory.getId(), memory) != null ? 1 : 0;
+                            }
+                            return updated;
+                        }
+                        case "selectById":
+                            return rows.get((Long) args[0]);
+                        case "selectByIds": {
+                            List<Memory> memories = new ArrayList<>();
+                            for (Long id : (List<Long>) args[0]) {
+                                Memory memory = rows.get(id);
+                                if (memory != null) {
+                                    memories.add(memory);
+                                }
+                            }
+                            return memories;
+                        }
+                        case "deleteById":
+                            return rows.remove((Long) args[0]) != null ? 1 : 0;
+                        case "deleteByIds": {
+                            int deleted = 0;
+                            for (Long id : (List<Long>) args[0]) {
+                                deleted += rows.remove(id) != null ? 1 : 0;
+                            }
+                            return deleted;
+                        }
+                        case "toString":
+                            return "InMemoryMemoryMapper";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+    
+    /**
+     * 嵌入缓存表：始终未命中
+     */
+    public static EmbeddingCacheMapper embeddingCacheMapper() {
+        return (EmbeddingCacheMapper) Proxy.newProxyInstance(EmbeddingCacheMapper.class.getClassLoader(),
+                new Class<?>[] {EmbeddingCacheMapper.class},
+                (proxy, method, args) -> defaultValue(method.getReturnType()));
+    }
+    
+    /**
+     * 发件箱表：不保存事件，基准测试中向量同步直写
+     */
+    public static MemoryOutboxMapper memoryOutboxMapper() {
+        return (MemoryOutboxMapper) Proxy.newProxyInstance(MemoryOutboxMapper.class.getClassLoader(),
+                new Class<?>[] {MemoryOutboxMapper.class},
+                (proxy, method, args) -> defaultValue(method.getReturnType()));
+    }
+    
+    /**
+     * 向量索引版本表：没有版本记录，始终使用配置的嵌入模型和别名索引
+     */
+    public static VectorIndexVersionMapper vectorIndexVersionMapper() {
+        return (VectorIndexVersionMapper) Proxy.newProxyInstance(VectorIndexVersionMapper.class.getClassLoader(),
+                new Class<?>[] {VectorIndexVersionMapper.class},
+                (proxy, method, args) -> defaultValue(method.getReturnType()));
+    }
+    
+    private static Object defaultValue(Class<?> type) {
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (List.class.isAssignableFrom(type)) {
+            return new ArrayList<>();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.mem0.benchmarks.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mem0.core.embedding.EmbeddingCache;
+import com.mem0.core.mapper.EmbeddingCacheMapper;
+import com.mem0.core.mapper.MemoryMapper;
+import com.mem0.core.mapper.MemoryOutboxMapper;
+import com.mem0.core.mapper.VectorIndexVersionMapper;
+import com.mem0.core.memory.FactDeduplicator;
+import com.mem0.core.prompt.impl.DefaultPromptService;
+import com.mem0.core.service.MemoryInferenceService;
+import com.mem0.core.service.MemoryService;
+import com.mem0.core.vector.VectorIndexRegistry;
+import com.mem0.core.vector.VectorStoreService;
+import com.mem0.core.vectorstore.impl.HnswVectorStoreService;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 推理链路的基准测试环境
+ * 
+ * 用普通Spring容器装配真实的MemoryInferenceService、向量门面和进程内HNSW向量库，
+ * 模型替换为回放模型，MySQL替换为内存Mapper，不依赖任何外部服务。
+ * 
+ * @author changyu496
+ */
+public class PipelineFixture implements AutoCloseable {
+    
+    private final AnnotationConfigApplicationContext context;
+    private final Path dataDir;
+    
+    public PipelineFixture(ChatModel chatModel, EmbeddingModel embeddingModel, Map<String, Object> properties) {
+        try {
+            dataDir = Files.createTempDirectory("mem0-bench-hnsw");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        
+        Map<String, Object> config = new HashMap<>();
+        config.put("mem0.vector-store.type", "hnsw");
+        config.put("mem0.vector-store.hnsw.data-dir", dataDir.toString());
+        config.put("mem0.vector-store.hnsw.snapshot-interval-seconds", "3600");
+        // 检索评测需要写入后立即可见，向量同步直写
+        config.put("mem0.outbox.enabled", "false");
+        config.putAll(properties);
+        
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", config));
+        context.registerBean(ChatModel.class, () -> chatModel);
+        context.registerBean(EmbeddingModel.class, () -> embeddingModel);
+        context.registerBean(ObjectMapper.class, () -> new ObjectMapper());
+        context.registerBean(MemoryMapper.class, InMemoryMappers::memoryMapper);
+        context.registerBean(EmbeddingCacheMapper.class, InMemoryMappers::embeddingCacheMapper);
+        context.registerBean(MemoryOutboxMapper.class, InMemoryMappers::memoryOutboxMapper);
+        context.registerBean(VectorIndexVersionMapper.class, InMemoryMappers::vectorIndexVersionMapper);
+        context.register(DefaultPromptService.class, MemoryService.class, EmbeddingCache.class, FactDeduplicator.class,
+                HnswVectorStoreService.class, VectorIndexRegistry.class, VectorStoreService.class, MemoryInferenceService.class);
+        context.refresh();
+    }
+    
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+    
+    public MemoryInferenceService inferenceService() {
+        return context.getBean(MemoryInferenceService.class);
+    }
+    
+    @Override
+    public void close() {
+        context.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
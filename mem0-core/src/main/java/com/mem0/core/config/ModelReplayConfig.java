@@ -0,0 +1,94 @@
+package com.mem0.core.config;
+
+import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatModel;
+import com.alibaba.cloud.ai.dashscope.embedding.DashScopeEmbeddingModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mem0.core.llm.replay.HashingEmbeddingModel;
+import com.mem0.core.llm.replay.LatencySimulator;
+import com.mem0.core.llm.replay.ModelRecordingStore;
+import com.mem0.core.llm.replay.RecordingChatModel;
+import com.mem0.core.llm.replay.RecordingEmbeddingModel;
+import com.mem0.core.llm.replay.ReplayChatModel;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * 模型录制/回放配置
+ * 
+ * record profile：照常调用DashScope，同时把对话响应和两类调用的耗时写入录制文件；
+ * replay profile：不访问DashScope，对话按提示词哈希回放录制的响应，嵌入使用确定性哈希向量，
+ * 并按 mem0.replay.latency-mode 注入延迟，用于离线压测和可重复的基准测试。
+ * 
+ * @author changyu496
+ */
+public class ModelReplayConfig {
+    
+    @Configuration
+    @Profile("record")
+    public static class Record {
+        
+        @Bean(destroyMethod = "close")
+        public ModelRecordingStore modelRecordingStore(
+                @Value("${mem0.replay.recording-file:./data/replay/model-recordings.jsonl}") String recordingFile,
+                ObjectMapper objectMapper) {
+            return new ModelRecordingStore(Paths.get(recordingFile), objectMapper);
+        }
+        
+        @Bean
+        @Primary
+        public ChatModel recordingChatModel(DashScopeChatModel dashscopeChatModel, ModelRecordingStore store) {
+            return new RecordingChatModel(dashscopeChatModel, store);
+        }
+        
+        @Bean
+        @Primary
+        public EmbeddingModel recordingEmbeddingModel(DashScopeEmbeddingModel dashscopeEmbeddingModel,
+                                                      ModelRecordingStore store) {
+            return new RecordingEmbeddingModel(dashscopeEmbeddingModel, store);
+        }
+    }
+    
+    @Configuration
+    @Profile("replay")
+    public static class Replay {
+        
+        /**
+         * 回放只读录制文件，不追加
+         */
+        @Bean(destroyMethod = "close")
+        public ModelRecordingStore modelRecordingStore(
+                @Value("${mem0.replay.recording-file:./data/replay/model-recordings.jsonl}") String recordingFile,
+                ObjectMapper objectMapper) {
+            return new ModelRecordingStore(Paths.get(recordingFile), objectMapper);
+        }
+        
+        @Bean
+        @Primary
+        public ChatModel replayChatModel(ModelRecordingStore store,
+                                         @Value("${mem0.replay.latency-mode:none}") String latencyMode,
+                                         @Value("${mem0.replay.chat-latency-ms:0}") long chatLatencyMs) {
+            return new ReplayChatModel(store, latency(latencyMode, chatLatencyMs, store), null);
+        }
+        
+        @Bean
+        @Primary
+        public EmbeddingModel replayEmbeddingModel(ModelRecordingStore store,
+                                                   @Value("${mem0.replay.latency-mode:none}") String latencyMode,
+                                                   @Value("${mem0.replay.embedding-latency-ms:0}") long embeddingLatencyMs,
+                                                   @Value("${mem0.replay.embedding-dimension:1536}") int dimension) {
+            return new HashingEmbeddingModel(dimension, latency(latencyMode, embeddingLatencyMs, store));
+        }
+        
+        private LatencySimulator latency(String mode, long fixedMs, ModelRecordingStore store) {
+            return new LatencySimulator(LatencySimulator.Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT)), fixedMs, store);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.mem0.core.dto;
+
+import com.mem0.core.service.MemoryInferenceService.MemoryOperationResult;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 异步添加记忆任务
+ * 
+ * @author changyu496
+ */
+@Data
+public class MemoryJob {
+    
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        PENDING, RUNNING, SUCCEEDED, FAILED
+    }
+    
+    /**
+     * 任务ID
+     */
+    private String jobId;
+    
+    /**
+     * 任务状态
+     */
+    private volatile Status status;
+    
+    /**
+     * 记忆操作结果，执行过程中逐条追加，任务成功后为完整结果
+     */
+    private volatile List<MemoryOperationResult> results;
+    
+    /**
+     * 失败原因
+     */
+    private volatile String error;
+    
+    /**
+     * 任务完成后回调的地址
+     */
+    private String callbackUrl;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+    
+    /**
+     * 开始执行时间
+     */
+    private volatile LocalDateTime startedAt;
+    
+    /**
+     * 完成时间
+     */
+    private volatile LocalDateTime finishedAt;
+    
+    /**
+     * 是否已结束
+     */
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+}
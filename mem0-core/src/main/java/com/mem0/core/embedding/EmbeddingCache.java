@@ -0,0 +1,239 @@
+package com.mem0.core.embedding;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mem0.core.entity.EmbeddingCacheEntry;
+import com.mem0.core.mapper.EmbeddingCacheMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 嵌入向量缓存
+ * 
+ * 两级缓存：进程内Caffeine（W-TinyLFU淘汰，按字节数限制容量）和可选的MySQL持久层。
+ * 缓存键为模型名与归一化文本（NFC、去首尾空白、合并连续空白）的SHA-256，
+ * 换模型后旧向量自然失效。返回的float[]为缓存共享实例，调用方不得修改。
+ * 
+ * @author changyu496
+ */
+@Slf4j
+@Component
+public class EmbeddingCache {
+    
+    @Autowired
+    private EmbeddingCacheMapper embeddingCacheMapper;
+    
+    @Value("${mem0.embedding.cache.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * 进程内缓存的最大容量（MB，按向量字节数估算）
+     */
+    @Value("${mem0.embedding.cache.max-size-mb:128}")
+    private long maxSizeMb;
+    
+    /**
+     * 是否启用MySQL持久层（embedding_cache表）
+     */
+    @Value("${mem0.embedding.cache.persistent.enabled:false}")
+    private boolean persistentEnabled;
+    
+    private Cache<String, float[]> cache;
+    
+    private final LongAdder persistentHits = new LongAdder();
+    private final LongAdder persistentMisses = new LongAdder();
+    private final LongAdder persistentErrors = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxSizeMb * 1024 * 1024)
+                .weigher((String key, float[] vector) -> key.length() * 2 + vector.length * Float.BYTES)
+                .recordStats()
+                .build();
+        log.info("嵌入向量缓存初始化 - 启用: {}, 容量: {}MB, 持久层: {}", enabled, maxSizeMb, persistentEnabled);
+    }
+    
+    /**
+     * 获取单条文本的嵌入向量，未命中时调用loader生成并写入缓存
+     * 
+     * @param model 嵌入模型名称
+     * @param text 文本
+     * @param loader 嵌入生成函数
+     * @return 嵌入向量
+     */
+    public float[] get(String model, String text, Function<String, float[]> loader) {
+        return getAll(model, List.of(text), texts -> List.of(loader.apply(texts.get(0)))).get(0);
+    }
+    
+    /**
+     * 批量获取嵌入向量，只对两级缓存都未命中的文本调用loader
+     * 
+     * @param model 嵌入模型名称
+     * @param texts 文本列表
+     * @param loader 批量嵌入生成函数，返回值须与入参一一对应
+     * @return 与输入顺序一一对应的嵌入向量列表
+     */
+    public List<float[]> getAll(String model, List<String> texts, Function<List<String>, List<float[]>> loader) {
+        if (!enabled) {
+            return loader.apply(texts);
+        }
+        
+        List<String> keys = new ArrayList<>(texts.size());
+        Map<String, float[]> found = new HashMap<>();
+        // 未命中的键 -> 首次出现的原始文本
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (String text : texts) {
+            String key = cacheKey(model, text);
+            keys.add(key);
+            if (found.containsKey(key) || missing.containsKey(key)) {
+                continue;
+            }
+            float[] vector = cache.getIfPresent(key);
+            if (vector != null) {
+                found.put(key, vector);
+            } else {
+                missing.put(key, text);
+            }
+        }
+        
+        if (!missing.isEmpty() && persistentEnabled) {
+            loadPersistent(missing, found);
+        }
+        
+        if (!missing.isEmpty()) {
+            List<String> missingKeys = new ArrayList<>(missing.keySet());
+            List<float[]> loaded = loader.apply(new ArrayList<>(missing.values()));
+            if (loaded.size() != missingKeys.size()) {
+                throw new IllegalStateException("嵌入结果数量不匹配，期望: " + missingKeys.size() + "，实际: " + loaded.size());
+            }
+            loads.add(loaded.size());
+            for (int i = 0; i < missingKeys.size(); i++) {
+                cache.put(missingKeys.get(i), loaded.get(i));
+                found.put(missingKeys.get(i), loaded.get(i));
+            }
+            if (persistentEnabled) {
+                storePersistent(model, missingKeys, loaded);
+            }
+        }
+        
+        List<float[]> result = new ArrayList<>(texts.size());
+        for (String key : keys) {
+            result.add(found.get(key));
+        }
+        return result;
+    }
+    
+    /**
+     * 缓存命中统计
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("entries", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("persistentEnabled", persistentEnabled);
+        result.put("persistentHits", persistentHits.sum());
+        result.put("persistentMisses", persistentMisses.sum());
+        result.put("persistentErrors", persistentErrors.sum());
+        result.put("loads", loads.sum());
+        return result;
+    }
+    
+    /**
+     * 从持久层加载，命中的条目从missing移到found并回填进程内缓存
+     */
+    private void loadPersistent(Map<String, String> missing, Map<String, float[]> found) {
+        try {
+            for (EmbeddingCacheEntry entry : embeddingCacheMapper.selectByKeys(missing.keySet())) {
+                float[] vector = decode(entry.getVector());
+                if (vector.length != entry.getDimension()) {
+                    continue;
+                }
+                cache.put(entry.getCacheKey(), vector);
+                found.put(entry.getCacheKey(), vector);
+                missing.remove(entry.getCacheKey());
+                persistentHits.increment();
+            }
+            persistentMisses.add(missing.size());
+        } catch (Exception e) {
+            persistentErrors.increment();
+            log.warn("读取嵌入向量持久缓存失败，数量: {}", missing.size(), e);
+        }
+    }
+    
+    private void storePersistent(String model, List<String> keys, List<float[]> vectors) {
+        List<EmbeddingCacheEntry> entries = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            EmbeddingCacheEntry entry = new EmbeddingCacheEntry();
+            entry.setCacheKey(keys.get(i));
+            entry.setModel(model);
+            entry.setDimension(vectors.get(i).length);
+            entry.setVector(encode(vectors.get(i)));
+            entries.add(entry);
+        }
+        try {
+            embeddingCacheMapper.insertBatch(entries);
+        } catch (Exception e) {
+            persistentErrors.increment();
+            log.warn("写入嵌入向量持久缓存失败，数量: {}", entries.size(), e);
+        }
+    }
+    
+    /**
+     * 生成缓存键
+     */
+    static String cacheKey(String model, String text) {
+        String normalized = Normalizer.normalize(text == null ? "" : text, Normalizer.Form.NFC)
+                .trim()
+                .replaceAll("\\s+", " ");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] hash = digest.digest(normalized.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+    
+    private static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+    
+    private static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
@@ -1,5 +1,7 @@
 package com.mem0.core.embedding;
 
+import com.mem0.core.vector.DenseVector;
+
 import java.util.List;
 
 /**
@@ -15,7 +17,7 @@ public interface EmbeddingService {
      * @param text 输入文本
      * @return 嵌入向量
      */
-    List<Float> embed(String text);
+    DenseVector embed(String text);
     
     /**
      * 批量生成文本嵌入向量
@@ -23,7 +25,7 @@ public interface EmbeddingService {
      * @param texts 输入文本列表
      * @return 嵌入向量列表
      */
-    List<List<Float>> embedBatch(List<String> texts);
+    List<DenseVector> embedBatch(List<String> texts);
     
     /**
      * 计算两个向量的余弦相似度
@@ -32,7 +34,7 @@ public interface EmbeddingService {
      * @param vector2 向量2
      * @return 相似度分数
      */
-    double cosineSimilarity(List<Float> vector1, List<Float> vector2);
+    double cosineSimilarity(DenseVector vector1, DenseVector vector2);
     
     /**
      * 计算两个向量的欧几里得距离
@@ -41,5 +43,5 @@ public interface EmbeddingService {
      * @param vector2 向量2
      * @return 距离
      */
-    double euclideanDistance(List<Float> vector1, List<Float> vector2);
+    double euclideanDistance(DenseVector vector1, DenseVector vector2);
 } 
\ No newline at end of file
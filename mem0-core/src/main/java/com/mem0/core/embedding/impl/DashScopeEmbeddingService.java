@@ -1,11 +1,14 @@
 package com.mem0.core.embedding.impl;
 
 import com.alibaba.cloud.ai.dashscope.embedding.DashScopeEmbeddingOptions;
+import com.mem0.core.embedding.EmbeddingCache;
 import com.mem0.core.embedding.EmbeddingService;
+import com.mem0.core.vector.DenseVector;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.embedding.EmbeddingRequest;
 import org.springframework.ai.embedding.EmbeddingResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -22,72 +25,63 @@ public class DashScopeEmbeddingService implements EmbeddingService {
     @Autowired
     private EmbeddingModel embeddingModel;
     
+    @Autowired
+    private EmbeddingCache embeddingCache;
+    
+    @Value("${mem0.embedding.batch-size:25}")
+    private int batchSize;
+    
+    @Value("${spring.ai.dashscope.embedding.options.model:text-embedding-v1}")
+    private String model;
+    
     @Override
-    public List<Float> embed(String text) {
+    public DenseVector embed(String text) {
         try {
-            EmbeddingResponse response = embeddingModel.call(new EmbeddingRequest(
-                List.of(text),
-                DashScopeEmbeddingOptions.builder().withModel("text-embedding-v1").build()
-            ));
-            float[] embedding = response.getResult().getOutput();
-            
-            // 转换为List<Float>
-            List<Float> result = new ArrayList<>();
-            for (float f : embedding) {
-                result.add(f);
-            }
-            return result;
+            return DenseVector.of(embeddingCache.get(model, text, t -> request(List.of(t)).get(0)));
         } catch (Exception e) {
             throw new RuntimeException("生成嵌入向量失败: " + text, e);
         }
     }
     
     @Override
-    public List<List<Float>> embedBatch(List<String> texts) {
-        List<List<Float>> results = new ArrayList<>();
-        for (String text : texts) {
-            results.add(embed(text));
+    public List<DenseVector> embedBatch(List<String> texts) {
+        List<DenseVector> results = new ArrayList<>(texts.size());
+        for (float[] vector : embeddingCache.getAll(model, texts, this::request)) {
+            results.add(DenseVector.of(vector));
         }
         return results;
     }
     
-    @Override
-    public double cosineSimilarity(List<Float> vector1, List<Float> vector2) {
-        if (vector1.size() != vector2.size()) {
-            throw new IllegalArgumentException("向量维度不匹配");
-        }
-        
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-        
-        for (int i = 0; i < vector1.size(); i++) {
-            double v1 = vector1.get(i);
-            double v2 = vector2.get(i);
-            dotProduct += v1 * v2;
-            norm1 += v1 * v1;
-            norm2 += v2 * v2;
-        }
-        
-        if (norm1 == 0.0 || norm2 == 0.0) {
-            return 0.0;
+    /**
+     * 调用嵌入模型，按单次请求上限分块
+     */
+    private List<float[]> request(List<String> texts) {
+        List<float[]> results = new ArrayList<>(texts.size());
+        int chunkSize = Math.max(1, batchSize);
+        for (int start = 0; start < texts.size(); start += chunkSize) {
+            List<String> chunk = texts.subList(start, Math.min(start + chunkSize, texts.size()));
+            try {
+                EmbeddingResponse response = embeddingModel.call(new EmbeddingRequest(
+                    chunk,
+                    DashScopeEmbeddingOptions.builder().withModel(model).build()
+                ));
+                for (org.springframework.ai.embedding.Embedding embedding : response.getResults()) {
+                    results.add(embedding.getOutput());
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("批量生成嵌入向量失败，数量: " + chunk.size(), e);
+            }
         }
-        
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+        return results;
     }
     
     @Override
-    public double euclideanDistance(List<Float> vector1, List<Float> vector2) {
-        if (vector1.size() != vector2.size()) {
-            throw new IllegalArgumentException("向量维度不匹配");
-        }
-        
-        double sum = 0.0;
-        for (int i = 0; i < vector1.size(); i++) {
-            double diff = vector1.get(i) - vector2.get(i);
-            sum += diff * diff;
-        }
-        
-        return Math.sqrt(sum);
+    public double cosineSimilarity(DenseVector vector1, DenseVector vector2) {
+        return vector1.cosineSimilarity(vector2);
+    }
+    
+    @Override
+    public double euclideanDistance(DenseVector vector1, DenseVector vector2) {
+        return vector1.euclideanDistance(vector2);
     }
-} 
\ No newline at end of file
+}
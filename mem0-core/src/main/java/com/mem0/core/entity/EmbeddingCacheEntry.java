@@ -0,0 +1,38 @@
+package com.mem0.core.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 嵌入向量缓存实体类
+ * 对应数据库表 embedding_cache
+ * 
+ * @author changyu496
+ */
+@Data
+public class EmbeddingCacheEntry {
+    /**
+     * 缓存键：模型名与归一化文本的SHA-256
+     */
+    private String cacheKey;
+    
+    /**
+     * 嵌入模型名称
+     */
+    private String model;
+    
+    /**
+     * 向量维度
+     */
+    private Integer dimension;
+    
+    /**
+     * 向量数据（小端序float数组）
+     */
+    private byte[] vector;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,73 @@
+package com.mem0.core.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 记忆向量同步发件箱实体类
+ * 对应数据库表 memory_outbox
+ * 
+ * @author changyu496
+ */
+@Data
+public class MemoryOutboxEvent {
+    /**
+     * 主键ID
+     */
+    private Long id;
+    
+    /**
+     * 记忆表主键ID
+     */
+    private Long memoryId;
+    
+    /**
+     * 操作类型：upsert、delete
+     */
+    private String operation;
+    
+    /**
+     * 状态：0-待同步，1-已放弃
+     */
+    private Integer status;
+    
+    /**
+     * 已尝试次数
+     */
+    private Integer attempts;
+    
+    /**
+     * 下次尝试时间
+     */
+    private LocalDateTime nextAttemptAt;
+    
+    /**
+     * 最近一次失败原因
+     */
+    private String lastError;
+    
+    /**
+     * 领取该事件的中继批次
+     */
+    private String lockedBy;
+    
+    /**
+     * 领取到期时间
+     */
+    private LocalDateTime lockedUntil;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+    
+    /**
+     * 创建待同步事件
+     */
+    public static MemoryOutboxEvent of(Long memoryId, String operation) {
+        MemoryOutboxEvent event = new MemoryOutboxEvent();
+        event.setMemoryId(memoryId);
+        event.setOperation(operation);
+        return event;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mem0.core.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 对账任务检查点实体类
+ * 对应数据库表 reconcile_checkpoint
+ * 
+ * @author changyu496
+ */
+@Data
+public class ReconcileCheckpoint {
+    /**
+     * 任务名称
+     */
+    private String jobName;
+    
+    /**
+     * 阶段：rows-核对记忆表，vectors-清理孤立向量，done-已完成
+     */
+    private String phase;
+    
+    /**
+     * 当前阶段已处理到的记忆ID
+     */
+    private Long lastId;
+    
+    /**
+     * 已扫描数
+     */
+    private Long scanned;
+    
+    /**
+     * 补写的缺失向量数
+     */
+    private Long missing;
+    
+    /**
+     * 重写的过期向量数
+     */
+    private Long stale;
+    
+    /**
+     * 删除的孤立向量数
+     */
+    private Long orphaned;
+    
+    /**
+     * 修复失败数
+     */
+    private Long failed;
+    
+    /**
+     * 本轮开始时间
+     */
+    private LocalDateTime startedAt;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
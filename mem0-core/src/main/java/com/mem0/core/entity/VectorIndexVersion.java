@@ -0,0 +1,61 @@
+package com.mem0.core.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 向量索引版本实体类
+ * 对应数据库表 vector_index_version
+ * 
+ * 每个版本对应一个物理索引及生成其向量的嵌入模型，读写别名始终指向使用中的版本。
+ * 
+ * @author changyu496
+ */
+@Data
+public class VectorIndexVersion {
+    
+    public static final int STATUS_BUILDING = 0;
+    public static final int STATUS_ACTIVE = 1;
+    public static final int STATUS_RETIRED = 2;
+    public static final int STATUS_SWITCHING = 3;
+    
+    /**
+     * 主键ID
+     */
+    private Long id;
+    
+    /**
+     * 物理索引名称
+     */
+    private String indexName;
+    
+    /**
+     * 嵌入模型名称
+     */
+    private String embeddingModel;
+    
+    /**
+     * 向量维度，为空时使用模型默认维度
+     */
+    private Integer dimension;
+    
+    /**
+     * 状态：0-构建中，1-使用中，2-已停用，3-切换中
+     */
+    private Integer status;
+    
+    /**
+     * 回填已处理到的记忆ID
+     */
+    private Long lastId;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
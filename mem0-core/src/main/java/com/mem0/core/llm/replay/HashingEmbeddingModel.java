@@ -0,0 +1,71 @@
+package com.mem0.core.llm.replay;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 确定性的EmbeddingModel
+ * 
+ * 对文本做词袋特征哈希：每个词按哈希映射到一个维度并带符号累加，
+ * 相同文本得到相同向量，词重叠越多余弦相似度越高，离线也能得到有意义的检索结果。
+ * 
+ * @author changyu496
+ */
+public class HashingEmbeddingModel implements EmbeddingModel {
+    
+    private final int dimension;
+    private final LatencySimulator latency;
+    
+    public HashingEmbeddingModel(int dimension, LatencySimulator latency) {
+        this.dimension = dimension;
+        this.latency = latency;
+    }
+    
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        latency.pause(ModelRecordingStore.TYPE_EMBEDDING, null);
+        List<Embedding> embeddings = new ArrayList<>(request.getInstructions().size());
+        for (int i = 0; i < request.getInstructions().size(); i++) {
+            embeddings.add(new Embedding(vector(request.getInstructions().get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+    
+    @Override
+    public float[] embed(Document document) {
+        return vector(document.getText());
+    }
+    
+    @Override
+    public int dimensions() {
+        return dimension;
+    }
+    
+    /**
+     * 生成文本对应的向量
+     */
+    public float[] vector(String text) {
+        float[] vector = new float[dimension];
+        int tokens = 0;
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            int hash = token.hashCode() * 0x9E3779B1;
+            vector[Math.floorMod(hash, dimension)] += (hash >>> 31) == 0 ? 1f : -1f;
+            tokens++;
+        }
+        // 没有任何词时给一个固定非零向量，避免零向量
+        if (tokens == 0) {
+            vector[0] = 1f;
+        }
+        return vector;
+    }
+}
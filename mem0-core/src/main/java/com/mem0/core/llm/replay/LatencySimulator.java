@@ -0,0 +1,84 @@
+package com.mem0.core.llm.replay;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回放时注入的模型延迟
+ * 
+ * NONE不等待；FIXED每次等待固定时长；RECORDED命中录制时等待该次录制的耗时，
+ * 未命中时从同类调用录制到的耗时中随机抽样，从而复现线上的延迟分布。
+ * 
+ * @author changyu496
+ */
+public class LatencySimulator {
+    
+    public enum Mode {
+        NONE, FIXED, RECORDED
+    }
+    
+    private final Mode mode;
+    private final long fixedMs;
+    private final ModelRecordingStore store;
+    
+    public LatencySimulator(Mode mode, long fixedMs, ModelRecordingStore store) {
+        this.mode = mode;
+        this.fixedMs = fixedMs;
+        this.store = store;
+    }
+    
+    public static LatencySimulator none() {
+        return new LatencySimulator(Mode.NONE, 0, null);
+    }
+    
+    public static LatencySimulator fixed(long millis) {
+        return new LatencySimulator(Mode.FIXED, millis, null);
+    }
+    
+    /**
+     * 按模式等待
+     * 
+     * @param type 调用类型，见 {@link ModelRecordingStore}
+     * @param recorded 命中录制时的录制耗时，未命中为null
+     */
+    public void pause(String type, ModelRecordingStore.Entry recorded) {
+        sleep(delayMs(type, recorded));
+    }
+    
+    /**
+     * 按模式计算本次调用的延迟，不等待
+     */
+    public long delayMs(String type, ModelRecordingStore.Entry recorded) {
+        long millis;
+        switch (mode) {
+            case FIXED:
+                millis = fixedMs;
+                break;
+            case RECORDED:
+                millis = recorded != null ? recorded.getLatencyMs() : sample(type);
+                break;
+            default:
+                millis = 0;
+        }
+        return millis;
+    }
+    
+    static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private long sample(String type) {
+        long[] latencies = store == null ? new long[0] : store.latencies(type);
+        if (latencies.length == 0) {
+            return fixedMs;
+        }
+        return latencies[ThreadLocalRandom.current().nextInt(latencies.length)];
+    }
+}
@@ -0,0 +1,198 @@
+package com.mem0.core.llm.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 模型调用录制文件
+ * 
+ * JSONL格式，每行一条记录：对话调用按提示词哈希保存响应和耗时，嵌入调用只保存文本数和耗时。
+ * 启动时整体加载到内存，录制时追加写入。文件不存在时视为空录制。
+ * 
+ * @author changyu496
+ */
+@Slf4j
+public class ModelRecordingStore {
+    
+    public static final String TYPE_CHAT = "chat";
+    public static final String TYPE_EMBEDDING = "embedding";
+    
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entry> chatEntries = new ConcurrentHashMap<>();
+    private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+    private BufferedWriter writer;
+    
+    public ModelRecordingStore(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+        if (file != null && Files.exists(file)) {
+            load();
+        }
+    }
+    
+    /**
+     * 按提示词查找录制的对话响应
+     */
+    public Entry findChat(String prompt) {
+        return chatEntries.get(promptKey(prompt));
+    }
+    
+    /**
+     * 某类调用录制到的全部耗时（毫秒）
+     */
+    public long[] latencies(String type) {
+        List<Long> values = latencies.get(type);
+        if (values == null) {
+            return new long[0];
+        }
+        synchronized (values) {
+            return values.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+    
+    public int chatSize() {
+        return chatEntries.size();
+    }
+    
+    /**
+     * 追加一条对话录制
+     */
+    public void recordChat(String prompt, String response, long latencyMs) {
+        Entry entry = new Entry();
+        entry.setType(TYPE_CHAT);
+        entry.setKey(promptKey(prompt));
+        entry.setResponse(response);
+        entry.setLatencyMs(latencyMs);
+        append(entry);
+    }
+    
+    /**
+     * 追加一条嵌入录制
+     */
+    public void recordEmbedding(int inputs, long latencyMs) {
+        Entry entry = new Entry();
+        entry.setType(TYPE_EMBEDDING);
+        entry.setInputs(inputs);
+        entry.setLatencyMs(latencyMs);
+        append(entry);
+    }
+    
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("关闭录制文件失败: {}", file, e);
+            }
+            writer = null;
+        }
+    }
+    
+    private synchronized void append(Entry entry) {
+        index(entry);
+        if (file == null) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(objectMapper.writeValueAsString(entry));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入录制文件失败: " + file, e);
+        }
+    }
+    
+    private void load() {
+        try {
+            int count = 0;
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                index(objectMapper.readValue(line, Entry.class));
+                count++;
+            }
+            log.info("加载模型录制 - 文件: {}, 记录数: {}, 对话响应数: {}", file, count, chatEntries.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取录制文件失败: " + file, e);
+        }
+    }
+    
+    private void index(Entry entry) {
+        if (TYPE_CHAT.equals(entry.getType()) && entry.getKey() != null) {
+            chatEntries.put(entry.getKey(), entry);
+        }
+        List<Long> values = latencies.computeIfAbsent(entry.getType(), t -> new ArrayList<>());
+        synchronized (values) {
+            values.add(entry.getLatencyMs());
+        }
+    }
+    
+    /**
+     * 提示词哈希
+     * 
+     * 事实提取提示词里带有当天日期，计算哈希前去掉，否则录制隔天就无法命中。
+     */
+    public static String promptKey(String prompt) {
+        String normalized = prompt.replaceAll("Today's date is \\d{4}-\\d{2}-\\d{2}", "Today's date is <date>");
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+    
+    /**
+     * 录制记录
+     */
+    public static class Entry {
+        private String type;
+        private String key;
+        private String response;
+        private Integer inputs;
+        private long latencyMs;
+        
+        // Getters and Setters
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        
+        public String getKey() { return key; }
+        public void setKey(String key) { this.key = key; }
+        
+        public String getResponse() { return response; }
+        public void setResponse(String response) { this.response = response; }
+        
+        public Integer getInputs() { return inputs; }
+        public void setInputs(Integer inputs) { this.inputs = inputs; }
+        
+        public long getLatencyMs() { return latencyMs; }
+        public void setLatencyMs(long latencyMs) { this.latencyMs = latencyMs; }
+    }
+}
@@ -0,0 +1,51 @@
+package com.mem0.core.llm.replay;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+/**
+ * 录制ChatModel：调用真实模型，并把响应和耗时按提示词哈希写入录制文件
+ * 
+ * 流式调用在完成后把拼接的完整响应和总耗时写入录制文件，回放时同步和流式调用共用同一条录制。
+ * 
+ * @author changyu496
+ */
+public class RecordingChatModel implements ChatModel {
+    
+    private final ChatModel delegate;
+    private final ModelRecordingStore store;
+    
+    public RecordingChatModel(ChatModel delegate, ModelRecordingStore store) {
+        this.delegate = delegate;
+        this.store = store;
+    }
+    
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        long start = System.currentTimeMillis();
+        ChatResponse response = delegate.call(prompt);
+        long latencyMs = System.currentTimeMillis() - start;
+        if (response != null && response.getResult() != null) {
+            store.recordChat(prompt.getContents(), response.getResult().getOutput().getText(), latencyMs);
+        }
+        return response;
+    }
+    
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            long start = System.currentTimeMillis();
+            StringBuilder content = new StringBuilder();
+            return delegate.stream(prompt)
+                    .doOnNext(chunk -> {
+                        if (chunk.getResult() != null && chunk.getResult().getOutput().getText() != null) {
+                            content.append(chunk.getResult().getOutput().getText());
+                        }
+                    })
+                    .doOnComplete(() -> store.recordChat(prompt.getContents(), content.toString(),
+                            System.currentTimeMillis() - start));
+        });
+    }
+}
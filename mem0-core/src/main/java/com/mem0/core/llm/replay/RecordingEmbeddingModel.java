@@ -0,0 +1,42 @@
+package com.mem0.core.llm.replay;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * 录制EmbeddingModel：调用真实模型，只记录每次请求的文本数和耗时
+ * 
+ * 回放时向量由 {@link HashingEmbeddingModel} 生成，录制的耗时用于复现延迟分布。
+ * 
+ * @author changyu496
+ */
+public class RecordingEmbeddingModel implements EmbeddingModel {
+    
+    private final EmbeddingModel delegate;
+    private final ModelRecordingStore store;
+    
+    public RecordingEmbeddingModel(EmbeddingModel delegate, ModelRecordingStore store) {
+        this.delegate = delegate;
+        this.store = store;
+    }
+    
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        long start = System.currentTimeMillis();
+        EmbeddingResponse response = delegate.call(request);
+        store.recordEmbedding(request.getInstructions().size(), System.currentTimeMillis() - start);
+        return response;
+    }
+    
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+    
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,153 @@
+package com.mem0.core.llm.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 回放ChatModel
+ * 
+ * 优先返回按提示词哈希录制的响应；未命中时按规则生成固定格式响应：
+ * 事实提取返回预设事实（未预设时把输入的每一行作为一条事实），
+ * 记忆更新把提示词中的每个新事实作为ADD返回，融合推理把提取出的事实直接作为ADD返回。响应包在 ```json 代码块中，与通义千问的实际输出一致。
+ * 流式调用把同一响应切成固定长度的分片，延迟均摊到各分片上。
+ * 
+ * @author changyu496
+ */
+public class ReplayChatModel implements ChatModel {
+    
+    private static final String FACT_RETRIEVAL_MARKER = "Personal Information Organizer";
+    private static final String FUSED_MARKER = "extracts facts from a conversation and reconciles them";
+    private static final String INPUT_MARKER = "Input:\n";
+    private static final String NEW_FACTS_MARKER = "The new retrieved facts are mentioned below.";
+    
+    private static final int STREAM_CHUNK_CHARS = 16;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ModelRecordingStore store;
+    private final LatencySimulator latency;
+    private final List<String> facts;
+    
+    /**
+     * @param store 录制文件，可为null
+     * @param latency 注入延迟
+     * @param facts 未命中时固定返回的事实，为null时把输入的每一行作为事实
+     */
+    public ReplayChatModel(ModelRecordingStore store, LatencySimulator latency, List<String> facts) {
+        this.store = store;
+        this.latency = latency;
+        this.facts = facts;
+    }
+    
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String text = prompt.getContents();
+        ModelRecordingStore.Entry recorded = store == null ? null : store.findChat(text);
+        latency.pause(ModelRecordingStore.TYPE_CHAT, recorded);
+        return response(respond(text, recorded));
+    }
+    
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            String text = prompt.getContents();
+            ModelRecordingStore.Entry recorded = store == null ? null : store.findChat(text);
+            String content = respond(text, recorded);
+            List<String> chunks = new ArrayList<>();
+            for (int i = 0; i < content.length(); i += STREAM_CHUNK_CHARS) {
+                chunks.add(content.substring(i, Math.min(content.length(), i + STREAM_CHUNK_CHARS)));
+            }
+            long chunkDelayMs = latency.delayMs(ModelRecordingStore.TYPE_CHAT, recorded) / Math.max(1, chunks.size());
+            return Flux.fromIterable(chunks).map(chunk -> {
+                LatencySimulator.sleep(chunkDelayMs);
+                return response(chunk);
+            });
+        });
+    }
+    
+    private ChatResponse response(String content) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(content))));
+    }
+    
+    private String respond(String text, ModelRecordingStore.Entry recorded) {
+        String content;
+        if (recorded != null) {
+            content = recorded.getResponse();
+        } else if (text.contains(FACT_RETRIEVAL_MARKER)) {
+            content = "```json\n" + factsResponse(text) + "\n```";
+        } else if (text.contains(FUSED_MARKER)) {
+            content = "```json\n" + addResponse(extractFacts(text)) + "\n```";
+        } else {
+            content = "```json\n" + updateResponse(text) + "\n```";
+        }
+        return content;
+    }
+    
+    private String factsResponse(String prompt) {
+        ObjectNode root = objectMapper.createObjectNode();
+        ArrayNode factsNode = root.putArray("facts");
+        extractFacts(prompt).forEach(factsNode::add);
+        return root.toString();
+    }
+    
+    private List<String> extractFacts(String prompt) {
+        List<String> result = facts;
+        if (result == null) {
+            result = new ArrayList<>();
+            int start = prompt.lastIndexOf(INPUT_MARKER);
+            String input = start < 0 ? "" : prompt.substring(start + INPUT_MARKER.length());
+            for (String line : input.split("\n")) {
+                if (!line.isBlank()) {
+                    // 更新提示词直接拼接事实，不做JSON转义
+                    result.add(line.trim().replace('"', '\'').replace('\\', '/'));
+                }
+            }
+        }
+        return result;
+    }
+    
+    private String updateResponse(String prompt) {
+        return addResponse(parseNewFacts(prompt));
+    }
+    
+    private String addResponse(List<String> newFacts) {
+        ObjectNode root = objectMapper.createObjectNode();
+        ArrayNode memoryNode = root.putArray("memory");
+        for (int i = 0; i < newFacts.size(); i++) {
+            memoryNode.addObject()
+                    .put("id", String.valueOf(i))
+                    .put("text", newFacts.get(i))
+                    .put("event", "ADD");
+        }
+        return root.toString();
+    }
+    
+    private List<String> parseNewFacts(String prompt) {
+        List<String> result = new ArrayList<>();
+        int marker = prompt.indexOf(NEW_FACTS_MARKER);
+        int start = marker < 0 ? -1 : prompt.indexOf("```", marker);
+        int end = start < 0 ? -1 : prompt.indexOf("```", start + 3);
+        if (end < 0) {
+            return result;
+        }
+        try {
+            JsonNode array = objectMapper.readTree(prompt.substring(start + 3, end));
+            for (JsonNode fact : array) {
+                result.add(fact.asText());
+            }
+        } catch (Exception e) {
+            // 解析失败时视为没有新事实
+        }
+        return result;
+    }
+}
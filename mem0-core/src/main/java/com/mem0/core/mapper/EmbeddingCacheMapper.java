@@ -0,0 +1,27 @@
+package com.mem0.core.mapper;
+
+import com.mem0.core.entity.EmbeddingCacheEntry;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 嵌入向量缓存数据访问层
+ * 
+ * @author changyu496
+ */
+@Mapper
+public interface EmbeddingCacheMapper {
+    
+    /**
+     * 根据缓存键批量查询
+     */
+    List<EmbeddingCacheEntry> selectByKeys(@Param("cacheKeys") Collection<String> cacheKeys);
+    
+    /**
+     * 批量插入，已存在的键忽略
+     */
+    int insertBatch(@Param("entries") List<EmbeddingCacheEntry> entries);
+}
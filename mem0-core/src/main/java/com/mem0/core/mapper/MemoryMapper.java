@@ -25,6 +25,11 @@ public interface MemoryMapper {
      */
     Memory selectByMemoryId(@Param("memoryId") String memoryId);
     
+    /**
+     * 根据ID批量查询记忆
+     */
+    List<Memory> selectByIds(@Param("ids") List<Long> ids);
+    
     /**
      * 根据appId、agentId、userId查询记忆列表
      */
@@ -52,6 +57,11 @@ public interface MemoryMapper {
                                      @Param("offset") int offset,
                                      @Param("limit") int limit);
     
+    /**
+     * 按ID升序查询大于afterId的记忆（键集分页）
+     */
+    List<Memory> selectAfterId(@Param("afterId") long afterId, @Param("limit") int limit);
+    
     /**
      * 统计记忆总数
      */
@@ -67,16 +77,31 @@ public interface MemoryMapper {
      */
     int insert(Memory memory);
     
+    /**
+     * 批量插入记忆，生成的ID回填到各记忆对象
+     */
+    int insertBatch(@Param("memories") List<Memory> memories);
+    
     /**
      * 更新记忆
      */
     int update(Memory memory);
     
+    /**
+     * 批量更新记忆，单条语句完成
+     */
+    int updateBatch(@Param("memories") List<Memory> memories);
+    
     /**
      * 删除记忆
      */
     int deleteById(@Param("id") Long id);
     
+    /**
+     * 根据ID批量删除记忆
+     */
+    int deleteByIds(@Param("ids") List<Long> ids);
+    
     /**
      * 根据memoryId删除记忆
      */
@@ -0,0 +1,59 @@
+package com.mem0.core.mapper;
+
+import com.mem0.core.entity.MemoryOutboxEvent;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 记忆向量同步发件箱数据访问层
+ * 
+ * @author changyu496
+ */
+@Mapper
+public interface MemoryOutboxMapper {
+    
+    /**
+     * 批量插入待同步事件
+     */
+    int insertBatch(@Param("events") List<MemoryOutboxEvent> events);
+    
+    /**
+     * 按ID顺序领取已到重试时间且未被领取（或领取已到期）的待同步事件
+     * 
+     * @param owner 本批次的领取标识
+     * @param limit 最多领取的事件数
+     * @param leaseSeconds 领取有效期
+     * @return 领取的事件数
+     */
+    int claim(@Param("owner") String owner, @Param("limit") int limit, @Param("leaseSeconds") int leaseSeconds);
+    
+    /**
+     * 查询指定批次领取的事件
+     */
+    List<MemoryOutboxEvent> selectClaimed(@Param("owner") String owner);
+    
+    /**
+     * 删除已同步的事件
+     */
+    int deleteByIds(@Param("ids") List<Long> ids);
+    
+    /**
+     * 记录同步失败：尝试次数加一并按指数退避推迟下次尝试，达到最大次数后放弃
+     */
+    int markFailed(@Param("ids") List<Long> ids,
+                   @Param("lastError") String lastError,
+                   @Param("maxAttempts") int maxAttempts,
+                   @Param("maxBackoffSeconds") int maxBackoffSeconds);
+    
+    /**
+     * 释放领取的事件，不计入尝试次数，下次轮询重新处理
+     */
+    int release(@Param("ids") List<Long> ids);
+    
+    /**
+     * 统计指定状态的事件数
+     */
+    long countByStatus(@Param("status") int status);
+}
@@ -0,0 +1,24 @@
+package com.mem0.core.mapper;
+
+import com.mem0.core.entity.ReconcileCheckpoint;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 对账任务检查点数据访问层
+ * 
+ * @author changyu496
+ */
+@Mapper
+public interface ReconcileCheckpointMapper {
+    
+    /**
+     * 根据任务名称查询检查点
+     */
+    ReconcileCheckpoint selectByJobName(@Param("jobName") String jobName);
+    
+    /**
+     * 写入检查点，已存在时覆盖
+     */
+    int upsert(ReconcileCheckpoint checkpoint);
+}
@@ -0,0 +1,36 @@
+package com.mem0.core.mapper;
+
+import com.mem0.core.entity.VectorIndexVersion;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 向量索引版本数据访问层
+ * 
+ * @author changyu496
+ */
+@Mapper
+public interface VectorIndexVersionMapper {
+    
+    /**
+     * 插入版本
+     */
+    int insert(VectorIndexVersion version);
+    
+    /**
+     * 查询构建中和使用中的版本
+     */
+    List<VectorIndexVersion> selectCurrent();
+    
+    /**
+     * 更新回填进度
+     */
+    int updateLastId(@Param("id") Long id, @Param("lastId") long lastId);
+    
+    /**
+     * 更新状态
+     */
+    int updateStatus(@Param("id") Long id, @Param("status") int status);
+}
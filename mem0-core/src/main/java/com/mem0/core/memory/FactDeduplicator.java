@@ -0,0 +1,119 @@
+package com.mem0.core.memory;
+
+import com.mem0.core.vector.DenseVector;
+import com.mem0.core.vector.math.VectorMath;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 事实去重
+ * 
+ * 在交给LLM和写入之前合并同一批事实中的重复项：先按规范化文本精确匹配，
+ * 再用已计算好的嵌入向量做余弦相似度比较，相似度达到阈值的视为近似重复。
+ * 重复项中保留信息更多（更长）的一条。
+ * 
+ * @author changyu496
+ */
+@Component
+public class FactDeduplicator {
+    
+    /**
+     * 两条事实的余弦相似度达到该值时视为重复；大于1时只做文本去重
+     */
+    @Value("${mem0.inference.dedup.similarity-threshold:0.95}")
+    private double similarityThreshold = 0.95;
+    
+    /**
+     * 去重
+     * 
+     * @param facts 事实列表
+     * @param embeddings 与事实一一对应的嵌入向量
+     * @return 去重后的事实及其向量，保持首次出现的顺序
+     */
+    public Result deduplicate(List<String> facts, List<DenseVector> embeddings) {
+        if (facts.size() != embeddings.size()) {
+            throw new IllegalArgumentException("事实数与向量数不一致: " + facts.size() + " != " + embeddings.size());
+        }
+        
+        List<String> keptFacts = new ArrayList<>();
+        List<DenseVector> keptEmbeddings = new ArrayList<>();
+        Map<String, Integer> keptByKey = new HashMap<>();
+        
+        for (int i = 0; i < facts.size(); i++) {
+            String fact = facts.get(i);
+            String key = normalize(fact);
+            if (key.isEmpty()) {
+                continue;
+            }
+            
+            Integer match = keptByKey.get(key);
+            if (match == null && !keptEmbeddings.isEmpty() && similarityThreshold <= 1.0) {
+                float[] scores = VectorMath.cosineMany(embeddings.get(i), keptEmbeddings);
+                int best = 0;
+                for (int j = 1; j < scores.length; j++) {
+                    if (scores[j] > scores[best]) {
+                        best = j;
+                    }
+                }
+                if (scores[best] >= similarityThreshold) {
+                    match = best;
+                }
+            }
+            
+            if (match == null) {
+                keptByKey.put(key, keptFacts.size());
+                keptFacts.add(fact);
+                keptEmbeddings.add(embeddings.get(i));
+            } else {
+                keptByKey.put(key, match);
+                if (fact.length() > keptFacts.get(match).length()) {
+                    keptFacts.set(match, fact);
+                    keptEmbeddings.set(match, embeddings.get(i));
+                }
+            }
+        }
+        return new Result(keptFacts, keptEmbeddings, facts.size() - keptFacts.size());
+    }
+    
+    /**
+     * 规范化文本：NFC、小写、合并空白并去掉结尾标点，用于精确去重
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFC)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ")
+                .replaceAll("[\\p{P}\\s]+$", "")
+                .trim();
+    }
+    
+    /**
+     * 去重结果
+     */
+    public static class Result {
+        private final List<String> facts;
+        private final List<DenseVector> embeddings;
+        private final int duplicates;
+        
+        public Result(List<String> facts, List<DenseVector> embeddings, int duplicates) {
+            this.facts = facts;
+            this.embeddings = embeddings;
+            this.duplicates = duplicates;
+        }
+        
+        public List<String> getFacts() { return facts; }
+        
+        public List<DenseVector> getEmbeddings() { return embeddings; }
+        
+        public int getDuplicates() { return duplicates; }
+    }
+}
@@ -0,0 +1,46 @@
+package com.mem0.core.memory;
+
+/**
+ * 记忆推理模式枚举
+ * 
+ * @author changyu496
+ */
+public enum InferenceMode {
+    /**
+     * 两步推理：先由LLM提取事实，按事实检索相关记忆后再由LLM决定记忆操作
+     */
+    TWO_STEP("two_step", "两步推理"),
+    
+    /**
+     * 融合推理：直接用对话原文检索相关记忆，一次LLM调用同时完成事实提取和记忆操作决策
+     */
+    FUSED("fused", "融合推理");
+    
+    private final String code;
+    private final String description;
+    
+    InferenceMode(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    /**
+     * 根据代码获取推理模式
+     */
+    public static InferenceMode fromCode(String code) {
+        for (InferenceMode mode : values()) {
+            if (mode.code.equalsIgnoreCase(code)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown inference mode code: " + code);
+    }
+}
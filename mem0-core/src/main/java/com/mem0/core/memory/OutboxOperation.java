@@ -0,0 +1,46 @@
+package com.mem0.core.memory;
+
+/**
+ * 发件箱中的向量同步操作枚举
+ * 
+ * @author changyu496
+ */
+public enum OutboxOperation {
+    /**
+     * 写入或覆盖记忆向量
+     */
+    UPSERT("upsert", "写入向量"),
+    
+    /**
+     * 删除记忆向量
+     */
+    DELETE("delete", "删除向量");
+    
+    private final String code;
+    private final String description;
+    
+    OutboxOperation(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    /**
+     * 根据代码获取操作类型
+     */
+    public static OutboxOperation fromCode(String code) {
+        for (OutboxOperation operation : values()) {
+            if (operation.code.equals(code)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown outbox operation code: " + code);
+    }
+}
@@ -30,6 +30,15 @@ public interface PromptService {
                                   List<String> newRetrievedFacts, 
                                   String customUpdateMemoryPrompt);
     
+    /**
+     * 获取融合推理提示词：一次调用同时提取事实并决定记忆操作
+     * 
+     * @param retrievedOldMemory 按对话原文检索到的旧记忆
+     * @param parsedMessages 解析后的消息内容
+     * @return 完整的提示词
+     */
+    String getFusedMemoryMessages(List<Map<String, String>> retrievedOldMemory, String parsedMessages);
+    
     /**
      * 生成记忆搜索提示词
      * 
@@ -216,6 +216,37 @@ public class DefaultPromptService implements PromptService {
         "            ]\n" +
         "        }";
     
+    // 融合推理提示词：事实提取与记忆更新合并为一次调用
+    private static final String FUSED_MEMORY_PROMPT = 
+        "You are a smart memory manager that extracts facts from a conversation and reconciles them with the existing memory in a single step.\n" +
+        "\n" +
+        "First, extract the relevant facts and preferences about the user from the conversation: personal preferences, important personal details, plans and intentions, activity and service preferences, health and wellness, professional details, and other clear factual statements. " +
+        "Create the facts based on the user and assistant messages only, break compound statements into individual facts, and record each fact in the same language as the user input.\n" +
+        "\n" +
+        "Then compare every extracted fact with the existing memory and decide one operation per element:\n" +
+        "- ADD: The fact is new information not present in the memory. Generate a new ID for it.\n" +
+        "- UPDATE: The fact refines or changes an existing memory element. Keep the same ID, put the merged text in \"text\" and the previous text in \"old_memory\". If both convey the same information, keep the one with more information.\n" +
+        "- DELETE: The fact contradicts an existing memory element, or the user asks to forget it. Keep the same ID.\n" +
+        "- NONE: The existing memory element is unchanged.\n" +
+        "\n" +
+        "Only use IDs from the existing memory for UPDATE, DELETE and NONE. If nothing worth remembering is found, return the existing memory with NONE events, or an empty list if the memory is empty.\n" +
+        "\n" +
+        "Example:\n" +
+        "    - Existing Memory:\n" +
+        "        [\n" +
+        "            {\"id\" : \"0\", \"text\" : \"User likes to play cricket\"},\n" +
+        "            {\"id\" : \"1\", \"text\" : \"Loves cheese pizza\"}\n" +
+        "        ]\n" +
+        "    - Input: My name is John. I love playing cricket with my friends, but I can't stand cheese pizza anymore.\n" +
+        "    - Output:\n" +
+        "        {\n" +
+        "            \"memory\" : [\n" +
+        "                {\"id\" : \"0\", \"text\" : \"Loves to play cricket with friends\", \"event\" : \"UPDATE\", \"old_memory\" : \"User likes to play cricket\"},\n" +
+        "                {\"id\" : \"1\", \"text\" : \"Loves cheese pizza\", \"event\" : \"DELETE\"},\n" +
+        "                {\"id\" : \"2\", \"text\" : \"Name is John\", \"event\" : \"ADD\"}\n" +
+        "            ]\n" +
+        "        }";
+    
     @Override
     public String[] getFactRetrievalMessages(String parsedMessages) {
         String systemPrompt = FACT_RETRIEVAL_SYSTEM_PROMPT;
@@ -229,20 +260,7 @@ public class DefaultPromptService implements PromptService {
                                         String customUpdateMemoryPrompt) {
         String updatePrompt = customUpdateMemoryPrompt != null ? customUpdateMemoryPrompt : DEFAULT_UPDATE_MEMORY_PROMPT;
         
-        StringBuilder oldMemoryJson = new StringBuilder();
-        oldMemoryJson.append("[\n");
-        for (int i = 0; i < retrievedOldMemory.size(); i++) {
-            Map<String, String> memory = retrievedOldMemory.get(i);
-            oldMemoryJson.append("    {\n");
-            oldMemoryJson.append("        \"id\": \"").append(memory.get("id")).append("\",\n");
-            oldMemoryJson.append("        \"text\": \"").append(memory.get("text")).append("\"\n");
-            oldMemoryJson.append("    }");
-            if (i < retrievedOldMemory.size() - 1) {
-                oldMemoryJson.append(",");
-            }
-            oldMemoryJson.append("\n");
-        }
-        oldMemoryJson.append("]");
+        String oldMemoryJson = formatOldMemory(retrievedOldMemory);
         
         StringBuilder factsJson = new StringBuilder();
         factsJson.append("[\n");
@@ -257,7 +275,7 @@ public class DefaultPromptService implements PromptService {
         
         return updatePrompt + "\n\n" +
                "Below is the current content of my memory which I have collected till now. You have to update it in the following format only:\n\n" +
-               "```\n" + oldMemoryJson.toString() + "\n```\n\n" +
+               "```\n" + oldMemoryJson + "\n```\n\n" +
                "The new retrieved facts are mentioned below. You have to analyze the new retrieved facts and determine whether these facts should be added, updated, or deleted in the memory.\n\n" +
                "```\n" + factsJson.toString() + "\n```\n\n" +
                "Follow the instruction mentioned below:\n" +
@@ -272,6 +290,41 @@ public class DefaultPromptService implements PromptService {
                "Do not return anything except the JSON format.";
     }
     
+    @Override
+    public String getFusedMemoryMessages(List<Map<String, String>> retrievedOldMemory, String parsedMessages) {
+        return FUSED_MEMORY_PROMPT + "\n\n" +
+               "Below is the existing memory related to the conversation:\n\n" +
+               "```\n" + formatOldMemory(retrievedOldMemory) + "\n```\n\n" +
+               "Follow the instruction mentioned below:\n" +
+               "- Today's date is " + java.time.LocalDate.now() + "\n" +
+               "- Do not return anything from the example provided above.\n" +
+               "- Return every element of the existing memory together with the new elements, in the JSON format shown in the example with a \"memory\" key.\n" +
+               "- DO NOT RETURN ANYTHING ELSE OTHER THAN THE JSON FORMAT.\n" +
+               "- DO NOT ADD ANY ADDITIONAL TEXT OR CODEBLOCK IN THE JSON FIELDS WHICH MAKE IT INVALID SUCH AS \"```json\" OR \"```\".\n\n" +
+               "Following is a conversation between the user and the assistant.\n\nInput:\n" + parsedMessages;
+    }
+    
+    /**
+     * 将旧记忆格式化为提示词中的JSON数组
+     */
+    private String formatOldMemory(List<Map<String, String>> retrievedOldMemory) {
+        StringBuilder oldMemoryJson = new StringBuilder();
+        oldMemoryJson.append("[\n");
+        for (int i = 0; i < retrievedOldMemory.size(); i++) {
+            Map<String, String> memory = retrievedOldMemory.get(i);
+            oldMemoryJson.append("    {\n");
+            oldMemoryJson.append("        \"id\": \"").append(memory.get("id")).append("\",\n");
+            oldMemoryJson.append("        \"text\": \"").append(memory.get("text")).append("\"\n");
+            oldMemoryJson.append("    }");
+            if (i < retrievedOldMemory.size() - 1) {
+                oldMemoryJson.append(",");
+            }
+            oldMemoryJson.append("\n");
+        }
+        oldMemoryJson.append("]");
+        return oldMemoryJson.toString();
+    }
+    
     @Override
     public String generateMemorySearchPrompt(String query, List<String> memories) {
         StringBuilder prompt = new StringBuilder();
@@ -345,4 +398,3 @@ public class DefaultPromptService implements PromptService {
         return prompt.toString();
     }
 }
- 
\ No newline at end of file
@@ -0,0 +1,309 @@
+package com.mem0.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mem0.core.dto.MemoryJob;
+import com.mem0.core.memory.InferenceMode;
+import com.mem0.core.service.MemoryInferenceService.MemoryOperationResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步记忆服务
+ * 
+ * 请求线程只负责入队并返回任务ID，推理、嵌入和写入由后台工作线程完成，
+ * 调用方通过任务ID查询结果，或在提交时指定回调地址。
+ * 
+ * @author changyu496
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AsyncMemoryService {
+    
+    private final MemoryInferenceService memoryInferenceService;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * 工作线程数
+     */
+    @Value("${mem0.async.worker-threads:4}")
+    private int workerThreads;
+    
+    /**
+     * 等待队列容量，队列满时拒绝新任务
+     */
+    @Value("${mem0.async.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    /**
+     * 已完成任务的保留时间
+     */
+    @Value("${mem0.async.job-ttl-seconds:3600}")
+    private long jobTtlSeconds;
+    
+    /**
+     * 回调超时时间与最大尝试次数
+     */
+    @Value("${mem0.async.callback-timeout-ms:5000}")
+    private long callbackTimeoutMs;
+    
+    @Value("${mem0.async.callback-max-attempts:3}")
+    private int callbackMaxAttempts;
+    
+    /**
+     * 允许回调的主机，逗号分隔；以"."开头的项匹配其子域名。为空时不接受回调地址
+     */
+    @Value("${mem0.async.callback-allowed-hosts:}")
+    private String callbackAllowedHosts;
+    
+    private final Map<String, MemoryJob> jobs = new ConcurrentHashMap<>();
+    private final Set<String> allowedCallbackHosts = new HashSet<>();
+    
+    private ThreadPoolExecutor workerExecutor;
+    private ScheduledExecutorService maintenanceExecutor;
+    private HttpClient httpClient;
+    
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        workerExecutor = new ThreadPoolExecutor(
+                workerThreads, workerThreads,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "memory-async-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "memory-async-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenanceExecutor.scheduleWithFixedDelay(this::evictExpiredJobs, 60, 60, TimeUnit.SECONDS);
+        
+        for (String host : callbackAllowedHosts.split(",")) {
+            if (!host.isBlank()) {
+                allowedCallbackHosts.add(host.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(callbackTimeoutMs))
+                .build();
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        maintenanceExecutor.shutdownNow();
+        workerExecutor.shutdown();
+        try {
+            if (!workerExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Async memory workers did not finish in time, {} jobs still queued", workerExecutor.getQueue().size());
+                workerExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workerExecutor.shutdownNow();
+        }
+    }
+    
+    /**
+     * 提交异步添加记忆任务
+     * 
+     * @param messages 消息列表
+     * @param metadata 元数据
+     * @param filters 过滤条件
+     * @param infer 是否进行推理
+     * @param mode 推理模式，为null时使用默认模式
+     * @param callbackUrl 完成后回调地址，可为空
+     * @return 任务信息
+     * @throws IllegalArgumentException 回调地址不是http/https或主机不在 mem0.async.callback-allowed-hosts 中
+     * @throws RejectedExecutionException 队列已满时抛出
+     */
+    public MemoryJob submitAddMemory(
+            List<Map<String, String>> messages,
+            Map<String, Object> metadata,
+            Map<String, Object> filters,
+            boolean infer,
+            InferenceMode mode,
+            String callbackUrl) {
+        
+        if (callbackUrl != null && !callbackUrl.isEmpty()) {
+            validateCallbackUrl(callbackUrl);
+        }
+        
+        MemoryJob job = new MemoryJob();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setStatus(MemoryJob.Status.PENDING);
+        job.setCallbackUrl(callbackUrl);
+        job.setCreatedAt(LocalDateTime.now());
+        jobs.put(job.getJobId(), job);
+        
+        try {
+            workerExecutor.execute(() -> runJob(job, messages, metadata, filters, infer, mode));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            log.warn("Async memory queue is full, rejecting job");
+            throw e;
+        }
+        
+        log.info("Submitted async memory job: {}, queued: {}", job.getJobId(), workerExecutor.getQueue().size());
+        return job;
+    }
+    
+    /**
+     * 查询任务
+     * 
+     * @param jobId 任务ID
+     * @return 任务信息，不存在或已过期时返回null
+     */
+    public MemoryJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+    
+    /**
+     * 校验回调地址，防止调用方借回调访问内网地址或云主机元数据接口
+     */
+    private void validateCallbackUrl(String callbackUrl) {
+        URI uri;
+        try {
+            uri = new URI(callbackUrl);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid callbackUrl: " + callbackUrl);
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : null;
+        if (!"http".equals(scheme) && !"https".equals(scheme)) {
+            throw new IllegalArgumentException("callbackUrl must use http or https: " + callbackUrl);
+        }
+        String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : null;
+        if (host == null || !isAllowedCallbackHost(host)) {
+            throw new IllegalArgumentException("callbackUrl host is not allowed: " + callbackUrl);
+        }
+    }
+    
+    private boolean isAllowedCallbackHost(String host) {
+        for (String allowed : allowedCallbackHosts) {
+            if (allowed.startsWith(".") ? host.endsWith(allowed) : host.equals(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void runJob(MemoryJob job,
+                        List<Map<String, String>> messages,
+                        Map<String, Object> metadata,
+                        Map<String, Object> filters,
+                        boolean infer,
+                        InferenceMode mode) {
+        job.setStartedAt(LocalDateTime.now());
+        job.setStatus(MemoryJob.Status.RUNNING);
+        // 执行过程中逐条追加，轮询方可以在任务完成前看到已写入的记忆；失败时保留已写入的部分结果
+        List<MemoryOperationResult> partialResults = new CopyOnWriteArrayList<>();
+        job.setResults(partialResults);
+        MemoryJob.Status status;
+        try {
+            job.setResults(memoryInferenceService.addMemoryWithInferenceOrThrow(
+                    messages, metadata, filters, infer, mode, partialResults::add));
+            status = MemoryJob.Status.SUCCEEDED;
+        } catch (Exception e) {
+            log.error("Async memory job failed: {}", job.getJobId(), e);
+            job.setError(e.getMessage());
+            status = MemoryJob.Status.FAILED;
+        }
+        // 先设置完成时间再发布终态，清理线程看到已结束的任务时完成时间一定存在
+        job.setFinishedAt(LocalDateTime.now());
+        job.setStatus(status);
+        
+        if (job.getCallbackUrl() != null && !job.getCallbackUrl().isEmpty()) {
+            sendCallback(job, 1);
+        }
+    }
+    
+    /**
+     * 以POST JSON的方式异步通知回调地址，失败时由维护线程按指数退避重试，不占用工作线程
+     */
+    private void sendCallback(MemoryJob job, int attempt) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(job.getCallbackUrl()))
+                    .timeout(Duration.ofMillis(callbackTimeoutMs))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(job)))
+                    .build();
+        } catch (Exception e) {
+            log.error("Failed to build callback for job {}", job.getJobId(), e);
+            return;
+        }
+        
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (error == null && response.statusCode() / 100 == 2) {
+                return;
+            }
+            if (error != null) {
+                log.warn("Callback for job {} failed, attempt {}/{}: {}",
+                        job.getJobId(), attempt, callbackMaxAttempts, error.getMessage());
+            } else {
+                log.warn("Callback for job {} returned status {}, attempt {}/{}",
+                        job.getJobId(), response.statusCode(), attempt, callbackMaxAttempts);
+            }
+            
+            if (attempt >= callbackMaxAttempts) {
+                log.error("Giving up callback for job {} after {} attempts", job.getJobId(), callbackMaxAttempts);
+                return;
+            }
+            try {
+                maintenanceExecutor.schedule(() -> sendCallback(job, attempt + 1),
+                        500L << (attempt - 1), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.warn("Service is shutting down, dropping callback retry for job {}", job.getJobId());
+            }
+        });
+    }
+    
+    /**
+     * 清理过期的已完成任务
+     * 
+     * 异常在这里吞掉：scheduleWithFixedDelay 的任务抛出异常后会被静默取消，清理将永久停止
+     */
+    private void evictExpiredJobs() {
+        try {
+            LocalDateTime expireBefore = LocalDateTime.now().minusSeconds(jobTtlSeconds);
+            jobs.values().removeIf(job -> job.isFinished()
+                    && job.getFinishedAt() != null
+                    && job.getFinishedAt().isBefore(expireBefore));
+        } catch (Exception e) {
+            log.error("Failed to evict expired async memory jobs", e);
+        }
+    }
+}
@@ -4,8 +4,16 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mem0.core.entity.Memory;
+import com.mem0.core.memory.FactDeduplicator;
+import com.mem0.core.memory.InferenceMode;
 import com.mem0.core.prompt.PromptService;
+import com.mem0.core.utils.LlmResponseUtil;
+import com.mem0.core.utils.StreamingJsonArrayParser;
+import com.mem0.core.vector.DenseVector;
+import com.mem0.core.vector.ScoredMemory;
 import com.mem0.core.vector.VectorStoreService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatModel;
@@ -14,12 +22,24 @@ import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.embedding.EmbeddingRequest;
 import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
 
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -38,8 +58,97 @@ public class MemoryInferenceService {
     private final VectorStoreService vectorStoreService;
     private final MemoryService memoryService;
     private final ObjectMapper objectMapper;
+    private final FactDeduplicator factDeduplicator;
     
-    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    /**
+     * 事实搜索、记忆操作并发执行的线程数
+     */
+    @Value("${mem0.inference.executor.pool-size:8}")
+    private int executorPoolSize;
+    
+    /**
+     * 等待队列容量，队列满时由调用线程直接执行，形成背压
+     */
+    @Value("${mem0.inference.executor.queue-capacity:256}")
+    private int executorQueueCapacity;
+    
+    /**
+     * 相关记忆搜索阶段超时时间，超时未完成的搜索会被取消
+     */
+    @Value("${mem0.inference.search-timeout-ms:10000}")
+    private long searchTimeoutMs;
+    
+    /**
+     * 记忆操作执行阶段超时时间，超时未完成的操作会被取消
+     */
+    @Value("${mem0.inference.execute-timeout-ms:30000}")
+    private long executeTimeoutMs;
+    
+    /**
+     * 未指定推理模式时使用的默认模式：two_step 或 fused
+     */
+    @Value("${mem0.inference.mode:two_step}")
+    private String defaultMode;
+    
+    /**
+     * 融合模式下用于检索相关记忆的对话句子数上限
+     */
+    @Value("${mem0.inference.fused.max-queries:20}")
+    private int fusedMaxQueries;
+    
+    /**
+     * 没有任何相关记忆时跳过记忆更新推理，直接添加全部事实
+     */
+    @Value("${mem0.inference.skip-update-without-related:true}")
+    private boolean skipUpdateWithoutRelated;
+    
+    /**
+     * 事实与已有记忆的相似度达到该值时视为相同，本地判为NONE，不交给LLM；大于1时关闭
+     */
+    @Value("${mem0.inference.identical-threshold:0.98}")
+    private double identicalThreshold;
+    
+    /**
+     * 是否流式调用记忆操作推理，每解析出一条操作就开始执行
+     */
+    @Value("${mem0.inference.streaming.enabled:false}")
+    private boolean streamingEnabled;
+    
+    /**
+     * 是否将一次推理的全部记忆操作合并为多行SQL，在同一事务中提交
+     * 
+     * 开启后不再按记忆分组并发执行，execute-timeout-ms 只对流式模式和关闭时的逐条执行生效。
+     */
+    @Value("${mem0.inference.batch-write:false}")
+    private boolean batchWriteEnabled;
+    
+    /**
+     * 推理使用的聊天模型
+     */
+    @Value("${spring.ai.dashscope.chat.options.model:qwen-plus}")
+    private String chatModelName;
+    
+    private ExecutorService executorService;
+    
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executorService = new ThreadPoolExecutor(
+                executorPoolSize, executorPoolSize,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, executorQueueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "memory-inference-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        executorService.shutdownNow();
+    }
     
     /**
      * 添加记忆（带推理）
@@ -55,6 +164,27 @@ public class MemoryInferenceService {
             Map<String, Object> metadata,
             Map<String, Object> filters,
             boolean infer) {
+        return addMemoryWithInference(messages, metadata, filters, infer, null, null);
+    }
+    
+    /**
+     * 添加记忆（带推理），按请求选择推理模式
+     * 
+     * @param messages 消息列表
+     * @param metadata 元数据
+     * @param filters 过滤条件
+     * @param infer 是否进行推理
+     * @param mode 推理模式，为null时使用 mem0.inference.mode
+     * @param listener 每条推理出的记忆操作执行成功后立即回调，可为null
+     * @return 记忆操作结果
+     */
+    public List<MemoryOperationResult> addMemoryWithInference(
+            List<Map<String, String>> messages,
+            Map<String, Object> metadata,
+            Map<String, Object> filters,
+            boolean infer,
+            InferenceMode mode,
+            Consumer<MemoryOperationResult> listener) {
         
         if (!infer) {
             // 直接添加，不进行推理
@@ -62,37 +192,127 @@ public class MemoryInferenceService {
         }
         
         try {
-            // 1. 解析消息
-            String parsedMessages = parseMessages(messages);
-            
-            // 2. 提取事实
-            List<String> newFacts = extractFacts(parsedMessages);
-            
-            if (newFacts.isEmpty()) {
-                log.debug("No new facts retrieved from input. Skipping memory update LLM call.");
-                return new ArrayList<>();
-            }
-            
-            // 3. 搜索相关记忆
-            List<Map<String, String>> retrievedOldMemory = searchRelatedMemories(newFacts, filters);
-            
-            // 4. 推理记忆操作
-            List<MemoryOperationResult> results = inferMemoryOperations(retrievedOldMemory, newFacts);
-            
-            // 5. 执行记忆操作
-            return executeMemoryOperations(results, metadata);
-            
+            return addMemoryWithInferenceOrThrow(messages, metadata, filters, infer, mode, listener);
         } catch (Exception e) {
             log.error("Error in memory inference: ", e);
             return new ArrayList<>();
         }
     }
     
+    /**
+     * 添加记忆（带推理），失败时抛出异常而不是返回空结果
+     * 
+     * 供需要区分"没有可写入的记忆"和"推理失败"的调用方使用，如异步任务。
+     * 提取事实、检索相关记忆或推理记忆操作失败时抛出异常；单条记忆操作执行失败只记录日志，不计入结果。
+     * 
+     * @param messages 消息列表
+     * @param metadata 元数据
+     * @param filters 过滤条件
+     * @param infer 是否进行推理
+     * @param mode 推理模式，为null时使用 mem0.inference.mode
+     * @param listener 每条推理出的记忆操作执行成功后立即回调，可为null
+     * @return 记忆操作结果
+     * @throws IllegalStateException 推理失败
+     */
+    public List<MemoryOperationResult> addMemoryWithInferenceOrThrow(
+            List<Map<String, String>> messages,
+            Map<String, Object> metadata,
+            Map<String, Object> filters,
+            boolean infer,
+            InferenceMode mode,
+            Consumer<MemoryOperationResult> listener) {
+        
+        if (!infer) {
+            // 直接添加，不进行推理
+            return addRawMessages(messages, metadata);
+        }
+        
+        // 1. 解析消息
+        String parsedMessages = parseMessages(messages);
+        
+        if ((mode != null ? mode : InferenceMode.fromCode(defaultMode)) == InferenceMode.FUSED) {
+            return addMemoryFused(parsedMessages, metadata, filters, listener);
+        }
+        
+        // 2. 提取事实
+        List<String> newFacts = extractFacts(parsedMessages);
+        
+        if (newFacts.isEmpty()) {
+            log.debug("No new facts retrieved from input. Skipping memory update LLM call.");
+            return new ArrayList<>();
+        }
+        
+        // 3. 计算事实向量，合并重复和近似重复的事实
+        List<DenseVector> factEmbeddings = getEmbeddingsQuietly(newFacts);
+        if (factEmbeddings != null) {
+            FactDeduplicator.Result deduplicated = factDeduplicator.deduplicate(newFacts, factEmbeddings);
+            if (deduplicated.getDuplicates() > 0) {
+                log.debug("Collapsed {} duplicate facts out of {}", deduplicated.getDuplicates(), newFacts.size());
+            }
+            newFacts = deduplicated.getFacts();
+            factEmbeddings = deduplicated.getEmbeddings();
+        }
+        
+        // 4. 搜索相关记忆
+        List<List<ScoredMemory>> relatedMemories = searchRelatedMemories(newFacts, factEmbeddings, filters);
+        
+        // 5. 推理并执行记忆操作
+        return resolveMemoryOperations(newFacts, relatedMemories, metadata, listener);
+    }
+    
+    /**
+     * 融合推理：用对话句子检索相关记忆，一次LLM调用完成事实提取和记忆操作决策
+     */
+    private List<MemoryOperationResult> addMemoryFused(
+            String parsedMessages,
+            Map<String, Object> metadata,
+            Map<String, Object> filters,
+            Consumer<MemoryOperationResult> listener) {
+        
+        List<String> queries = splitSentences(parsedMessages);
+        if (queries.isEmpty()) {
+            log.debug("No conversation content in input. Skipping fused memory LLM call.");
+            return new ArrayList<>();
+        }
+        
+        List<Map<String, String>> retrievedOldMemory =
+                toOldMemory(searchRelatedMemories(queries, getEmbeddingsQuietly(queries), filters));
+        
+        Map<String, String> tempUuidMapping = new HashMap<>();
+        List<Map<String, String>> mappedOldMemory = mapOldMemoryIds(retrievedOldMemory, tempUuidMapping);
+        String fusedPrompt = promptService.getFusedMemoryMessages(mappedOldMemory, parsedMessages);
+        log.info("融合推理Prompt: {}", fusedPrompt);
+        
+        return inferAndExecute(fusedPrompt, tempUuidMapping, metadata, listener);
+    }
+    
+    /**
+     * 将对话拆分为句子，作为相关记忆的检索条件
+     */
+    private List<String> splitSentences(String parsedMessages) {
+        List<String> sentences = new ArrayList<>();
+        for (String line : parsedMessages.split("\n")) {
+            for (String sentence : line.split("(?<=[。！？])|(?<=[.!?])\\s+")) {
+                String trimmed = sentence.trim();
+                if (!trimmed.isEmpty() && !sentences.contains(trimmed)) {
+                    sentences.add(trimmed);
+                }
+            }
+        }
+        if (sentences.size() > fusedMaxQueries) {
+            log.debug("Conversation has {} sentences, searching with the last {}", sentences.size(), fusedMaxQueries);
+            // 越靠后的内容越可能包含需要更新的信息
+            return new ArrayList<>(sentences.subList(sentences.size() - fusedMaxQueries, sentences.size()));
+        }
+        return sentences;
+    }
+    
     /**
      * 直接添加原始消息
      */
     private List<MemoryOperationResult> addRawMessages(List<Map<String, String>> messages, Map<String, Object> metadata) {
         List<MemoryOperationResult> results = new ArrayList<>();
+        List<Memory> savedMemories = new ArrayList<>();
         
         for (Map<String, String> message : messages) {
             if (!isValidMessage(message)) {
@@ -137,7 +357,7 @@ public class MemoryInferenceService {
                 memory.setMemoryType("fact");
                 memory.setVersion(1);
                 memory.setDefaults(); // 设置默认值
-
+                
                 // 从metadata中提取必填字段
                 if (metadata != null) {
                     if (metadata.get("app_id") != null) {
@@ -153,20 +373,7 @@ public class MemoryInferenceService {
                 }
                 
                 Memory savedMemory = memoryService.createMemory(memory);
-                
-                // 同时将向量存储到Elasticsearch
-                try {
-                    // 获取记忆内容的向量嵌入
-                    List<Float> embeddings = vectorStoreService.getEmbeddings(memory.getContent());
-                    
-                    // 将向量存储到Elasticsearch
-                    vectorStoreService.storeMemoryVector(savedMemory, embeddings);
-                    
-                    log.info("Successfully stored memory vector for memory ID: {}", savedMemory.getId());
-                } catch (Exception e) {
-                    log.error("Failed to store memory vector for memory ID: {}, but memory was saved to database", savedMemory.getId(), e);
-                    // 注意：即使向量存储失败，也不应该回滚数据库操作，因为记忆已经成功保存
-                }
+                savedMemories.add(savedMemory);
                 
                 MemoryOperationResult result = new MemoryOperationResult();
                 result.setId(savedMemory.getId().toString());
@@ -176,12 +383,18 @@ public class MemoryInferenceService {
                 result.setRole(role);
                 
                 results.add(result);
-                
+            
             } catch (Exception e) {
                 log.error("Error creating memory for message: {}", message, e);
             }
         }
         
+        // 同时将向量存储到Elasticsearch，所有消息的嵌入合并为批量请求；启用发件箱时由中继写入
+        // 注意：即使向量存储失败，也不应该回滚数据库操作，因为记忆已经成功保存
+        if (!savedMemories.isEmpty() && !memoryService.isOutboxEnabled()) {
+            vectorStoreService.batchStoreMemoryVectors(savedMemories);
+        }
+        
         return results;
     }
     
@@ -197,6 +410,8 @@ public class MemoryInferenceService {
     
     /**
      * 提取事实
+     * 
+     * @throws IllegalStateException LLM调用失败或响应无法解析
      */
     private List<String> extractFacts(String parsedMessages) {
         try {
@@ -205,17 +420,11 @@ public class MemoryInferenceService {
             // 使用spring-ai-qwen-example的方式调用ChatModel
             String fullPrompt = prompts[0] + "\n\n" + prompts[1];
             
-            // 创建聊天选项
-            DashScopeChatOptions options = DashScopeChatOptions.builder()
-                    .withModel("qwen-plus")
-                    .withTemperature(0.7)
-                    .build();
-            
-            ChatResponse response = chatModel.call(new Prompt(fullPrompt, options));
+            ChatResponse response = chatModel.call(new Prompt(fullPrompt, chatOptions(false)));
             String responseContent = response.getResult().getOutput().getText();
             
             // 清理响应内容
-            String cleanResponse = removeCodeBlocks(responseContent);
+            String cleanResponse = LlmResponseUtil.removeCodeBlocks(responseContent);
             
             // 解析JSON
             JsonNode jsonNode = objectMapper.readTree(cleanResponse);
@@ -228,39 +437,82 @@ public class MemoryInferenceService {
                 }
                 return facts;
             }
-            
+        
         } catch (Exception e) {
-            log.error("Error extracting facts: ", e);
+            throw new IllegalStateException("Error extracting facts", e);
         }
         
         return new ArrayList<>();
     }
     
+    /**
+     * 批量获取向量嵌入
+     * 
+     * @return 与文本一一对应的向量，请求失败时返回null
+     */
+    private List<DenseVector> getEmbeddingsQuietly(List<String> texts) {
+        // 所有文本的向量嵌入合并为批量请求
+        try {
+            return vectorStoreService.getEmbeddingsBatch(texts);
+        } catch (Exception e) {
+            log.error("Error getting embeddings for {} texts", texts.size(), e);
+            return null;
+        }
+    }
+    
     /**
      * 搜索相关记忆
+     * 
+     * @param newFacts 检索条件，两步模式下为提取的事实，融合模式下为对话句子
+     * @param factEmbeddings 检索条件的向量，为null表示向量获取失败
+     * @return 与检索条件一一对应的相关记忆
+     * @throws IllegalStateException 向量获取失败或任一检索失败、超时。此时无法区分"没有相关记忆"和
+     *         "没查到"，继续推理会把已有记忆当作新事实重复添加，因此放弃本次写入
+     */
+    private List<List<ScoredMemory>> searchRelatedMemories(
+            List<String> newFacts,
+            List<DenseVector> factEmbeddings,
+            Map<String, Object> filters) {
+        if (factEmbeddings == null) {
+            throw new IllegalStateException("Failed to embed " + newFacts.size() + " queries for related memory search");
+        }
+        List<List<ScoredMemory>> relatedMemories = new ArrayList<>();
+        
+        // 每个事实的向量搜索并行执行，整体耗时取决于最慢的一次搜索
+        List<Callable<List<ScoredMemory>>> tasks = new ArrayList<>();
+        for (int i = 0; i < newFacts.size(); i++) {
+            String fact = newFacts.get(i);
+            DenseVector embeddings = factEmbeddings.get(i);
+            // 推理只用到记忆ID和内容，不取回其余元数据
+            tasks.add(() -> vectorStoreService.searchSimilarWithScores(fact, embeddings, 5, filters,
+                    List.of(VectorStoreService.CONTENT_FIELD)));
+        }
+        int failed = 0;
+        for (List<ScoredMemory> similarMemories : invokeAll("search", tasks, searchTimeoutMs)) {
+            if (similarMemories == null) {
+                failed++;
+            }
+            relatedMemories.add(similarMemories);
+        }
+        if (failed > 0) {
+            throw new IllegalStateException("Related memory search failed or timed out for "
+                    + failed + " of " + newFacts.size() + " queries");
+        }
+        return relatedMemories;
+    }
+    
+    /**
+     * 合并各检索条件找到的相关记忆并去重
      */
-    private List<Map<String, String>> searchRelatedMemories(List<String> newFacts, Map<String, Object> filters) {
+    private List<Map<String, String>> toOldMemory(List<List<ScoredMemory>> relatedMemories) {
         List<Map<String, String>> retrievedOldMemory = new ArrayList<>();
         Map<String, String> uniqueData = new HashMap<>();
         
-        for (String fact : newFacts) {
-            try {
-                // 获取向量嵌入
-                List<Float> embeddings = vectorStoreService.getEmbeddings(fact);
-                
-                // 搜索相似记忆
-                List<Memory> similarMemories = vectorStoreService.searchSimilar(fact, embeddings, 5, filters);
-                
-                for (Memory memory : similarMemories) {
-                    log.info("找到相似记忆 - ID: {}, Content: {}", memory.getId(), memory.getContent());
-                    Map<String, String> memoryInfo = new HashMap<>();
-                    memoryInfo.put("id", memory.getId().toString());
-                    memoryInfo.put("text", memory.getContent());
-                    uniqueData.put(memory.getId().toString(), memory.getContent());
-                }
-                
-            } catch (Exception e) {
-                log.error("Error searching related memories for fact: {}", fact, e);
+        for (List<ScoredMemory> similarMemories : relatedMemories) {
+            for (ScoredMemory scoredMemory : similarMemories) {
+                Memory memory = scoredMemory.getMemory();
+                log.info("找到相似记忆 - ID: {}, Score: {}, Content: {}", memory.getId(), scoredMemory.getScore(), memory.getContent());
+                uniqueData.put(memory.getId().toString(), memory.getContent());
             }
         }
         
@@ -277,234 +529,769 @@ public class MemoryInferenceService {
     }
     
     /**
-     * 推理记忆操作
+     * 确定并执行记忆操作
+     * 
+     * 能在本地判定的事实不交给LLM：与已有记忆文本相同或相似度达到 identical-threshold 的事实直接判为NONE；
+     * 剩余事实都没有相关记忆时，LLM只可能返回ADD，直接添加而不调用记忆更新推理。
+     */
+    private List<MemoryOperationResult> resolveMemoryOperations(
+            List<String> newFacts,
+            List<List<ScoredMemory>> relatedMemories,
+            Map<String, Object> metadata,
+            Consumer<MemoryOperationResult> listener) {
+        
+        List<MemoryOperationResult> results = new ArrayList<>();
+        List<String> remainingFacts = new ArrayList<>();
+        List<List<ScoredMemory>> remainingRelated = new ArrayList<>();
+        
+        for (int i = 0; i < newFacts.size(); i++) {
+            List<ScoredMemory> similarMemories = relatedMemories.get(i);
+            ScoredMemory best = similarMemories.stream()
+                    .max(Comparator.comparingDouble(ScoredMemory::getScore))
+                    .orElse(null);
+            String factKey = FactDeduplicator.normalize(newFacts.get(i));
+            ScoredMemory sameText = similarMemories.stream()
+                    .filter(m -> factKey.equals(FactDeduplicator.normalize(m.getMemory().getContent())))
+                    .findFirst()
+                    .orElse(null);
+            if (sameText != null) {
+                best = sameText;
+            }
+            if (best != null && (sameText != null || best.getScore() >= identicalThreshold)) {
+                MemoryOperationResult result = new MemoryOperationResult();
+                result.setId(best.getMemory().getId().toString());
+                result.setMemory(best.getMemory().getContent());
+                result.setEvent("NONE");
+                results.add(result);
+                if (listener != null) {
+                    listener.accept(result);
+                }
+            } else {
+                remainingFacts.add(newFacts.get(i));
+                remainingRelated.add(similarMemories);
+            }
+        }
+        if (!results.isEmpty()) {
+            log.debug("{} of {} facts match existing memories above {}, resolved as NONE locally",
+                    results.size(), newFacts.size(), identicalThreshold);
+        }
+        if (remainingFacts.isEmpty()) {
+            return results;
+        }
+        
+        List<Map<String, String>> retrievedOldMemory = toOldMemory(remainingRelated);
+        if (retrievedOldMemory.isEmpty() && skipUpdateWithoutRelated) {
+            log.debug("No related memories for {} facts. Skipping memory update LLM call.", remainingFacts.size());
+            List<MemoryOperationResult> additions = new ArrayList<>();
+            for (String fact : new LinkedHashSet<>(remainingFacts)) {
+                MemoryOperationResult addition = new MemoryOperationResult();
+                addition.setMemory(fact);
+                addition.setEvent("ADD");
+                additions.add(addition);
+            }
+            results.addAll(executeMemoryOperations(additions, metadata, listener));
+            return results;
+        }
+        
+        results.addAll(inferMemoryOperations(retrievedOldMemory, remainingFacts, metadata, listener));
+        return results;
+    }
+    
+    /**
+     * 推理并执行记忆操作
      */
     private List<MemoryOperationResult> inferMemoryOperations(
             List<Map<String, String>> retrievedOldMemory,
-            List<String> newRetrievedFacts) {
+            List<String> newRetrievedFacts,
+            Map<String, Object> metadata,
+            Consumer<MemoryOperationResult> listener) {
         
         if (newRetrievedFacts.isEmpty()) {
             return new ArrayList<>();
         }
         
-        try {
-            // 创建UUID映射（处理UUID幻觉）
-            Map<String, String> tempUuidMapping = new HashMap<>();
-            List<Map<String, String>> mappedOldMemory = new ArrayList<>();
-            
-            for (int i = 0; i < retrievedOldMemory.size(); i++) {
-                Map<String, String> memory = retrievedOldMemory.get(i);
-                String tempId = String.valueOf(i);
-                tempUuidMapping.put(tempId, memory.get("id"));
-                
-                Map<String, String> mappedMemory = new HashMap<>();
-                mappedMemory.put("id", tempId);
-                mappedMemory.put("text", memory.get("text"));
-                mappedOldMemory.add(mappedMemory);
-            }
-            
-            // 生成推理提示词
-            String functionCallingPrompt = promptService.getUpdateMemoryMessages(
-                    mappedOldMemory, newRetrievedFacts, null);
-            
-            log.info("推理Prompt: {}", functionCallingPrompt);
-            
-            // 创建聊天选项
-            DashScopeChatOptions options = DashScopeChatOptions.builder()
-                    .withModel("qwen-plus")
-                    .withTemperature(0.7)
-                    .build();
+        // 创建UUID映射（处理UUID幻觉）
+        Map<String, String> tempUuidMapping = new HashMap<>();
+        List<Map<String, String>> mappedOldMemory = mapOldMemoryIds(retrievedOldMemory, tempUuidMapping);
+        
+        // 生成推理提示词
+        String functionCallingPrompt = promptService.getUpdateMemoryMessages(
+                mappedOldMemory, newRetrievedFacts, null);
+        
+        log.info("推理Prompt: {}", functionCallingPrompt);
+        
+        return inferAndExecute(functionCallingPrompt, tempUuidMapping, metadata, listener);
+    }
+    
+    /**
+     * 调用LLM推理记忆操作并执行，开启流式时边生成边执行
+     */
+    private List<MemoryOperationResult> inferAndExecute(
+            String prompt,
+            Map<String, String> tempUuidMapping,
+            Map<String, Object> metadata,
+            Consumer<MemoryOperationResult> listener) {
+        if (streamingEnabled) {
+            return streamMemoryOperations(prompt, tempUuidMapping, metadata, listener);
+        }
+        return executeMemoryOperations(callMemoryOperations(prompt, tempUuidMapping), metadata, listener);
+    }
+    
+    /**
+     * 将旧记忆ID替换为从0开始的临时ID，避免LLM改写UUID
+     * 
+     * @param tempUuidMapping 输出参数，临时ID到原始ID的映射
+     * @return 使用临时ID的旧记忆
+     */
+    private List<Map<String, String>> mapOldMemoryIds(
+            List<Map<String, String>> retrievedOldMemory,
+            Map<String, String> tempUuidMapping) {
+        
+        List<Map<String, String>> mappedOldMemory = new ArrayList<>();
+        for (int i = 0; i < retrievedOldMemory.size(); i++) {
+            Map<String, String> memory = retrievedOldMemory.get(i);
+            String tempId = String.valueOf(i);
+            tempUuidMapping.put(tempId, memory.get("id"));
             
+            Map<String, String> mappedMemory = new HashMap<>();
+            mappedMemory.put("id", tempId);
+            mappedMemory.put("text", memory.get("text"));
+            mappedOldMemory.add(mappedMemory);
+        }
+        return mappedOldMemory;
+    }
+    
+    /**
+     * 调用LLM并解析返回的记忆操作
+     * 
+     * @throws IllegalStateException LLM调用失败
+     */
+    private List<MemoryOperationResult> callMemoryOperations(String prompt, Map<String, String> tempUuidMapping) {
+        try {
             // 使用spring-ai-qwen-example的方式调用ChatModel
-            ChatResponse response = chatModel.call(new Prompt(functionCallingPrompt, options));
+            ChatResponse response = chatModel.call(new Prompt(prompt, chatOptions(false)));
             String responseContent = response.getResult().getOutput().getText();
             
             log.info("LLM原始响应: {}", responseContent);
-            
+            return parseMemoryOperations(responseContent, tempUuidMapping);
+        
+        } catch (Exception e) {
+            throw new IllegalStateException("Error inferring memory operations", e);
+        }
+    }
+    
+    /**
+     * 解析完整的记忆操作响应
+     */
+    private List<MemoryOperationResult> parseMemoryOperations(String responseContent, Map<String, String> tempUuidMapping) {
+        List<MemoryOperationResult> results = new ArrayList<>();
+        try {
             // 清理响应内容
-            String cleanResponse = removeCodeBlocks(responseContent);
+            String cleanResponse = LlmResponseUtil.removeCodeBlocks(responseContent);
             log.info("LLM清理后响应: {}", cleanResponse);
             
             // 解析JSON
             JsonNode jsonNode = objectMapper.readTree(cleanResponse);
             JsonNode memoryNode = jsonNode.get("memory");
             
-            List<MemoryOperationResult> results = new ArrayList<>();
-            
             if (memoryNode != null && memoryNode.isArray()) {
                 for (JsonNode memoryItem : memoryNode) {
-                    try {
-                        String eventType = memoryItem.get("event").asText();
-                        // 尝试获取memory字段，如果不存在则尝试text字段
-                        JsonNode memoryTextNode = memoryItem.get("memory");
-                        if (memoryTextNode == null) {
-                            memoryTextNode = memoryItem.get("text");
-                        }
-                        String memoryText = memoryTextNode != null ? memoryTextNode.asText() : "";
-                        String id = memoryItem.get("id").asText();
-                        
-                        MemoryOperationResult result = new MemoryOperationResult();
-                        result.setMemory(memoryText);
-                        result.setEvent(eventType);
-                        
-                        if ("UPDATE".equals(eventType) || "DELETE".equals(eventType)) {
-                            // 使用原始UUID
-                            result.setId(tempUuidMapping.get(id));
-                            if ("UPDATE".equals(eventType)) {
-                                JsonNode oldMemoryNode = memoryItem.get("old_memory");
-                                if (oldMemoryNode != null) {
-                                    result.setPreviousMemory(oldMemoryNode.asText());
-                                }
-                            }
-                        }
-                        
+                    MemoryOperationResult result = toOperation(memoryItem, tempUuidMapping);
+                    if (result != null) {
                         results.add(result);
-                        
-                    } catch (Exception e) {
-                        log.error("Error processing memory action: {}", memoryItem, e);
                     }
                 }
             }
+        
+        } catch (Exception e) {
+            log.error("Error inferring memory operations: ", e);
+        }
+        return results;
+    }
+    
+    /**
+     * 将LLM返回的单个记忆元素转换为记忆操作
+     * 
+     * @return 记忆操作，元素格式不正确时返回null
+     */
+    private MemoryOperationResult toOperation(JsonNode memoryItem, Map<String, String> tempUuidMapping) {
+        try {
+            String eventType = memoryItem.get("event").asText();
+            // 尝试获取memory字段，如果不存在则尝试text字段
+            JsonNode memoryTextNode = memoryItem.get("memory");
+            if (memoryTextNode == null) {
+                memoryTextNode = memoryItem.get("text");
+            }
+            String memoryText = memoryTextNode != null ? memoryTextNode.asText() : "";
+            String id = memoryItem.get("id").asText();
             
-            return results;
+            MemoryOperationResult result = new MemoryOperationResult();
+            result.setMemory(memoryText);
+            result.setEvent(eventType);
             
+            if ("UPDATE".equals(eventType) || "DELETE".equals(eventType)) {
+                // 使用原始UUID
+                result.setId(tempUuidMapping.get(id));
+                if ("UPDATE".equals(eventType)) {
+                    JsonNode oldMemoryNode = memoryItem.get("old_memory");
+                    if (oldMemoryNode != null) {
+                        result.setPreviousMemory(oldMemoryNode.asText());
+                    }
+                }
+            }
+            return result;
+        
         } catch (Exception e) {
-            log.error("Error inferring memory operations: ", e);
-            return new ArrayList<>();
+            log.error("Error processing memory action: {}", memoryItem, e);
+            return null;
+        }
+    }
+    
+    /**
+     * 流式推理并执行记忆操作
+     * 
+     * 模型输出的memory数组每完成一个元素就提交执行，第一条记忆的写入不必等待模型生成完全部操作。
+     * 同一条记忆上的UPDATE/DELETE按输出顺序串行执行；流式调用失败且尚未解析出任何操作时退回同步调用。
+     */
+    private List<MemoryOperationResult> streamMemoryOperations(
+            String prompt,
+            Map<String, String> tempUuidMapping,
+            Map<String, Object> metadata,
+            Consumer<MemoryOperationResult> listener) {
+        
+        List<MemoryOperationResult> operations = new ArrayList<>();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        Map<String, CompletableFuture<Boolean>> tails = new HashMap<>();
+        StringBuilder responseContent = new StringBuilder();
+        
+        Set<String> seenTexts = new HashSet<>();
+        StreamingJsonArrayParser parser = new StreamingJsonArrayParser("memory", objectMapper, memoryItem -> {
+            MemoryOperationResult operation = toOperation(memoryItem, tempUuidMapping);
+            if (operation == null || isDuplicateAddition(operation, seenTexts)) {
+                return;
+            }
+            // 流式执行不做批量预取，嵌入逐条获取
+            Supplier<Boolean> task = () -> executeQuietly(operation, metadata, new HashMap<>(), listener);
+            String key = operation.getId() != null && !"ADD".equals(operation.getEvent()) ? operation.getId() : null;
+            CompletableFuture<Boolean> previous = key != null ? tails.get(key) : null;
+            CompletableFuture<Boolean> future = previous != null
+                    ? previous.handleAsync((r, e) -> task.get(), executorService)
+                    : CompletableFuture.supplyAsync(task, executorService);
+            if (key != null) {
+                tails.put(key, future);
+            }
+            operations.add(operation);
+            futures.add(future);
+        });
+        
+        try {
+            for (ChatResponse chunk : chatModel.stream(new Prompt(prompt, chatOptions(true))).toIterable()) {
+                if (chunk.getResult() == null || chunk.getResult().getOutput().getText() == null) {
+                    continue;
+                }
+                String text = chunk.getResult().getOutput().getText();
+                responseContent.append(text);
+                parser.feed(text);
+            }
+        } catch (Exception e) {
+            if (operations.isEmpty()) {
+                log.warn("Streaming memory inference failed before any operation, falling back to blocking call", e);
+                return executeMemoryOperations(callMemoryOperations(prompt, tempUuidMapping), metadata, listener);
+            }
+            log.error("Streaming memory inference interrupted after {} operations", operations.size(), e);
+        }
+        log.info("LLM流式响应: {}", responseContent);
+        
+        if (operations.isEmpty() && !parser.isComplete() && responseContent.length() > 0) {
+            // 输出不是预期的流式JSON结构时按完整响应再解析一次
+            return executeMemoryOperations(parseMemoryOperations(responseContent.toString(), tempUuidMapping),
+                    metadata, listener);
+        }
+        
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(executeTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Stage execute timed out after {}ms, {} of {} tasks cancelled",
+                    executeTimeoutMs, cancelUnfinished(futures), futures.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Stage execute interrupted, {} of {} tasks cancelled", cancelUnfinished(futures), futures.size());
+        } catch (ExecutionException e) {
+            log.error("Task failed in stage execute", e.getCause());
+        }
+        
+        // 保持与LLM返回一致的顺序
+        List<MemoryOperationResult> results = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            CompletableFuture<Boolean> future = futures.get(i);
+            if (future.isDone() && !future.isCompletedExceptionally() && Boolean.TRUE.equals(future.join())) {
+                results.add(operations.get(i));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * 取消尚未完成的执行任务，与 invokeAll 超时后的处理一致
+     * 
+     * CompletableFuture 无法中断已在执行的任务，取消只能阻止尚未开始的操作继续写入
+     * 
+     * @return 被取消的任务数
+     */
+    private int cancelUnfinished(List<CompletableFuture<Boolean>> futures) {
+        int cancelled = 0;
+        for (CompletableFuture<Boolean> future : futures) {
+            if (future.cancel(true)) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+    
+    /**
+     * 判断ADD是否与同一批中之前的ADD/UPDATE内容重复
+     * 
+     * @param seenTexts 已出现的规范化文本，会被更新
+     */
+    private boolean isDuplicateAddition(MemoryOperationResult operation, Set<String> seenTexts) {
+        if (!"ADD".equals(operation.getEvent()) && !"UPDATE".equals(operation.getEvent())) {
+            return false;
         }
+        boolean added = seenTexts.add(FactDeduplicator.normalize(operation.getMemory()));
+        if (!added && "ADD".equals(operation.getEvent())) {
+            log.debug("Dropping duplicate ADD: {}", operation.getMemory());
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 执行单条记忆操作，异常只记录日志
+     */
+    private boolean executeQuietly(
+            MemoryOperationResult operation,
+            Map<String, Object> metadata,
+            Map<String, DenseVector> embeddingsByText,
+            Consumer<MemoryOperationResult> listener) {
+        try {
+            boolean executed = executeMemoryOperation(operation, metadata, embeddingsByText);
+            if (executed && listener != null) {
+                listener.accept(operation);
+            }
+            return executed;
+        } catch (Exception e) {
+            log.error("Error executing memory operation: {}", operation, e);
+            return false;
+        }
+    }
+    
+    /**
+     * 推理调用的聊天选项
+     */
+    private DashScopeChatOptions chatOptions(boolean stream) {
+        DashScopeChatOptions.DashscopeChatOptionsBuilder builder = DashScopeChatOptions.builder()
+                .withModel(chatModelName)
+                .withTemperature(0.7);
+        if (stream) {
+            // 增量输出，每个分片只包含新生成的内容
+            builder.withIncrementalOutput(true);
+        }
+        return builder.build();
     }
     
     /**
      * 执行记忆操作
      */
     private List<MemoryOperationResult> executeMemoryOperations(
-            List<MemoryOperationResult> operations,
-            Map<String, Object> metadata) {
+            List<MemoryOperationResult> inferredOperations,
+            Map<String, Object> metadata,
+            Consumer<MemoryOperationResult> listener) {
         
         List<MemoryOperationResult> results = new ArrayList<>();
         
-        for (MemoryOperationResult operation : operations) {
+        // 同一批中文本重复的ADD只写入一次
+        Set<String> seenTexts = new HashSet<>();
+        List<MemoryOperationResult> operations = inferredOperations.stream()
+                .filter(operation -> !isDuplicateAddition(operation, seenTexts))
+                .collect(Collectors.toList());
+        
+        // 预先批量获取ADD/UPDATE内容的向量嵌入；启用发件箱时向量由中继写入，无需预取
+        Map<String, DenseVector> embeddingsByText = memoryService.isOutboxEnabled()
+                ? new HashMap<>() : prefetchEmbeddings(operations);
+        
+        if (batchWriteEnabled) {
+            boolean[] executed = executeMemoryOperationsInBatch(operations, metadata, embeddingsByText);
+            for (int i = 0; i < operations.size(); i++) {
+                if (executed[i]) {
+                    results.add(operations.get(i));
+                    if (listener != null) {
+                        listener.accept(operations.get(i));
+                    }
+                }
+            }
+            return results;
+        }
+        
+        // 同一条记忆上的UPDATE/DELETE按原顺序串行执行，不同记忆之间并行
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            MemoryOperationResult operation = operations.get(i);
+            String groupKey = operation.getId() != null && !"ADD".equals(operation.getEvent())
+                    ? operation.getId() : "#" + i;
+            groups.computeIfAbsent(groupKey, key -> new ArrayList<>()).add(i);
+        }
+        
+        boolean[] executed = new boolean[operations.size()];
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (List<Integer> group : groups.values()) {
+            tasks.add(() -> {
+                for (int index : group) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                    executed[index] = executeQuietly(operations.get(index), metadata, embeddingsByText, listener);
+                }
+                return null;
+            });
+        }
+        invokeAll("execute", tasks, executeTimeoutMs);
+        
+        // 保持与LLM返回一致的顺序
+        for (int i = 0; i < operations.size(); i++) {
+            if (executed[i]) {
+                results.add(operations.get(i));
+            }
+        }
+        
+        return results;
+    }
+    
+    /**
+     * 批量执行记忆操作：数据库变更在同一事务中提交，随后批量写入向量
+     * 
+     * 同一条记忆上的UPDATE/DELETE按原顺序合并，只写入最终状态。
+     * 
+     * @return 与操作顺序一致的执行标记，事务失败时全部为false
+     */
+    private boolean[] executeMemoryOperationsInBatch(
+            List<MemoryOperationResult> operations,
+            Map<String, Object> metadata,
+            Map<String, DenseVector> embeddingsByText) {
+        
+        boolean[] executed = new boolean[operations.size()];
+        
+        // 一次查询加载所有被UPDATE的记忆
+        List<Long> updateIds = operations.stream()
+                .filter(op -> "UPDATE".equals(op.getEvent()))
+                .map(op -> parseMemoryId(op.getId()))
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Memory> existingMemories = new HashMap<>();
+        for (Memory memory : memoryService.getMemoriesByIds(updateIds)) {
+            existingMemories.put(memory.getId(), memory);
+        }
+        
+        List<Memory> inserts = new ArrayList<>();
+        List<Integer> insertIndexes = new ArrayList<>();
+        Map<Long, Memory> updates = new LinkedHashMap<>();
+        Set<Long> deleteIds = new LinkedHashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            MemoryOperationResult operation = operations.get(i);
+            Long id = parseMemoryId(operation.getId());
+            switch (operation.getEvent()) {
+                case "ADD":
+                    try {
+                        inserts.add(newMemory(operation, metadata));
+                        insertIndexes.add(i);
+                        executed[i] = true;
+                    } catch (JsonProcessingException e) {
+                        log.error("Error building memory for operation: {}", operation, e);
+                    }
+                    break;
+                case "UPDATE":
+                    Memory existingMemory = id != null ? existingMemories.get(id) : null;
+                    if (existingMemory != null) {
+                        existingMemory.setContent(operation.getMemory());
+                        updates.put(id, existingMemory);
+                        executed[i] = true;
+                    }
+                    break;
+                case "DELETE":
+                    if (id != null) {
+                        // 先前的UPDATE被删除覆盖，之后的UPDATE找不到记录
+                        existingMemories.remove(id);
+                        updates.remove(id);
+                        deleteIds.add(id);
+                        executed[i] = true;
+                    }
+                    break;
+                case "NONE":
+                    executed[i] = true;
+                    break;
+                default:
+                    log.warn("Unknown event type: {}", operation.getEvent());
+            }
+        }
+        
+        List<Memory> updatedMemories = new ArrayList<>(updates.values());
+        try {
+            memoryService.applyBatch(inserts, updatedMemories, new ArrayList<>(deleteIds));
+        } catch (Exception e) {
+            log.error("Error applying {} inserts, {} updates, {} deletes in batch",
+                    inserts.size(), updatedMemories.size(), deleteIds.size(), e);
+            return new boolean[operations.size()];
+        }
+        for (int i = 0; i < inserts.size(); i++) {
+            operations.get(insertIndexes.get(i)).setId(inserts.get(i).getId().toString());
+        }
+        if (memoryService.isOutboxEnabled()) {
+            return executed;
+        }
+        
+        // 数据库已提交，向量写入失败只记录日志
+        for (Long id : deleteIds) {
+            try {
+                vectorStoreService.deleteMemoryVector(id.toString(), metadata);
+            } catch (Exception e) {
+                log.error("Failed to delete memory vector for memory ID: {}, but memory was deleted from database", id, e);
+            }
+        }
+        List<Memory> changedMemories = new ArrayList<>(inserts);
+        changedMemories.addAll(updatedMemories);
+        if (!changedMemories.isEmpty()) {
             try {
-                switch (operation.getEvent()) {
-                    case "ADD":
-                        // 创建新记忆
-                        Memory newMemory = new Memory();
-                        newMemory.setContent(operation.getMemory());
-                        newMemory.setMetadata(objectMapper.writeValueAsString(metadata));
-                        newMemory.setMemoryId(UUID.randomUUID().toString()); // 生成唯一ID
-                        newMemory.setMemoryType("fact");
-                        newMemory.setVersion(1);
+                List<DenseVector> embeddings = new ArrayList<>(changedMemories.size());
+                for (Memory memory : changedMemories) {
+                    embeddings.add(getEmbeddings(memory.getContent(), embeddingsByText));
+                }
+                vectorStoreService.batchStoreMemoryVectors(changedMemories, embeddings);
+            } catch (Exception e) {
+                log.error("Failed to store {} memory vectors, but memories were saved to database", changedMemories.size(), e);
+            }
+        }
+        
+        return executed;
+    }
+    
+    /**
+     * 解析记忆ID，非法时返回null
+     */
+    private Long parseMemoryId(String id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid memory id: {}", id);
+            return null;
+        }
+    }
+    
+    /**
+     * 根据ADD操作构建新记忆
+     */
+    private Memory newMemory(MemoryOperationResult operation, Map<String, Object> metadata) throws JsonProcessingException {
+        Memory newMemory = new Memory();
+        newMemory.setContent(operation.getMemory());
+        newMemory.setMetadata(objectMapper.writeValueAsString(metadata));
+        newMemory.setMemoryId(UUID.randomUUID().toString()); // 生成唯一ID
+        newMemory.setMemoryType("fact");
+        newMemory.setVersion(1);
+        
+        // 从metadata中提取必填字段
+        if (metadata != null) {
+            if (metadata.get("app_id") != null) {
+                newMemory.setAppId(Long.valueOf(metadata.get("app_id").toString()));
+            }
+            if (metadata.get("agent_id") != null) {
+                newMemory.setAgentId(Long.valueOf(metadata.get("agent_id").toString()));
+            }
+            if (metadata.get("user_id") != null) {
+                newMemory.setUserId(Long.valueOf(metadata.get("user_id").toString()));
+            }
+            // Memory实体没有runId字段，runId信息会存储在metadata中
+        }
+        
+        newMemory.setDefaults(); // 设置默认值
+        return newMemory;
+    }
+    
+    /**
+     * 执行单条记忆操作
+     * 
+     * @return 操作是否生效并需要返回给调用方
+     */
+    private boolean executeMemoryOperation(
+            MemoryOperationResult operation,
+            Map<String, Object> metadata,
+            Map<String, DenseVector> embeddingsByText) throws Exception {
+        
+        boolean executed = false;
+        switch (operation.getEvent()) {
+            case "ADD":
+                // 创建新记忆
+                Memory newMemory = newMemory(operation, metadata);
+                Memory savedMemory = memoryService.createMemory(newMemory);
+                operation.setId(savedMemory.getId().toString());
+                
+                // 同时将向量存储到Elasticsearch，启用发件箱时由中继写入
+                if (!memoryService.isOutboxEnabled()) {
+                    try {
+                        DenseVector embeddings = getEmbeddings(newMemory.getContent(), embeddingsByText);
+                        vectorStoreService.storeMemoryVector(savedMemory, embeddings);
+                        log.info("Successfully stored memory vector for memory ID: {}", savedMemory.getId());
+                    } catch (Exception e) {
+                        log.error("Failed to store memory vector for memory ID: {}, but memory was saved to database", savedMemory.getId(), e);
+                    }
+                }
+                
+                executed = true;
+                break;
+            
+            case "UPDATE":
+                // 更新现有记忆
+                if (operation.getId() != null) {
+                    Memory existingMemory = memoryService.getMemoryById(Long.valueOf(operation.getId()));
+                    if (existingMemory != null) {
+                        String oldContent = existingMemory.getContent();
+                        existingMemory.setContent(operation.getMemory());
+                        memoryService.updateMemory(existingMemory);
                         
-                        // 从metadata中提取必填字段
-                        if (metadata != null) {
-                            if (metadata.get("app_id") != null) {
-                                newMemory.setAppId(Long.valueOf(metadata.get("app_id").toString()));
-                            }
-                            if (metadata.get("agent_id") != null) {
-                                newMemory.setAgentId(Long.valueOf(metadata.get("agent_id").toString()));
-                            }
-                            if (metadata.get("user_id") != null) {
-                                newMemory.setUserId(Long.valueOf(metadata.get("user_id").toString()));
+                        // 同时更新向量存储，启用发件箱时由中继写入
+                        if (!memoryService.isOutboxEnabled()) {
+                            try {
+                                DenseVector embeddings = getEmbeddings(operation.getMemory(), embeddingsByText);
+                                vectorStoreService.storeMemoryVector(existingMemory, embeddings);
+                                log.info("Successfully updated memory vector for memory ID: {}", existingMemory.getId());
+                            } catch (Exception e) {
+                                log.error("Failed to update memory vector for memory ID: {}, but memory was updated in database", existingMemory.getId(), e);
                             }
-                            // Memory实体没有runId字段，runId信息会存储在metadata中
                         }
                         
-                        newMemory.setDefaults(); // 设置默认值
-                        
-                        Memory savedMemory = memoryService.createMemory(newMemory);
-                        operation.setId(savedMemory.getId().toString());
-                        
-                        // 同时将向量存储到Elasticsearch
+                        executed = true;
+                    }
+                }
+                break;
+            
+            case "DELETE":
+                // 删除记忆
+                if (operation.getId() != null) {
+                    // 先删除向量存储，启用发件箱时由中继删除
+                    if (!memoryService.isOutboxEnabled()) {
                         try {
-                            List<Float> embeddings = vectorStoreService.getEmbeddings(newMemory.getContent());
-                            vectorStoreService.storeMemoryVector(savedMemory, embeddings);
-                            log.info("Successfully stored memory vector for memory ID: {}", savedMemory.getId());
+                            vectorStoreService.deleteMemoryVector(operation.getId(), metadata);
+                            log.info("Successfully deleted memory vector for memory ID: {}", operation.getId());
                         } catch (Exception e) {
-                            log.error("Failed to store memory vector for memory ID: {}, but memory was saved to database", savedMemory.getId(), e);
+                            log.error("Failed to delete memory vector for memory ID: {}, but will continue with database deletion", operation.getId(), e);
                         }
-                        
-                        results.add(operation);
-                        break;
-                        
-                    case "UPDATE":
-                        // 更新现有记忆
-                        if (operation.getId() != null) {
-                            Memory existingMemory = memoryService.getMemoryById(Long.valueOf(operation.getId()));
-                            if (existingMemory != null) {
-                                String oldContent = existingMemory.getContent();
-                                existingMemory.setContent(operation.getMemory());
-                                memoryService.updateMemory(existingMemory);
-                                
-                                // 同时更新向量存储
-                                try {
-                                    List<Float> embeddings = vectorStoreService.getEmbeddings(operation.getMemory());
-                                    Map<String, Object> metadataMap = objectMapper.readValue(existingMemory.getMetadata(), Map.class);
-                                    vectorStoreService.updateMemoryVector(existingMemory.getId().toString(), operation.getMemory(), embeddings, metadataMap);
-                                    log.info("Successfully updated memory vector for memory ID: {}", existingMemory.getId());
-                                } catch (Exception e) {
-                                    log.error("Failed to update memory vector for memory ID: {}, but memory was updated in database", existingMemory.getId(), e);
-                                }
-                                
-                                results.add(operation);
-                            }
-                        }
-                        break;
-                        
-                    case "DELETE":
-                        // 删除记忆
-                        if (operation.getId() != null) {
-                            // 先删除向量存储
-                            try {
-                                vectorStoreService.deleteMemoryVector(operation.getId());
-                                log.info("Successfully deleted memory vector for memory ID: {}", operation.getId());
-                            } catch (Exception e) {
-                                log.error("Failed to delete memory vector for memory ID: {}, but will continue with database deletion", operation.getId(), e);
-                            }
-                            
-                            // 再删除数据库记录
-                            memoryService.deleteMemory(Long.valueOf(operation.getId()));
-                            results.add(operation);
-                        }
-                        break;
-                        
-                    case "NONE":
-                        // 无操作，但仍然返回结果表示没有变化
-                        results.add(operation);
-                        break;
-                        
-                    default:
-                        log.warn("Unknown event type: {}", operation.getEvent());
+                    }
+                    
+                    // 再删除数据库记录
+                    memoryService.deleteMemory(Long.valueOf(operation.getId()));
+                    executed = true;
                 }
-                
-            } catch (Exception e) {
-                log.error("Error executing memory operation: {}", operation, e);
-            }
+                break;
+            
+            case "NONE":
+                // 无操作，但仍然返回结果表示没有变化
+                executed = true;
+                break;
+            
+            default:
+                log.warn("Unknown event type: {}", operation.getEvent());
         }
         
-        return results;
+        return executed;
     }
     
     /**
-     * 验证消息格式
+     * 并发执行一个阶段的任务，阶段超时后取消未完成的任务
+     * 
+     * @return 与任务顺序一致的结果，失败、超时或被取消的任务对应null
      */
-    private boolean isValidMessage(Map<String, String> message) {
-        return message != null && 
-               message.get("role") != null && 
-               message.get("content") != null;
+    private <T> List<T> invokeAll(String stage, List<Callable<T>> tasks, long timeoutMs) {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (tasks.isEmpty()) {
+            return results;
+        }
+        
+        List<Future<T>> futures;
+        try {
+            futures = executorService.invokeAll(tasks, timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Stage {} interrupted", stage);
+            tasks.forEach(task -> results.add(null));
+            return results;
+        }
+        
+        int cancelled = 0;
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (CancellationException e) {
+                cancelled++;
+                results.add(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(null);
+            } catch (ExecutionException e) {
+                log.error("Task failed in stage {}", stage, e.getCause());
+                results.add(null);
+            }
+        }
+        if (cancelled > 0) {
+            log.warn("Stage {} timed out after {}ms, {} of {} tasks cancelled", stage, timeoutMs, cancelled, tasks.size());
+        }
+        return results;
     }
     
     /**
-     * 移除代码块标记
+     * 批量获取记忆操作所需的向量嵌入
+     * 
+     * @return 文本到向量的映射，批量请求失败时返回空映射，由调用方逐条回退
      */
-    private String removeCodeBlocks(String content) {
-        if (content == null) {
-            return "";
+    private Map<String, DenseVector> prefetchEmbeddings(List<MemoryOperationResult> operations) {
+        List<String> texts = operations.stream()
+                .filter(op -> "ADD".equals(op.getEvent()) || "UPDATE".equals(op.getEvent()))
+                .map(MemoryOperationResult::getMemory)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        
+        Map<String, DenseVector> embeddingsByText = new HashMap<>();
+        if (texts.isEmpty()) {
+            return embeddingsByText;
         }
         
-        // 移除 ```json 和 ``` 标记
-        return content.replaceAll("```json\\s*", "")
-                     .replaceAll("```\\s*", "")
-                     .trim();
+        try {
+            List<DenseVector> embeddings = vectorStoreService.getEmbeddingsBatch(texts);
+            for (int i = 0; i < texts.size(); i++) {
+                embeddingsByText.put(texts.get(i), embeddings.get(i));
+            }
+        } catch (Exception e) {
+            log.error("Error prefetching embeddings for {} memory operations, falling back to single requests", texts.size(), e);
+        }
+        return embeddingsByText;
+    }
+    
+    /**
+     * 获取向量嵌入，优先使用预取结果
+     */
+    private DenseVector getEmbeddings(String text, Map<String, DenseVector> embeddingsByText) {
+        DenseVector embeddings = embeddingsByText.get(text);
+        return embeddings != null ? embeddings : vectorStoreService.getEmbeddings(text);
+    }
+    
+    /**
+     * 验证消息格式
+     */
+    private boolean isValidMessage(Map<String, String> message) {
+        return message != null && 
+               message.get("role") != null && 
+               message.get("content") != null;
     }
     
     /**
@@ -0,0 +1,258 @@
+package com.mem0.core.service;
+
+import com.mem0.core.entity.Memory;
+import com.mem0.core.entity.MemoryOutboxEvent;
+import com.mem0.core.mapper.MemoryMapper;
+import com.mem0.core.mapper.MemoryOutboxMapper;
+import com.mem0.core.vector.VectorStoreService;
+import com.mem0.core.vectorstore.VectorStoreService.BulkResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 发件箱中继：把记忆表的变更异步同步到向量库
+ * 
+ * 中继不读取事件中的内容，而是按记忆ID重新读取记忆表的当前状态：记录存在则写入向量，
+ * 不存在则删除向量。同一记忆的多条事件合并为一次写入，重复投递与乱序都不影响最终结果。
+ * 
+ * 多实例运行时每批事件先通过租约领取，同一事件同一时刻只由一个实例处理。不同实例仍可能
+ * 同时处理同一记忆的不同事件，因此写入向量后会重新读取记忆：读取后记忆又被修改或删除时，
+ * 本批写入的可能是旧状态，事件不标记完成而是释放重试，保证最后一次写入的是最新状态。
+ * 
+ * @author changyu496
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemoryOutboxRelay {
+    
+    private final MemoryOutboxMapper memoryOutboxMapper;
+    private final MemoryMapper memoryMapper;
+    private final VectorStoreService vectorStoreService;
+    private final MemoryService memoryService;
+    
+    /**
+     * 轮询间隔，上一批处理满额时立即处理下一批
+     */
+    @Value("${mem0.outbox.poll-interval-ms:500}")
+    private long pollIntervalMs;
+    
+    /**
+     * 每批处理的事件数
+     */
+    @Value("${mem0.outbox.batch-size:200}")
+    private int batchSize;
+    
+    /**
+     * 单个事件的最大尝试次数，超过后标记为已放弃
+     */
+    @Value("${mem0.outbox.max-attempts:10}")
+    private int maxAttempts;
+    
+    /**
+     * 失败重试的最大退避时间
+     */
+    @Value("${mem0.outbox.max-backoff-seconds:300}")
+    private int maxBackoffSeconds;
+    
+    /**
+     * 领取事件的租约时长，超过该时间未完成的事件可被其他实例重新领取
+     */
+    @Value("${mem0.outbox.lease-seconds:60}")
+    private int leaseSeconds;
+    
+    private final AtomicLong synced = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    
+    private ScheduledExecutorService relayExecutor;
+    
+    @PostConstruct
+    public void init() {
+        if (!memoryService.isOutboxEnabled()) {
+            return;
+        }
+        checkOutboxTable();
+        relayExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "memory-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        relayExecutor.scheduleWithFixedDelay(this::drain, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        if (relayExecutor != null) {
+            relayExecutor.shutdown();
+        }
+    }
+    
+    /**
+     * 启用发件箱时写记忆依赖 memory_outbox 表，表不存在则启动失败，避免每次写入都失败
+     */
+    private void checkOutboxTable() {
+        try {
+            memoryOutboxMapper.countByStatus(0);
+        } catch (BadSqlGrammarException e) {
+            throw new IllegalStateException("memory_outbox 表不存在：请执行 scripts/migrate-vector-sync.sql，"
+                    + "或设置 mem0.outbox.enabled=false 关闭发件箱", e);
+        }
+    }
+    
+    /**
+     * 连续处理待同步事件，直到某一批未满或出错
+     */
+    public void drain() {
+        try {
+            // 积压时不等待下一次轮询
+            int relayed;
+            do {
+                relayed = relayOnce();
+            } while (relayed >= batchSize && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            log.error("Memory outbox relay failed", e);
+        }
+    }
+    
+    /**
+     * 处理一批待同步事件
+     * 
+     * @return 本批领取的事件数
+     */
+    public int relayOnce() {
+        String owner = UUID.randomUUID().toString();
+        if (memoryOutboxMapper.claim(owner, batchSize, leaseSeconds) == 0) {
+            return 0;
+        }
+        List<MemoryOutboxEvent> events = memoryOutboxMapper.selectClaimed(owner);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        
+        // 同一记忆的事件合并处理
+        Map<Long, List<Long>> eventIdsByMemoryId = new LinkedHashMap<>();
+        for (MemoryOutboxEvent event : events) {
+            eventIdsByMemoryId.computeIfAbsent(event.getMemoryId(), id -> new ArrayList<>()).add(event.getId());
+        }
+        
+        Map<Long, Memory> memories = new HashMap<>();
+        for (Memory memory : memoryMapper.selectByIds(new ArrayList<>(eventIdsByMemoryId.keySet()))) {
+            memories.put(memory.getId(), memory);
+        }
+        
+        Map<Long, String> failures = new HashMap<>();
+        
+        // 记录仍存在：以当前内容覆盖向量
+        List<Memory> upserts = new ArrayList<>(memories.values());
+        if (!upserts.isEmpty()) {
+            BulkResult result = vectorStoreService.batchStoreMemoryVectors(upserts);
+            result.getFailures().forEach((id, reason) -> failures.put(Long.valueOf(id), reason));
+        }
+        
+        // 记录已删除：批量删除向量，向量不存在时视为成功
+        List<Long> deletes = new ArrayList<>();
+        for (Long memoryId : eventIdsByMemoryId.keySet()) {
+            if (!memories.containsKey(memoryId)) {
+                deletes.add(memoryId);
+            }
+        }
+        if (!deletes.isEmpty()) {
+            try {
+                vectorStoreService.deleteMemoryVectors(deletes);
+            } catch (Exception e) {
+                deletes.forEach(memoryId -> failures.put(memoryId, e.getMessage()));
+            }
+        }
+        
+        // 写入期间记忆又被修改或删除，本批写入的可能是旧状态，释放事件重新处理
+        List<Long> written = new ArrayList<>();
+        for (Long memoryId : eventIdsByMemoryId.keySet()) {
+            if (!failures.containsKey(memoryId)) {
+                written.add(memoryId);
+            }
+        }
+        Map<Long, Memory> current = new HashMap<>();
+        if (!written.isEmpty()) {
+            for (Memory memory : memoryMapper.selectByIds(written)) {
+                current.put(memory.getId(), memory);
+            }
+        }
+        
+        List<Long> doneIds = new ArrayList<>();
+        List<Long> retryIds = new ArrayList<>();
+        Map<String, List<Long>> failedIdsByReason = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<Long>> entry : eventIdsByMemoryId.entrySet()) {
+            Long memoryId = entry.getKey();
+            if (failures.containsKey(memoryId)) {
+                failedIdsByReason.computeIfAbsent(String.valueOf(failures.get(memoryId)), reason -> new ArrayList<>())
+                        .addAll(entry.getValue());
+            } else if (isChanged(memories.get(memoryId), current.get(memoryId))) {
+                retryIds.addAll(entry.getValue());
+            } else {
+                doneIds.addAll(entry.getValue());
+            }
+        }
+        if (!doneIds.isEmpty()) {
+            memoryOutboxMapper.deleteByIds(doneIds);
+            synced.addAndGet(doneIds.size());
+        }
+        if (!retryIds.isEmpty()) {
+            memoryOutboxMapper.release(retryIds);
+            retried.addAndGet(retryIds.size());
+        }
+        for (Map.Entry<String, List<Long>> entry : failedIdsByReason.entrySet()) {
+            memoryOutboxMapper.markFailed(entry.getValue(), entry.getKey(), maxAttempts, maxBackoffSeconds);
+            failed.addAndGet(entry.getValue().size());
+        }
+        if (!failures.isEmpty()) {
+            log.warn("Failed to sync {} of {} memories to vector store, will retry: {}",
+                    failures.size(), eventIdsByMemoryId.size(), failedIdsByReason.keySet());
+        }
+        return events.size();
+    }
+    
+    /**
+     * 写入后记忆是否已不同于写入时读取的状态
+     */
+    private boolean isChanged(Memory before, Memory after) {
+        if (before == null || after == null) {
+            return before != after;
+        }
+        return !Objects.equals(before.getVersion(), after.getVersion())
+                || !Objects.equals(before.getContent(), after.getContent());
+    }
+    
+    /**
+     * 获取中继统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", memoryService.isOutboxEnabled());
+        stats.put("synced", synced.get());
+        stats.put("failed", failed.get());
+        stats.put("retried", retried.get());
+        if (memoryService.isOutboxEnabled()) {
+            stats.put("pending", memoryOutboxMapper.countByStatus(0));
+            stats.put("abandoned", memoryOutboxMapper.countByStatus(1));
+        }
+        return stats;
+    }
+}
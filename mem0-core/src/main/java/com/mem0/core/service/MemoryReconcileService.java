@@ -0,0 +1,284 @@
+package com.mem0.core.service;
+
+import com.mem0.core.entity.Memory;
+import com.mem0.core.entity.MemoryOutboxEvent;
+import com.mem0.core.entity.ReconcileCheckpoint;
+import com.mem0.core.mapper.MemoryMapper;
+import com.mem0.core.mapper.MemoryOutboxMapper;
+import com.mem0.core.mapper.ReconcileCheckpointMapper;
+import com.mem0.core.memory.OutboxOperation;
+import com.mem0.core.vector.VectorStoreService;
+import com.mem0.core.vectorstore.VectorStoreService.BulkResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 记忆表与向量库的对账服务
+ * 
+ * 分两个阶段，均按记忆ID键集分页并在每页后写入检查点，中断后从检查点继续：
+ * 1. rows：遍历记忆表，补写缺失的向量，重写内容或版本号不一致的向量；
+ * 2. vectors：遍历向量库，删除记忆表中已不存在的孤立向量。
+ * 启用发件箱时修复通过写入发件箱事件完成，由中继读取最新状态写入，避免覆盖并发的新版本。
+ * 
+ * @author changyu496
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemoryReconcileService {
+    
+    private static final String JOB_NAME = "memory-vector";
+    private static final String PHASE_ROWS = "rows";
+    private static final String PHASE_VECTORS = "vectors";
+    private static final String PHASE_DONE = "done";
+    
+    private final MemoryMapper memoryMapper;
+    private final MemoryOutboxMapper memoryOutboxMapper;
+    private final ReconcileCheckpointMapper reconcileCheckpointMapper;
+    private final VectorStoreService vectorStoreService;
+    private final MemoryService memoryService;
+    
+    /**
+     * 每页核对的记录数
+     */
+    @Value("${mem0.reconcile.page-size:500}")
+    private int pageSize;
+    
+    /**
+     * 每秒最多核对的记录数，用于限制对数据库、向量库和嵌入模型的压力；0表示不限
+     */
+    @Value("${mem0.reconcile.max-rows-per-second:500}")
+    private int maxRowsPerSecond;
+    
+    /**
+     * 定时对账间隔（分钟），0表示只手动触发
+     */
+    @Value("${mem0.reconcile.interval-minutes:0}")
+    private long intervalMinutes;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean stopRequested = new AtomicBoolean();
+    
+    private ScheduledExecutorService reconcileExecutor;
+    
+    @PostConstruct
+    public void init() {
+        reconcileExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "memory-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (intervalMinutes > 0) {
+            reconcileExecutor.scheduleWithFixedDelay(() -> start(false), intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        stopRequested.set(true);
+        reconcileExecutor.shutdownNow();
+    }
+    
+    /**
+     * 在后台启动对账
+     * 
+     * @param restart 是否忽略检查点从头开始
+     * @return 已有对账在运行时返回false
+     */
+    public boolean start(boolean restart) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        stopRequested.set(false);
+        reconcileExecutor.execute(() -> {
+            try {
+                run(restart);
+            } catch (Exception e) {
+                log.error("Memory reconcile failed, will resume from checkpoint next time", e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+    
+    /**
+     * 请求停止对账，当前页处理完后停止，进度保留在检查点中
+     */
+    public void stop() {
+        stopRequested.set(true);
+    }
+    
+    /**
+     * 获取对账进度
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        ReconcileCheckpoint checkpoint = reconcileCheckpointMapper.selectByJobName(JOB_NAME);
+        if (checkpoint != null) {
+            status.put("phase", checkpoint.getPhase());
+            status.put("lastId", checkpoint.getLastId());
+            status.put("scanned", checkpoint.getScanned());
+            status.put("missing", checkpoint.getMissing());
+            status.put("stale", checkpoint.getStale());
+            status.put("orphaned", checkpoint.getOrphaned());
+            status.put("failed", checkpoint.getFailed());
+            status.put("startedAt", checkpoint.getStartedAt());
+            status.put("updatedAt", checkpoint.getUpdatedAt());
+        }
+        return status;
+    }
+    
+    private void run(boolean restart) throws InterruptedException {
+        ReconcileCheckpoint checkpoint = reconcileCheckpointMapper.selectByJobName(JOB_NAME);
+        if (checkpoint == null || restart || PHASE_DONE.equals(checkpoint.getPhase())) {
+            checkpoint = newCheckpoint();
+            reconcileCheckpointMapper.upsert(checkpoint);
+        }
+        log.info("Memory reconcile started - phase: {}, lastId: {}", checkpoint.getPhase(), checkpoint.getLastId());
+        
+        long startNanos = System.nanoTime();
+        long processed = 0;
+        while (PHASE_ROWS.equals(checkpoint.getPhase()) && !stopRequested.get()) {
+            List<Memory> memories = memoryMapper.selectAfterId(checkpoint.getLastId(), pageSize);
+            if (memories.isEmpty()) {
+                checkpoint.setPhase(PHASE_VECTORS);
+                checkpoint.setLastId(0L);
+            } else {
+                reconcileRows(memories, checkpoint);
+                checkpoint.setLastId(memories.get(memories.size() - 1).getId());
+                processed += memories.size();
+            }
+            reconcileCheckpointMapper.upsert(checkpoint);
+            throttle(processed, startNanos);
+        }
+        
+        while (PHASE_VECTORS.equals(checkpoint.getPhase()) && !stopRequested.get()) {
+            List<Long> memoryIds = vectorStoreService.scanMemoryVectorIds(checkpoint.getLastId(), pageSize);
+            if (memoryIds.isEmpty()) {
+                checkpoint.setPhase(PHASE_DONE);
+            } else {
+                reconcileVectors(memoryIds, checkpoint);
+                checkpoint.setLastId(memoryIds.get(memoryIds.size() - 1));
+                processed += memoryIds.size();
+            }
+            reconcileCheckpointMapper.upsert(checkpoint);
+            throttle(processed, startNanos);
+        }
+        
+        log.info("Memory reconcile {} - scanned: {}, missing: {}, stale: {}, orphaned: {}, failed: {}",
+                PHASE_DONE.equals(checkpoint.getPhase()) ? "finished" : "stopped",
+                checkpoint.getScanned(), checkpoint.getMissing(), checkpoint.getStale(),
+                checkpoint.getOrphaned(), checkpoint.getFailed());
+    }
+    
+    /**
+     * 核对一页记忆，补写缺失向量、重写过期向量
+     */
+    private void reconcileRows(List<Memory> memories, ReconcileCheckpoint checkpoint) {
+        Map<Long, Map<String, Object>> vectorMetadata = vectorStoreService.getMemoryVectorMetadata(memories);
+        
+        List<Memory> repairs = new ArrayList<>();
+        for (Memory memory : memories) {
+            Map<String, Object> metadata = vectorMetadata.get(memory.getId());
+            if (metadata == null) {
+                checkpoint.setMissing(checkpoint.getMissing() + 1);
+                repairs.add(memory);
+            } else if (!VectorStoreService.isUpToDate(memory, metadata)) {
+                // 内容或版本号不一致；没有版本号的旧向量也重写一次，补上对账所需的字段
+                checkpoint.setStale(checkpoint.getStale() + 1);
+                repairs.add(memory);
+            }
+        }
+        checkpoint.setScanned(checkpoint.getScanned() + memories.size());
+        if (repairs.isEmpty()) {
+            return;
+        }
+        
+        if (memoryService.isOutboxEnabled()) {
+            memoryOutboxMapper.insertBatch(toEvents(repairs.stream().map(Memory::getId).collect(Collectors.toList()),
+                    OutboxOperation.UPSERT));
+            return;
+        }
+        BulkResult result = vectorStoreService.batchStoreMemoryVectors(repairs);
+        checkpoint.setFailed(checkpoint.getFailed() + result.getFailures().size());
+    }
+    
+    /**
+     * 核对一页向量，删除记忆表中不存在的孤立向量
+     */
+    private void reconcileVectors(List<Long> memoryIds, ReconcileCheckpoint checkpoint) {
+        Set<Long> existing = new HashSet<>();
+        for (Memory memory : memoryMapper.selectByIds(memoryIds)) {
+            existing.add(memory.getId());
+        }
+        List<Long> orphans = memoryIds.stream().filter(id -> !existing.contains(id)).collect(Collectors.toList());
+        checkpoint.setScanned(checkpoint.getScanned() + memoryIds.size());
+        checkpoint.setOrphaned(checkpoint.getOrphaned() + orphans.size());
+        if (orphans.isEmpty()) {
+            return;
+        }
+        
+        if (memoryService.isOutboxEnabled()) {
+            memoryOutboxMapper.insertBatch(toEvents(orphans, OutboxOperation.DELETE));
+            return;
+        }
+        try {
+            vectorStoreService.deleteMemoryVectors(orphans);
+        } catch (Exception e) {
+            checkpoint.setFailed(checkpoint.getFailed() + orphans.size());
+        }
+    }
+    
+    private List<MemoryOutboxEvent> toEvents(List<Long> memoryIds, OutboxOperation operation) {
+        return memoryIds.stream()
+                .map(id -> MemoryOutboxEvent.of(id, operation.getCode()))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 按 max-rows-per-second 限速
+     */
+    private void throttle(long processed, long startNanos) throws InterruptedException {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long expectedMs = processed * 1000 / maxRowsPerSecond;
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (expectedMs > elapsedMs) {
+            Thread.sleep(expectedMs - elapsedMs);
+        }
+    }
+    
+    private ReconcileCheckpoint newCheckpoint() {
+        ReconcileCheckpoint checkpoint = new ReconcileCheckpoint();
+        checkpoint.setJobName(JOB_NAME);
+        checkpoint.setPhase(PHASE_ROWS);
+        checkpoint.setLastId(0L);
+        checkpoint.setScanned(0L);
+        checkpoint.setMissing(0L);
+        checkpoint.setStale(0L);
+        checkpoint.setOrphaned(0L);
+        checkpoint.setFailed(0L);
+        checkpoint.setStartedAt(LocalDateTime.now());
+        return checkpoint;
+    }
+}
@@ -2,12 +2,17 @@ package com.mem0.core.service;
 
 import com.mem0.core.dto.PageResult;
 import com.mem0.core.entity.Memory;
+import com.mem0.core.entity.MemoryOutboxEvent;
 import com.mem0.core.mapper.MemoryMapper;
+import com.mem0.core.mapper.MemoryOutboxMapper;
+import com.mem0.core.memory.OutboxOperation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +28,18 @@ import java.util.Map;
 public class MemoryService {
     
     private final MemoryMapper memoryMapper;
+    private final MemoryOutboxMapper memoryOutboxMapper;
+    
+    /**
+     * 是否通过发件箱同步向量：记忆变更与发件箱事件在同一事务中写入，由后台中继写入向量库。
+     * 默认关闭，开启前需建好 memory_outbox 表
+     */
+    @Value("${mem0.outbox.enabled:false}")
+    private boolean outboxEnabled;
+    
+    public boolean isOutboxEnabled() {
+        return outboxEnabled;
+    }
     
     /**
      * 创建记忆
@@ -30,6 +47,7 @@ public class MemoryService {
     @Transactional
     public Memory createMemory(Memory memory) {
         memoryMapper.insert(memory);
+        enqueueVectorSync(List.of(memory.getId()), OutboxOperation.UPSERT);
         return memory;
     }
     
@@ -40,12 +58,54 @@ public class MemoryService {
         return memoryMapper.selectById(id);
     }
     
+    /**
+     * 根据ID批量获取记忆
+     */
+    public List<Memory> getMemoriesByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return memoryMapper.selectByIds(ids);
+    }
+    
+    /**
+     * 在同一事务中批量写入一次推理产生的全部变更
+     * 
+     * 每类变更各一条多行语句，插入生成的ID回填到记忆对象；启用发件箱时向量同步事件随同一事务提交。
+     * 
+     * @param inserts 新增的记忆
+     * @param updates 修改后的记忆
+     * @param deleteIds 删除的记忆ID
+     */
+    @Transactional
+    public void applyBatch(List<Memory> inserts, List<Memory> updates, List<Long> deleteIds) {
+        List<MemoryOutboxEvent> events = new ArrayList<>();
+        if (inserts != null && !inserts.isEmpty()) {
+            memoryMapper.insertBatch(inserts);
+            inserts.forEach(memory -> events.add(MemoryOutboxEvent.of(memory.getId(), OutboxOperation.UPSERT.getCode())));
+        }
+        if (updates != null && !updates.isEmpty()) {
+            updates.forEach(this::increaseVersion);
+            memoryMapper.updateBatch(updates);
+            updates.forEach(memory -> events.add(MemoryOutboxEvent.of(memory.getId(), OutboxOperation.UPSERT.getCode())));
+        }
+        if (deleteIds != null && !deleteIds.isEmpty()) {
+            memoryMapper.deleteByIds(deleteIds);
+            deleteIds.forEach(id -> events.add(MemoryOutboxEvent.of(id, OutboxOperation.DELETE.getCode())));
+        }
+        if (outboxEnabled && !events.isEmpty()) {
+            memoryOutboxMapper.insertBatch(events);
+        }
+    }
+    
     /**
      * 更新记忆
      */
     @Transactional
     public void updateMemory(Memory memory) {
+        increaseVersion(memory);
         memoryMapper.update(memory);
+        enqueueVectorSync(List.of(memory.getId()), OutboxOperation.UPSERT);
     }
     
     /**
@@ -54,6 +114,28 @@ public class MemoryService {
     @Transactional
     public void deleteMemory(Long id) {
         memoryMapper.deleteById(id);
+        enqueueVectorSync(List.of(id), OutboxOperation.DELETE);
+    }
+    
+    /**
+     * 每次修改递增版本号，向量元数据记录同一版本号，对账时据此判断向量是否过期
+     */
+    private void increaseVersion(Memory memory) {
+        memory.setVersion(memory.getVersion() == null ? 1 : memory.getVersion() + 1);
+    }
+    
+    /**
+     * 在当前事务中写入向量同步事件，未启用发件箱时不做任何事
+     */
+    private void enqueueVectorSync(List<Long> ids, OutboxOperation operation) {
+        if (!outboxEnabled) {
+            return;
+        }
+        List<MemoryOutboxEvent> events = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            events.add(MemoryOutboxEvent.of(id, operation.getCode()));
+        }
+        memoryOutboxMapper.insertBatch(events);
     }
     
     /**
@@ -0,0 +1,314 @@
+package com.mem0.core.service;
+
+import com.mem0.core.entity.Memory;
+import com.mem0.core.entity.VectorIndexVersion;
+import com.mem0.core.mapper.MemoryMapper;
+import com.mem0.core.mapper.VectorIndexVersionMapper;
+import com.mem0.core.vector.VectorIndexRegistry;
+import com.mem0.core.vector.VectorStoreService;
+import com.mem0.core.vectorstore.VectorStoreService.BulkResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 向量索引重建服务：在不中断搜索的情况下切换嵌入模型或向量维度
+ * 
+ * 流程：
+ * 1. 创建构建中的版本及其物理索引，所有实例刷新版本信息后开始双写；
+ * 2. 按记忆ID键集分页，用新模型重新生成向量并写入新索引（backfill）；
+ * 3. 再遍历一遍记忆表，重写与记忆不一致的向量，补齐回填期间的并发修改和双写失败（verify）；
+ * 4. 版本进入切换中状态，等待所有实例刷新后直接读写新版本的物理索引并改用新模型生成查询向量，
+ *    旧索引从此不再接收写入；
+ * 5. 原子切换读写别名，新版本变为使用中，旧版本停用但保留物理索引以便回退；
+ *    首次迁移时与别名同名的旧物理索引无法保留原名，先克隆为 {@code <别名>_legacy} 再删除。
+ * 回填进度记录在版本表中，中断后再次启动会从断点继续。
+ * 
+ * @author changyu496
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VectorReindexService {
+    
+    private static final DateTimeFormatter INDEX_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    
+    private final MemoryMapper memoryMapper;
+    private final VectorIndexVersionMapper vectorIndexVersionMapper;
+    private final VectorIndexRegistry vectorIndexRegistry;
+    private final VectorStoreService vectorStoreService;
+    
+    /**
+     * 每页重建的记忆数
+     */
+    @Value("${mem0.reindex.page-size:200}")
+    private int pageSize;
+    
+    /**
+     * 每秒最多重建的记忆数，用于限制嵌入模型调用速率；0表示不限
+     */
+    @Value("${mem0.reindex.max-rows-per-second:200}")
+    private int maxRowsPerSecond;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean stopRequested = new AtomicBoolean();
+    private final AtomicLong backfilled = new AtomicLong();
+    private final AtomicLong rewritten = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile String phase = "idle";
+    
+    private ExecutorService reindexExecutor;
+    
+    @PostConstruct
+    public void init() {
+        reindexExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "vector-reindex");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        stopRequested.set(true);
+        reindexExecutor.shutdownNow();
+    }
+    
+    /**
+     * 启动或继续迁移到指定嵌入模型
+     * 
+     * @param embeddingModel 目标嵌入模型
+     * @param dimension 目标向量维度，为null时使用模型默认维度
+     * @return 已有迁移在运行时返回false
+     * @throws IllegalStateException 已有构建中的版本且模型不同，或 vector_index_version 表不存在
+     */
+    public boolean start(String embeddingModel, Integer dimension) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            vectorIndexRegistry.refresh();
+            vectorIndexRegistry.requireAvailable();
+            VectorIndexVersion version = vectorIndexRegistry.getSwitching();
+            if (version == null) {
+                version = vectorIndexRegistry.getBuilding();
+            }
+            if (version == null) {
+                version = createVersion(embeddingModel, dimension);
+            } else if (!version.getEmbeddingModel().equals(embeddingModel)) {
+                throw new IllegalStateException("已有构建或切换中的索引 " + version.getIndexName()
+                        + "（模型: " + version.getEmbeddingModel() + "），请先完成或放弃");
+            }
+            
+            VectorIndexVersion target = version;
+            stopRequested.set(false);
+            backfilled.set(0);
+            rewritten.set(0);
+            failed.set(0);
+            reindexExecutor.execute(() -> {
+                try {
+                    run(target);
+                } catch (Exception e) {
+                    log.error("Vector reindex to {} failed, will resume from last id next time", target.getIndexName(), e);
+                } finally {
+                    phase = "idle";
+                    running.set(false);
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+    
+    /**
+     * 请求停止迁移，当前页处理完后停止，构建中的版本保留，可再次启动继续
+     */
+    public void stop() {
+        stopRequested.set(true);
+    }
+    
+    /**
+     * 放弃构建中的版本并删除其物理索引
+     * 
+     * @return 没有构建中的版本或迁移正在运行时返回false
+     */
+    public boolean abort() {
+        if (running.get()) {
+            return false;
+        }
+        vectorIndexRegistry.refresh();
+        VectorIndexVersion version = vectorIndexRegistry.getBuilding();
+        if (version == null) {
+            return false;
+        }
+        vectorIndexVersionMapper.updateStatus(version.getId(), VectorIndexVersion.STATUS_RETIRED);
+        vectorIndexRegistry.refresh();
+        vectorStoreService.deleteIndex(version);
+        log.info("Vector reindex aborted, index {} deleted", version.getIndexName());
+        return true;
+    }
+    
+    /**
+     * 获取迁移状态
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("phase", phase);
+        status.put("backfilled", backfilled.get());
+        status.put("rewritten", rewritten.get());
+        status.put("failed", failed.get());
+        status.put("activeEmbeddingModel", vectorStoreService.getActiveEmbeddingModel());
+        status.put("active", vectorIndexRegistry.getActive());
+        status.put("building", vectorIndexRegistry.getBuilding());
+        status.put("switching", vectorIndexRegistry.getSwitching());
+        return status;
+    }
+    
+    private VectorIndexVersion createVersion(String embeddingModel, Integer dimension) {
+        VectorIndexVersion version = new VectorIndexVersion();
+        version.setIndexName("v" + LocalDateTime.now().format(INDEX_SUFFIX));
+        version.setEmbeddingModel(embeddingModel);
+        version.setDimension(dimension);
+        version.setStatus(VectorIndexVersion.STATUS_BUILDING);
+        version.setLastId(0L);
+        
+        version.setDimension(vectorStoreService.createIndex(version));
+        vectorIndexVersionMapper.insert(version);
+        vectorIndexRegistry.refresh();
+        log.info("Vector index {} created - model: {}, dimension: {}",
+                version.getIndexName(), embeddingModel, version.getDimension());
+        return version;
+    }
+    
+    private void run(VectorIndexVersion version) throws InterruptedException {
+        if (version.getStatus() == VectorIndexVersion.STATUS_SWITCHING) {
+            // 上次在切换阶段中断，新索引已校验完成，直接重新切换
+            switchAlias(version);
+            return;
+        }
+        
+        // 等待所有实例刷新版本信息并开始双写，之后的修改都会写入新索引
+        phase = "waiting";
+        TimeUnit.SECONDS.sleep(vectorIndexRegistry.getRefreshSeconds());
+        
+        phase = "backfill";
+        long startNanos = System.nanoTime();
+        long processed = 0;
+        long lastId = version.getLastId() != null ? version.getLastId() : 0L;
+        while (!stopRequested.get()) {
+            List<Memory> memories = memoryMapper.selectAfterId(lastId, pageSize);
+            if (memories.isEmpty()) {
+                break;
+            }
+            BulkResult result = vectorStoreService.storeMemoryVectors(memories, version);
+            backfilled.addAndGet(memories.size() - result.getFailures().size());
+            failed.addAndGet(result.getFailures().size());
+            lastId = memories.get(memories.size() - 1).getId();
+            vectorIndexVersionMapper.updateLastId(version.getId(), lastId);
+            processed += memories.size();
+            throttle(processed, startNanos);
+        }
+        if (stopRequested.get()) {
+            log.info("Vector reindex to {} stopped at memory id {}", version.getIndexName(), lastId);
+            return;
+        }
+        
+        phase = "verify";
+        long remaining = verify(version, startNanos, processed);
+        if (stopRequested.get()) {
+            log.info("Vector reindex to {} stopped during verify", version.getIndexName());
+            return;
+        }
+        if (remaining > 0) {
+            log.error("Vector reindex to {} left {} memories out of date, alias not switched; start again to retry",
+                    version.getIndexName(), remaining);
+            return;
+        }
+        
+        // 先让所有实例直接读写新索引，别名切换时就没有实例还在用旧模型查询
+        phase = "switching";
+        vectorIndexVersionMapper.updateStatus(version.getId(), VectorIndexVersion.STATUS_SWITCHING);
+        vectorIndexRegistry.refresh();
+        TimeUnit.SECONDS.sleep(vectorIndexRegistry.getRefreshSeconds());
+        switchAlias(version);
+    }
+    
+    private void switchAlias(VectorIndexVersion version) {
+        phase = "switch";
+        VectorIndexVersion previous = vectorIndexRegistry.getActive();
+        vectorStoreService.switchToIndex(version);
+        if (previous != null) {
+            vectorIndexVersionMapper.updateStatus(previous.getId(), VectorIndexVersion.STATUS_RETIRED);
+        }
+        vectorIndexVersionMapper.updateStatus(version.getId(), VectorIndexVersion.STATUS_ACTIVE);
+        vectorIndexRegistry.refresh();
+        log.info("Vector index switched to {} - model: {}, backfilled: {}, rewritten: {}",
+                version.getIndexName(), version.getEmbeddingModel(), backfilled.get(), rewritten.get());
+    }
+    
+    /**
+     * 核对新索引中的全部向量，重写缺失或不一致的向量
+     * 
+     * @return 重写失败的记忆数
+     */
+    private long verify(VectorIndexVersion version, long startNanos, long processed) throws InterruptedException {
+        long remaining = 0;
+        long lastId = 0;
+        while (!stopRequested.get()) {
+            List<Memory> memories = memoryMapper.selectAfterId(lastId, pageSize);
+            if (memories.isEmpty()) {
+                break;
+            }
+            Map<Long, Map<String, Object>> vectorMetadata = vectorStoreService.getMemoryVectorMetadata(
+                    memories, version.getIndexName());
+            List<Memory> outdated = new ArrayList<>();
+            for (Memory memory : memories) {
+                Map<String, Object> metadata = vectorMetadata.get(memory.getId());
+                if (metadata == null || !VectorStoreService.isUpToDate(memory, metadata)) {
+                    outdated.add(memory);
+                }
+            }
+            if (!outdated.isEmpty()) {
+                BulkResult result = vectorStoreService.storeMemoryVectors(outdated, version);
+                rewritten.addAndGet(outdated.size() - result.getFailures().size());
+                remaining += result.getFailures().size();
+            }
+            lastId = memories.get(memories.size() - 1).getId();
+            processed += memories.size();
+            throttle(processed, startNanos);
+        }
+        return remaining;
+    }
+    
+    /**
+     * 按 max-rows-per-second 限速
+     */
+    private void throttle(long processed, long startNanos) throws InterruptedException {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long expectedMs = processed * 1000 / maxRowsPerSecond;
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (expectedMs > elapsedMs) {
+            Thread.sleep(expectedMs - elapsedMs);
+        }
+    }
+}
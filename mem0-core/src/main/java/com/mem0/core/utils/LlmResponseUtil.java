@@ -0,0 +1,26 @@
+package com.mem0.core.utils;
+
+/**
+ * 大模型响应处理工具类
+ * 
+ * @author changyu496
+ */
+public class LlmResponseUtil {
+    
+    /**
+     * 移除响应中的Markdown代码块标记
+     * 
+     * @param content 模型原始响应
+     * @return 去掉 ```json 和 ``` 标记后的内容
+     */
+    public static String removeCodeBlocks(String content) {
+        if (content == null) {
+            return "";
+        }
+        
+        // 移除 ```json 和 ``` 标记
+        return content.replaceAll("```json\\s*", "")
+                     .replaceAll("```\\s*", "")
+                     .trim();
+    }
+}
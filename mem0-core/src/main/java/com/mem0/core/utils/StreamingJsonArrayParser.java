@@ -0,0 +1,150 @@
+package com.mem0.core.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * 流式JSON数组解析器
+ * 
+ * 逐段喂入模型的流式输出，根对象中指定字段的数组每完成一个元素就立即回调，无需等待完整响应。
+ * 根对象之前的内容（如 ```json 标记）和根对象结束之后的内容会被忽略。非线程安全。
+ * 
+ * @author changyu496
+ */
+public class StreamingJsonArrayParser {
+    
+    private final String fieldName;
+    private final ObjectMapper objectMapper;
+    private final Consumer<JsonNode> onElement;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    
+    private boolean started;
+    private boolean complete;
+    private int depth;
+    private boolean expectArray;
+    private boolean inArray;
+    private TokenBuffer element;
+    private int elements;
+    
+    /**
+     * @param fieldName 根对象中数组字段名
+     * @param objectMapper 用于构建元素节点
+     * @param onElement 每个数组元素解析完成时的回调
+     */
+    public StreamingJsonArrayParser(String fieldName, ObjectMapper objectMapper, Consumer<JsonNode> onElement) {
+        this.fieldName = fieldName;
+        this.objectMapper = objectMapper;
+        this.onElement = onElement;
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+    
+    /**
+     * 喂入一段输出
+     * 
+     * @throws UncheckedIOException 内容不是合法JSON时抛出
+     */
+    public void feed(String chunk) {
+        if (complete || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            int start = chunk.indexOf('{');
+            if (start < 0) {
+                return;
+            }
+            chunk = chunk.substring(start);
+            started = true;
+        }
+        try {
+            byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+            feeder.feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while (!complete && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("流式JSON解析失败", e);
+        }
+    }
+    
+    /**
+     * 根对象是否已完整解析
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+    
+    /**
+     * 已回调的元素数
+     */
+    public int getElements() {
+        return elements;
+    }
+    
+    private void handle(JsonToken token) throws IOException {
+        if (element != null) {
+            element.copyCurrentEvent(parser);
+        }
+        
+        if (token.isStructStart()) {
+            depth++;
+            if (expectArray && token == JsonToken.START_ARRAY && depth == 2) {
+                inArray = true;
+                expectArray = false;
+            } else if (inArray && depth == 3 && element == null) {
+                element = new TokenBuffer(objectMapper, false);
+                element.copyCurrentEvent(parser);
+            }
+            return;
+        }
+        
+        if (token.isStructEnd()) {
+            depth--;
+            if (element != null && depth == 2) {
+                emit();
+            } else if (inArray && depth == 1) {
+                inArray = false;
+            } else if (depth == 0) {
+                complete = true;
+                feeder.endOfInput();
+            }
+            return;
+        }
+        
+        if (depth == 1 && token == JsonToken.FIELD_NAME) {
+            expectArray = fieldName.equals(parser.currentName());
+        } else if (inArray && depth == 2 && element == null) {
+            // 数组元素为标量
+            element = new TokenBuffer(objectMapper, false);
+            element.copyCurrentEvent(parser);
+            emit();
+        } else if (depth == 1) {
+            expectArray = false;
+        }
+    }
+    
+    private void emit() throws IOException {
+        JsonNode node;
+        try (JsonParser elementParser = element.asParser()) {
+            node = objectMapper.readTree(elementParser);
+        }
+        element = null;
+        elements++;
+        onElement.accept(node);
+    }
+}
@@ -0,0 +1,127 @@
+package com.mem0.core.vector;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.mem0.core.vector.math.VectorMath;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 稠密向量
+ * 
+ * 直接包装float[]并预先计算L2范数，替代List<Float>在嵌入、存储和检索链路中传递，
+ * 避免每个分量装箱。点积、范数和距离由 {@link VectorMath} 选择的内核计算。包装时不复制数组，构造后调用方不得再修改原数组。
+ * JSON序列化为普通数字数组。
+ * 
+ * @author changyu496
+ */
+public final class DenseVector {
+    
+    private final float[] values;
+    private final float norm;
+    
+    private DenseVector(float[] values) {
+        this.values = values;
+        this.norm = (float) Math.sqrt(VectorMath.kernels().dot(values, values));
+    }
+    
+    /**
+     * 包装float数组（不复制）
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static DenseVector of(float[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException("向量不能为空");
+        }
+        return new DenseVector(values);
+    }
+    
+    /**
+     * 从数字列表构建，用于兼容外部传入的JSON数组
+     */
+    public static DenseVector fromList(List<? extends Number> values) {
+        float[] array = new float[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i).floatValue();
+        }
+        return new DenseVector(array);
+    }
+    
+    /**
+     * 底层数组，只读
+     */
+    @JsonValue
+    public float[] values() {
+        return values;
+    }
+    
+    public int dimension() {
+        return values.length;
+    }
+    
+    public float get(int index) {
+        return values[index];
+    }
+    
+    /**
+     * L2范数
+     */
+    public float norm() {
+        return norm;
+    }
+    
+    /**
+     * 点积
+     */
+    public double dot(DenseVector other) {
+        checkDimension(other);
+        return VectorMath.kernels().dot(values, other.values);
+    }
+    
+    /**
+     * 余弦相似度，任一向量为零向量时返回0
+     */
+    public double cosineSimilarity(DenseVector other) {
+        double dot = dot(other);
+        if (norm == 0f || other.norm == 0f) {
+            return 0.0;
+        }
+        return dot / ((double) norm * other.norm);
+    }
+    
+    /**
+     * 欧几里得距离
+     */
+    public double euclideanDistance(DenseVector other) {
+        checkDimension(other);
+        return Math.sqrt(VectorMath.kernels().squaredDistance(values, other.values));
+    }
+    
+    private void checkDimension(DenseVector other) {
+        if (values.length != other.values.length) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + values.length + "，实际: " + other.values.length);
+        }
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DenseVector)) {
+            return false;
+        }
+        return Arrays.equals(values, ((DenseVector) o).values);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+    
+    @Override
+    public String toString() {
+        return "DenseVector{dimension=" + values.length + ", norm=" + norm + "}";
+    }
+}
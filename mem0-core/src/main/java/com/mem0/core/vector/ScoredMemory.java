@@ -0,0 +1,25 @@
+package com.mem0.core.vector;
+
+import com.mem0.core.entity.Memory;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 带相似度的检索结果
+ * 
+ * @author changyu496
+ */
+@Data
+@AllArgsConstructor
+public class ScoredMemory {
+    
+    /**
+     * 记忆，只填充ID、内容和元数据
+     */
+    private Memory memory;
+    
+    /**
+     * 与查询向量的余弦相似度，范围 [-1, 1]
+     */
+    private double score;
+}
@@ -0,0 +1,145 @@
+package com.mem0.core.vector;
+
+import com.mem0.core.entity.VectorIndexVersion;
+import com.mem0.core.mapper.VectorIndexVersionMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 向量索引版本注册表
+ * 
+ * 缓存使用中、构建中与切换中的索引版本并定时刷新，使所有实例在迁移期间对构建中的索引双写。
+ * 切换别名前版本先进入切换中状态，各实例刷新后直接按物理索引名读写新版本并使用其嵌入模型，
+ * 因此别名切换时不会有实例用旧模型的向量查询新索引。没有版本记录时沿用配置的嵌入模型和默认索引；
+ * 版本表不存在时同样按没有版本处理，只有索引重建要求该表存在。
+ * 
+ * @author changyu496
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VectorIndexRegistry {
+    
+    private final VectorIndexVersionMapper vectorIndexVersionMapper;
+    
+    /**
+     * 版本信息刷新间隔，也是迁移开始后等待其他实例开始双写的时间
+     */
+    @Value("${mem0.vector-index.refresh-seconds:10}")
+    private long refreshSeconds;
+    
+    private volatile VectorIndexVersion active;
+    private volatile VectorIndexVersion building;
+    private volatile VectorIndexVersion switching;
+    /**
+     * vector_index_version 表是否存在，刷新时重新检测，建表后无需重启
+     */
+    private volatile boolean available;
+    
+    private ScheduledExecutorService refreshExecutor;
+    
+    @PostConstruct
+    public void init() {
+        refresh();
+        if (!available) {
+            log.warn("vector_index_version 表不存在，使用配置的嵌入模型和默认索引；"
+                    + "需要重建索引时请执行 scripts/migrate-vector-sync.sql");
+        }
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "vector-index-registry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshExecutor.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+    
+    /**
+     * 从数据库重新加载版本信息，失败时保留上次的结果
+     */
+    public void refresh() {
+        try {
+            VectorIndexVersion currentActive = null;
+            VectorIndexVersion currentBuilding = null;
+            VectorIndexVersion currentSwitching = null;
+            for (VectorIndexVersion version : vectorIndexVersionMapper.selectCurrent()) {
+                if (version.getStatus() == VectorIndexVersion.STATUS_ACTIVE) {
+                    currentActive = version;
+                } else if (version.getStatus() == VectorIndexVersion.STATUS_BUILDING) {
+                    currentBuilding = version;
+                } else if (version.getStatus() == VectorIndexVersion.STATUS_SWITCHING) {
+                    currentSwitching = version;
+                }
+            }
+            active = currentActive;
+            building = currentBuilding;
+            switching = currentSwitching;
+            available = true;
+        } catch (BadSqlGrammarException e) {
+            // 表不存在等同于没有任何版本
+            available = false;
+            active = null;
+            building = null;
+            switching = null;
+        } catch (Exception e) {
+            log.warn("Failed to refresh vector index versions: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 使用中的版本，为null时使用配置的嵌入模型和默认索引
+     */
+    public VectorIndexVersion getActive() {
+        return active;
+    }
+    
+    /**
+     * 构建中的版本，不为null时所有向量写入同时写入该版本
+     */
+    public VectorIndexVersion getBuilding() {
+        return building;
+    }
+    
+    /**
+     * 切换中的版本，不为null时读写都直接使用该版本的物理索引和嵌入模型
+     */
+    public VectorIndexVersion getSwitching() {
+        return switching;
+    }
+    
+    /**
+     * 当前读写使用的版本：切换中的版本优先，其次是使用中的版本，为null时使用配置的嵌入模型和别名
+     */
+    public VectorIndexVersion getCurrent() {
+        VectorIndexVersion current = switching;
+        return current != null ? current : active;
+    }
+    
+    /**
+     * 要求版本表存在，索引重建在操作版本前调用
+     * 
+     * @throws IllegalStateException 版本表不存在
+     */
+    public void requireAvailable() {
+        if (!available) {
+            throw new IllegalStateException("vector_index_version 表不存在：请执行 scripts/migrate-vector-sync.sql 后再重建索引");
+        }
+    }
+    
+    public long getRefreshSeconds() {
+        return refreshSeconds;
+    }
+}
@@ -1,18 +1,22 @@
 package com.mem0.core.vector;
 
 import com.alibaba.cloud.ai.dashscope.embedding.DashScopeEmbeddingOptions;
+import com.mem0.core.embedding.EmbeddingCache;
 import com.mem0.core.entity.Memory;
+import com.mem0.core.entity.VectorIndexVersion;
 import com.mem0.core.utils.JsonUtil;
+import com.mem0.core.vectorstore.VectorStoreService.BulkResult;
 import com.mem0.core.vectorstore.VectorStoreService.VectorData;
 import com.mem0.core.vectorstore.VectorStoreService.SearchResult;
-import com.mem0.core.vectorstore.impl.ElasticsearchVectorStoreService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.embedding.EmbeddingRequest;
 import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -28,34 +32,170 @@ import java.util.stream.Collectors;
 public class VectorStoreService {
     
     private final EmbeddingModel embeddingModel;
-    private final ElasticsearchVectorStoreService elasticsearchVectorStore;
+    /**
+     * 底层向量库，由 mem0.vector-store.type 选择 Elasticsearch 或进程内HNSW实现
+     */
+    private final com.mem0.core.vectorstore.VectorStoreService vectorStore;
+    private final EmbeddingCache embeddingCache;
+    private final VectorIndexRegistry vectorIndexRegistry;
+    /**
+     * 读写别名，指向使用中的物理索引
+     */
     private static final String INDEX_NAME = "";
     
+    /**
+     * 向量元数据中记录记忆表主键与版本号的字段，用于与记忆表对账
+     */
+    public static final String MEMORY_PK_FIELD = "memory_pk";
+    public static final String VERSION_FIELD = "version";
+    
+    /**
+     * 向量元数据中的记忆内容字段
+     */
+    public static final String CONTENT_FIELD = "content";
+    
+    /**
+     * 单次嵌入请求允许的最大文本数（DashScope text-embedding-v1/v2 为25）
+     */
+    @Value("${mem0.embedding.batch-size:25}")
+    private int embeddingBatchSize;
+    
+    /**
+     * 尚无索引版本记录时使用的嵌入模型
+     */
+    @Value("${spring.ai.dashscope.embedding.options.model:text-embedding-v1}")
+    private String embeddingModelName;
+    
+    /**
+     * 记忆检索是否融合关键词匹配与向量相似度；推理阶段依赖余弦相似度阈值，始终只用向量搜索
+     */
+    @Value("${mem0.search.hybrid.enabled:false}")
+    private boolean hybridSearchEnabled;
+    
+    /**
+     * 当前用于写入和查询的嵌入模型
+     */
+    public String getActiveEmbeddingModel() {
+        return modelOf(vectorIndexRegistry.getCurrent());
+    }
+    
     /**
      * 获取文本的嵌入向量
      * 
      * @param text 文本内容
-     * @return 嵌入向量列表
+     * @return 嵌入向量
      */
-    public List<Float> getEmbeddings(String text) {
+    public DenseVector getEmbeddings(String text) {
+        return getEmbeddings(text, vectorIndexRegistry.getCurrent());
+    }
+    
+    /**
+     * 使用指定索引版本的嵌入模型获取文本的嵌入向量
+     * 
+     * @param version 索引版本，为null时使用配置的嵌入模型
+     */
+    private DenseVector getEmbeddings(String text, VectorIndexVersion version) {
+        String model = modelOf(version);
+        Integer dimension = version != null ? version.getDimension() : null;
         try {
-            // 使用spring-ai-qwen-example的方式调用EmbeddingModel
+            return DenseVector.of(embeddingCache.get(cacheModelKey(model, dimension), text,
+                    t -> requestEmbeddings(List.of(t), model, dimension).get(0)));
+        } catch (Exception e) {
+            log.error("Error getting embeddings for text: {}", text, e);
+            throw new RuntimeException("Failed to get embeddings", e);
+        }
+    }
+    
+    /**
+     * 批量获取文本的嵌入向量
+     * 
+     * 先查嵌入缓存，未命中的文本（去重后）按服务端单次上限分块，每块对应一次多输入的EmbeddingRequest。
+     * 
+     * @param texts 文本列表
+     * @return 与输入顺序一一对应的嵌入向量列表
+     */
+    public List<DenseVector> getEmbeddingsBatch(List<String> texts) {
+        return getEmbeddingsBatch(texts, vectorIndexRegistry.getCurrent());
+    }
+    
+    /**
+     * 使用指定索引版本的嵌入模型批量获取文本的嵌入向量
+     * 
+     * @param version 索引版本，为null时使用配置的嵌入模型
+     */
+    private List<DenseVector> getEmbeddingsBatch(List<String> texts, VectorIndexVersion version) {
+        if (texts == null || texts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        String model = modelOf(version);
+        Integer dimension = version != null ? version.getDimension() : null;
+        List<float[]> vectors;
+        try {
+            vectors = embeddingCache.getAll(cacheModelKey(model, dimension), texts,
+                    chunk -> requestEmbeddings(chunk, model, dimension));
+        } catch (Exception e) {
+            log.error("Error getting batch embeddings for {} texts", texts.size(), e);
+            throw new RuntimeException("Failed to get batch embeddings", e);
+        }
+        
+        List<DenseVector> result = new ArrayList<>(vectors.size());
+        for (float[] vector : vectors) {
+            result.add(DenseVector.of(vector));
+        }
+        return result;
+    }
+    
+    /**
+     * 调用嵌入模型，按服务端单次上限分块
+     * 
+     * @param texts 文本列表
+     * @param model 嵌入模型
+     * @param dimension 向量维度，为null时使用模型默认维度
+     * @return 与输入顺序一一对应的嵌入向量
+     */
+    private List<float[]> requestEmbeddings(List<String> texts, String model, Integer dimension) {
+        float[][] vectors = new float[texts.size()][];
+        int batchSize = Math.max(1, embeddingBatchSize);
+        for (int start = 0; start < texts.size(); start += batchSize) {
+            List<String> chunk = texts.subList(start, Math.min(start + batchSize, texts.size()));
             EmbeddingResponse response = embeddingModel.call(new EmbeddingRequest(
-                List.of(text),
-                DashScopeEmbeddingOptions.builder().withModel("text-embedding-v1").build()
+                chunk,
+                DashScopeEmbeddingOptions.builder().withModel(model).withDimensions(dimension).build()
             ));
-            float[] embeddings = response.getResult().getOutput();
             
-            // 转换为List<Float>
-            List<Float> result = new java.util.ArrayList<>();
-            for (float f : embeddings) {
-                result.add(f);
+            List<org.springframework.ai.embedding.Embedding> embeddings = response.getResults();
+            if (embeddings.size() != chunk.size()) {
+                throw new IllegalStateException("嵌入结果数量不匹配，期望: " + chunk.size() + "，实际: " + embeddings.size());
+            }
+            for (int i = 0; i < embeddings.size(); i++) {
+                org.springframework.ai.embedding.Embedding embedding = embeddings.get(i);
+                // 优先按返回的index对齐，避免服务端乱序
+                Integer index = embedding.getIndex();
+                int offset = index != null && index >= 0 && index < chunk.size() ? index : i;
+                vectors[start + offset] = embedding.getOutput();
             }
-            return result;
-        } catch (Exception e) {
-            log.error("Error getting embeddings for text: {}", text, e);
-            throw new RuntimeException("Failed to get embeddings", e);
         }
+        return java.util.Arrays.asList(vectors);
+    }
+    
+    /**
+     * 当前读写的索引：切换中直接使用新版本的物理索引，否则使用读写别名
+     */
+    private String currentIndexName() {
+        VectorIndexVersion switching = vectorIndexRegistry.getSwitching();
+        return switching != null ? switching.getIndexName() : INDEX_NAME;
+    }
+    
+    private String modelOf(VectorIndexVersion version) {
+        return version != null ? version.getEmbeddingModel() : embeddingModelName;
+    }
+    
+    /**
+     * 嵌入缓存的模型键，同一模型的不同维度分开缓存
+     */
+    private static String cacheModelKey(String model, Integer dimension) {
+        return dimension != null ? model + "/" + dimension : model;
     }
     
     /**
@@ -67,46 +207,79 @@ public class VectorStoreService {
      * @param filters 过滤条件
      * @return 相似记忆列表
      */
-    public List<Memory> searchSimilar(String query, List<Float> queryEmbeddings, int limit, Map<String, Object> filters) {
-        try {
-            List<SearchResult> searchResults = elasticsearchVectorStore.search(INDEX_NAME, queryEmbeddings, limit, filters);
-            return searchResults.stream()
-                .map(result -> {
-                    Memory memory = new Memory();
-                    memory.setId(Long.valueOf(result.getId()));
-                    memory.setMetadata(JsonUtil.toJson(result.getMetadata()));
-                    
-                    // 从metadata中提取content字段
-                    Map<String, Object> metadata = result.getMetadata();
-                    if (metadata != null && metadata.containsKey("content")) {
-                        memory.setContent((String) metadata.get("content"));
-                    }
-                    
-                    return memory;
-                })
+    public List<Memory> searchSimilar(String query, DenseVector queryEmbeddings, int limit, Map<String, Object> filters) {
+        return searchSimilarWithScores(query, queryEmbeddings, limit, filters).stream()
+                .map(ScoredMemory::getMemory)
                 .collect(Collectors.toList());
+    }
+    
+    /**
+     * 搜索相似记忆并返回相似度
+     * 
+     * @param query 查询文本
+     * @param queryEmbeddings 查询向量
+     * @param limit 返回数量限制
+     * @param filters 过滤条件
+     * @return 按相似度降序排列的记忆列表
+     */
+    public List<ScoredMemory> searchSimilarWithScores(String query, DenseVector queryEmbeddings, int limit, Map<String, Object> filters) {
+        return searchSimilarWithScores(query, queryEmbeddings, limit, filters, null);
+    }
+    
+    /**
+     * 搜索相似记忆并返回相似度，只取回指定的元数据字段
+     * 
+     * @param query 查询文本
+     * @param queryEmbeddings 查询向量
+     * @param limit 返回数量限制
+     * @param filters 过滤条件
+     * @param fields 返回的元数据字段，null表示全部，空列表表示只返回记忆ID和相似度
+     * @return 按相似度降序排列的记忆列表
+     */
+    public List<ScoredMemory> searchSimilarWithScores(String query, DenseVector queryEmbeddings, int limit,
+                                                      Map<String, Object> filters, List<String> fields) {
+        try {
+            return toMemories(vectorStore.search(currentIndexName(), queryEmbeddings, limit, filters, fields));
         } catch (Exception e) {
             log.error("Error searching similar memories for query: {}", query, e);
             throw new RuntimeException("Failed to search similar memories", e);
         }
     }
     
+    private List<ScoredMemory> toMemories(List<SearchResult> searchResults) {
+        return searchResults.stream()
+            .map(result -> {
+                Memory memory = new Memory();
+                memory.setId(Long.valueOf(result.getId()));
+                
+                // 从metadata中提取content字段
+                Map<String, Object> metadata = result.getMetadata();
+                if (metadata != null && !metadata.isEmpty()) {
+                    memory.setMetadata(JsonUtil.toJson(metadata));
+                }
+                if (metadata != null && metadata.containsKey(CONTENT_FIELD)) {
+                    memory.setContent((String) metadata.get(CONTENT_FIELD));
+                }
+                
+                return new ScoredMemory(memory, result.getScore());
+            })
+            .collect(Collectors.toList());
+    }
+    
     /**
      * 存储记忆向量
      * 
      * @param memory 记忆对象
      * @param embeddings 嵌入向量
      */
-    public void storeMemoryVector(Memory memory, List<Float> embeddings) {
+    public void storeMemoryVector(Memory memory, DenseVector embeddings) {
         try {
-            Map<String, Object> metadataMap = JsonUtil.fromJsonToMap(memory.getMetadata());
-            // 确保content也被存储到ES中
-            metadataMap.put("content", memory.getContent());
-            elasticsearchVectorStore.storeVector(INDEX_NAME, memory.getId().toString(), embeddings, metadataMap);
+            vectorStore.storeVector(currentIndexName(), memory.getId().toString(), embeddings, toVectorMetadata(memory));
         } catch (Exception e) {
             log.error("Error storing memory vector for memory: {}", memory.getId(), e);
             throw new RuntimeException("Failed to store memory vector", e);
         }
+        mirrorToBuildingIndex(List.of(new VectorData(memory.getId().toString(), embeddings, toVectorMetadata(memory))));
     }
     
     /**
@@ -117,16 +290,17 @@ public class VectorStoreService {
      * @param embeddings 向量嵌入
      * @param metadata 元数据
      */
-    public void updateMemoryVector(String memoryId, String content, List<Float> embeddings, Map<String, Object> metadata) {
+    public void updateMemoryVector(String memoryId, String content, DenseVector embeddings, Map<String, Object> metadata) {
         try {
             // 先删除旧向量，再存储新向量
-            elasticsearchVectorStore.deleteVector(INDEX_NAME, memoryId);
+            vectorStore.deleteVector(currentIndexName(), memoryId);
             Map<String, Object> metadataMap = new java.util.HashMap<>();
-            metadataMap.put("content", content);
+            metadataMap.put(CONTENT_FIELD, content);
             if (metadata != null) {
                 metadataMap.putAll(metadata);
             }
-            elasticsearchVectorStore.storeVector(INDEX_NAME, memoryId, embeddings, metadataMap);
+            vectorStore.storeVector(currentIndexName(), memoryId, embeddings, metadataMap);
+            mirrorToBuildingIndex(List.of(new VectorData(memoryId, embeddings, metadataMap)));
         } catch (Exception e) {
             log.error("Error updating memory vector for memory: {}", memoryId, e);
             throw new RuntimeException("Failed to update memory vector", e);
@@ -139,12 +313,56 @@ public class VectorStoreService {
      * @param memoryId 记忆ID
      */
     public void deleteMemoryVector(String memoryId) {
+        deleteMemoryVector(memoryId, null);
+    }
+    
+    /**
+     * 删除记忆向量，按租户路由时用租户字段直接定位向量所在的分片和索引
+     * 
+     * @param memoryId 记忆ID
+     * @param tenantFields 记忆所属的app_id、user_id等租户字段，为null时在所有索引中按ID删除
+     */
+    public void deleteMemoryVector(String memoryId, Map<String, Object> tenantFields) {
         try {
-            elasticsearchVectorStore.deleteVector(INDEX_NAME, memoryId);
+            vectorStore.deleteVector(currentIndexName(), memoryId, tenantFields);
         } catch (Exception e) {
             log.error("Error deleting memory vector for memory: {}", memoryId, e);
             throw new RuntimeException("Failed to delete memory vector", e);
         }
+        VectorIndexVersion building = vectorIndexRegistry.getBuilding();
+        if (building != null) {
+            try {
+                vectorStore.deleteVector(building.getIndexName(), memoryId, tenantFields);
+            } catch (Exception e) {
+                log.error("Error deleting memory vector {} from building index {}", memoryId, building.getIndexName(), e);
+            }
+        }
+    }
+    
+    /**
+     * 批量删除已不在记忆表中的记忆向量
+     * 
+     * @param memoryIds 记忆ID列表
+     */
+    public void deleteMemoryVectors(List<Long> memoryIds) {
+        if (memoryIds.isEmpty()) {
+            return;
+        }
+        List<String> ids = memoryIds.stream().map(String::valueOf).collect(Collectors.toList());
+        try {
+            vectorStore.deleteVectors(currentIndexName(), ids);
+        } catch (Exception e) {
+            log.error("Error deleting {} memory vectors", ids.size(), e);
+            throw new RuntimeException("Failed to delete memory vectors", e);
+        }
+        VectorIndexVersion building = vectorIndexRegistry.getBuilding();
+        if (building != null) {
+            try {
+                vectorStore.deleteVectors(building.getIndexName(), ids);
+            } catch (Exception e) {
+                log.error("Error deleting {} memory vectors from building index {}", ids.size(), building.getIndexName(), e);
+            }
+        }
     }
     
     /**
@@ -157,7 +375,12 @@ public class VectorStoreService {
      */
     public List<Memory> searchMemories(String query, int limit, Map<String, Object> filters) {
         try {
-            List<Float> embeddings = getEmbeddings(query);
+            DenseVector embeddings = getEmbeddings(query);
+            if (hybridSearchEnabled) {
+                return toMemories(vectorStore.hybridSearch(currentIndexName(), query, embeddings, limit, filters, null)).stream()
+                        .map(ScoredMemory::getMemory)
+                        .collect(Collectors.toList());
+            }
             return searchSimilar(query, embeddings, limit, filters);
         } catch (Exception e) {
             log.error("Error searching memories for query: {}", query, e);
@@ -168,17 +391,203 @@ public class VectorStoreService {
     /**
      * 批量存储记忆向量
      * 
+     * 嵌入通过批量请求获取，向量通过bulk写入，单条失败不影响其余记忆。
+     * 
      * @param memories 记忆列表
+     * @return 批量写入结果
      */
-    public void batchStoreMemoryVectors(List<Memory> memories) {
-        for (Memory memory : memories) {
-            try {
-                List<Float> embeddings = getEmbeddings(memory.getContent());
-                storeMemoryVector(memory, embeddings);
-            } catch (Exception e) {
-                log.error("Error batch storing memory vector for memory: {}", memory.getId(), e);
+    public BulkResult batchStoreMemoryVectors(List<Memory> memories) {
+        BulkResult result = new BulkResult();
+        if (memories == null || memories.isEmpty()) {
+            return result;
+        }
+        
+        List<DenseVector> embeddingsList;
+        try {
+            embeddingsList = getEmbeddingsBatch(memories.stream().map(Memory::getContent).collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.error("Error batch embedding {} memories", memories.size(), e);
+            memories.forEach(memory -> result.addFailure(memory.getId().toString(), e.getMessage()));
+            return result;
+        }
+        return batchStoreMemoryVectors(memories, embeddingsList);
+    }
+    
+    /**
+     * 使用已获取的嵌入批量存储记忆向量，已存在的向量会被覆盖
+     * 
+     * @param memories 记忆列表
+     * @param embeddingsList 与记忆一一对应的嵌入向量
+     * @return 批量写入结果
+     */
+    public BulkResult batchStoreMemoryVectors(List<Memory> memories, List<DenseVector> embeddingsList) {
+        BulkResult result = new BulkResult();
+        if (memories == null || memories.isEmpty()) {
+            return result;
+        }
+        
+        List<VectorData> vectors = new ArrayList<>(memories.size());
+        for (int i = 0; i < memories.size(); i++) {
+            Memory memory = memories.get(i);
+            vectors.add(new VectorData(memory.getId().toString(), embeddingsList.get(i), toVectorMetadata(memory)));
+        }
+        
+        try {
+            BulkResult bulkResult = vectorStore.storeVectors(currentIndexName(), vectors);
+            if (bulkResult.hasFailures()) {
+                log.error("Failed to store {} of {} memory vectors: {}", 
+                        bulkResult.getFailures().size(), vectors.size(), bulkResult.getFailures());
+            }
+            mirrorToBuildingIndex(vectors);
+            return bulkResult;
+        } catch (Exception e) {
+            log.error("Error batch storing {} memory vectors", vectors.size(), e);
+            vectors.forEach(vector -> result.addFailure(vector.getId(), e.getMessage()));
+            return result;
+        }
+    }
+    
+    /**
+     * 迁移期间把写入使用中索引的向量同时写入构建中的索引，向量用构建中版本的模型重新生成
+     * 
+     * 双写失败只记录日志，迁移在切换别名前的校验阶段会补齐。
+     */
+    private void mirrorToBuildingIndex(List<VectorData> written) {
+        VectorIndexVersion building = vectorIndexRegistry.getBuilding();
+        if (building == null || written.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> contents = written.stream()
+                    .map(vector -> String.valueOf(vector.getMetadata().get("content")))
+                    .collect(Collectors.toList());
+            List<DenseVector> embeddingsList = getEmbeddingsBatch(contents, building);
+            List<VectorData> mirrored = new ArrayList<>(written.size());
+            for (int i = 0; i < written.size(); i++) {
+                mirrored.add(new VectorData(written.get(i).getId(), embeddingsList.get(i), written.get(i).getMetadata()));
+            }
+            BulkResult result = vectorStore.storeVectors(building.getIndexName(), mirrored);
+            if (result.hasFailures()) {
+                log.error("Failed to mirror {} memory vectors to building index {}", result.getFailures().size(), building.getIndexName());
+            }
+        } catch (Exception e) {
+            log.error("Error mirroring {} memory vectors to building index {}", written.size(), building.getIndexName(), e);
+        }
+    }
+    
+    /**
+     * 使用指定版本的嵌入模型把记忆写入该版本的物理索引，用于迁移回填
+     * 
+     * @param memories 记忆列表
+     * @param version 目标索引版本
+     * @return 批量写入结果
+     */
+    public BulkResult storeMemoryVectors(List<Memory> memories, VectorIndexVersion version) {
+        BulkResult result = new BulkResult();
+        if (memories.isEmpty()) {
+            return result;
+        }
+        try {
+            List<DenseVector> embeddingsList = getEmbeddingsBatch(
+                    memories.stream().map(Memory::getContent).collect(Collectors.toList()), version);
+            List<VectorData> vectors = new ArrayList<>(memories.size());
+            for (int i = 0; i < memories.size(); i++) {
+                Memory memory = memories.get(i);
+                vectors.add(new VectorData(memory.getId().toString(), embeddingsList.get(i), toVectorMetadata(memory)));
             }
+            return vectorStore.storeVectors(version.getIndexName(), vectors);
+        } catch (Exception e) {
+            log.error("Error storing {} memory vectors to index {}", memories.size(), version.getIndexName(), e);
+            memories.forEach(memory -> result.addFailure(memory.getId().toString(), e.getMessage()));
+            return result;
+        }
+    }
+    
+    /**
+     * 按版本的嵌入模型探测向量维度并创建物理索引
+     * 
+     * @return 向量维度
+     */
+    public int createIndex(VectorIndexVersion version) {
+        int dimension = getEmbeddings("test", version).dimension();
+        vectorStore.createIndex(version.getIndexName(), dimension);
+        return dimension;
+    }
+    
+    /**
+     * 将读写别名原子地切换到指定版本的物理索引
+     */
+    public void switchToIndex(VectorIndexVersion version) {
+        vectorStore.switchAlias(INDEX_NAME, version.getIndexName());
+    }
+    
+    /**
+     * 删除指定版本的物理索引
+     */
+    public void deleteIndex(VectorIndexVersion version) {
+        vectorStore.deleteIndex(version.getIndexName());
+    }
+    
+    /**
+     * 判断向量元数据是否与记忆的当前内容和版本号一致
+     */
+    public static boolean isUpToDate(Memory memory, Map<String, Object> metadata) {
+        Object version = metadata.get(VERSION_FIELD);
+        return java.util.Objects.equals(memory.getContent(), metadata.get("content"))
+                && version instanceof Number
+                && java.util.Objects.equals(((Number) version).intValue(), memory.getVersion())
+                && metadata.get(MEMORY_PK_FIELD) != null;
+    }
+    
+    /**
+     * 构建写入向量库的元数据
+     */
+    private Map<String, Object> toVectorMetadata(Memory memory) {
+        Map<String, Object> metadataMap = JsonUtil.fromJsonToMap(memory.getMetadata());
+        if (metadataMap == null) {
+            metadataMap = new java.util.HashMap<>();
         }
+        // 确保content也被存储到ES中
+        metadataMap.put(CONTENT_FIELD, memory.getContent());
+        metadataMap.put(MEMORY_PK_FIELD, memory.getId());
+        metadataMap.put(VERSION_FIELD, memory.getVersion());
+        return metadataMap;
+    }
+    
+    /**
+     * 批量获取记忆向量的元数据
+     * 
+     * @param memories 记忆列表
+     * @return 记忆ID到元数据的映射，没有向量的记忆不在结果中
+     */
+    public Map<Long, Map<String, Object>> getMemoryVectorMetadata(List<Memory> memories) {
+        return getMemoryVectorMetadata(memories, currentIndexName());
+    }
+    
+    /**
+     * 批量获取指定物理索引中记忆向量的元数据，按写入时的元数据定位向量所在的分片和索引
+     */
+    public Map<Long, Map<String, Object>> getMemoryVectorMetadata(List<Memory> memories, String indexName) {
+        Map<String, Map<String, Object>> fieldsById = new java.util.LinkedHashMap<>();
+        for (Memory memory : memories) {
+            fieldsById.put(memory.getId().toString(), toVectorMetadata(memory));
+        }
+        Map<Long, Map<String, Object>> result = new java.util.HashMap<>();
+        vectorStore.getMetadata(indexName, fieldsById).forEach((id, metadata) -> result.put(Long.valueOf(id), metadata));
+        return result;
+    }
+    
+    /**
+     * 按记忆ID升序分页列出向量库中的记忆ID
+     * 
+     * @param afterMemoryId 上一页最后一个记忆ID
+     * @param limit 返回数量
+     * @return 记忆ID列表
+     */
+    public List<Long> scanMemoryVectorIds(long afterMemoryId, int limit) {
+        return vectorStore.scanIds(currentIndexName(), MEMORY_PK_FIELD, afterMemoryId, limit).stream()
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
     }
     
     /**
@@ -189,8 +598,7 @@ public class VectorStoreService {
     public int getEmbeddingDimensions() {
         try {
             // 使用一个简单的测试文本获取向量维度
-            List<Float> testEmbeddings = getEmbeddings("test");
-            return testEmbeddings.size();
+            return getEmbeddings("test").dimension();
         } catch (Exception e) {
             log.error("Error getting embedding dimensions", e);
             return 1536; // 默认维度
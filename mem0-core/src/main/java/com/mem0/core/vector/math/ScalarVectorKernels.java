@@ -0,0 +1,54 @@
+package com.mem0.core.vector.math;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 标量向量计算内核，在Vector API不可用时使用
+ * 
+ * @author changyu496
+ */
+final class ScalarVectorKernels implements VectorKernels {
+    
+    @Override
+    public float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public float squaredDistance(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            float diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+    
+    @Override
+    public float dot(ByteBuffer buffer, int byteOffset, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < b.length; i++) {
+            sum += buffer.getFloat(byteOffset + i * Float.BYTES) * b[i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public float dot(ByteBuffer buffer1, int byteOffset1, ByteBuffer buffer2, int byteOffset2, int dimension) {
+        float sum = 0f;
+        for (int i = 0; i < dimension; i++) {
+            int offset = i * Float.BYTES;
+            sum += buffer1.getFloat(byteOffset1 + offset) * buffer2.getFloat(byteOffset2 + offset);
+        }
+        return sum;
+    }
+    
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,100 @@
+package com.mem0.core.vector.math;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 基于 jdk.incubator.vector 的SIMD向量计算内核
+ * 
+ * 只通过 {@link VectorMath} 反射加载，JVM未添加 --add-modules jdk.incubator.vector 时不会被链接。
+ * 主循环按首选向量宽度做FMA累加，尾部不足一个向量宽度的分量走标量。
+ * 
+ * @author changyu496
+ */
+final class SimdVectorKernels implements VectorKernels {
+    
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final ByteOrder ORDER = ByteOrder.nativeOrder();
+    
+    @Override
+    public float dot(float[] a, float[] b) {
+        int length = a.length;
+        int bound = SPECIES.loopBound(length);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, i);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public float squaredDistance(float[] a, float[] b) {
+        int length = a.length;
+        int bound = SPECIES.loopBound(length);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector diff = FloatVector.fromArray(SPECIES, a, i).sub(FloatVector.fromArray(SPECIES, b, i));
+            acc = diff.fma(diff, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+    
+    @Override
+    public float dot(ByteBuffer buffer, int byteOffset, float[] b) {
+        int length = b.length;
+        int bound = SPECIES.loopBound(length);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromByteBuffer(SPECIES, buffer, byteOffset + i * Float.BYTES, ORDER);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, i);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += buffer.getFloat(byteOffset + i * Float.BYTES) * b[i];
+        }
+        return sum;
+    }
+    
+    @Override
+    public float dot(ByteBuffer buffer1, int byteOffset1, ByteBuffer buffer2, int byteOffset2, int dimension) {
+        int bound = SPECIES.loopBound(dimension);
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            int offset = i * Float.BYTES;
+            FloatVector va = FloatVector.fromByteBuffer(SPECIES, buffer1, byteOffset1 + offset, ORDER);
+            FloatVector vb = FloatVector.fromByteBuffer(SPECIES, buffer2, byteOffset2 + offset, ORDER);
+            acc = va.fma(vb, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < dimension; i++) {
+            int offset = i * Float.BYTES;
+            sum += buffer1.getFloat(byteOffset1 + offset) * buffer2.getFloat(byteOffset2 + offset);
+        }
+        return sum;
+    }
+    
+    @Override
+    public String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+}
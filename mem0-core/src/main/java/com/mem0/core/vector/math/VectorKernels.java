@@ -0,0 +1,56 @@
+package com.mem0.core.vector.math;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 向量计算内核
+ * 
+ * 提供标量和SIMD两种实现，由 {@link VectorMath} 在启动时选择。
+ * 所有方法均不做维度校验，调用方保证长度一致；ByteBuffer须为本机字节序。
+ * 
+ * @author changyu496
+ */
+public interface VectorKernels {
+    
+    /**
+     * 点积
+     */
+    float dot(float[] a, float[] b);
+    
+    /**
+     * 欧几里得距离的平方
+     */
+    float squaredDistance(float[] a, float[] b);
+    
+    /**
+     * 堆外向量与堆内向量的点积
+     * 
+     * @param buffer 堆外缓冲区
+     * @param byteOffset 向量起始字节偏移
+     * @param b 堆内向量，长度即维度
+     */
+    float dot(ByteBuffer buffer, int byteOffset, float[] b);
+    
+    /**
+     * 两条堆外向量的点积
+     */
+    float dot(ByteBuffer buffer1, int byteOffset1, ByteBuffer buffer2, int byteOffset2, int dimension);
+    
+    /**
+     * 一对多点积，结果写入scores
+     * 
+     * @param query 查询向量
+     * @param candidates 候选向量
+     * @param scores 输出，长度不小于候选数
+     */
+    default void dotMany(float[] query, float[][] candidates, float[] scores) {
+        for (int i = 0; i < candidates.length; i++) {
+            scores[i] = dot(query, candidates[i]);
+        }
+    }
+    
+    /**
+     * 实现名称，用于日志
+     */
+    String name();
+}
@@ -0,0 +1,108 @@
+package com.mem0.core.vector.math;
+
+import com.mem0.core.vector.DenseVector;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * 向量计算入口
+ * 
+ * 类加载时选择计算内核：JVM以 --add-modules jdk.incubator.vector 启动且未设置
+ * -Dmem0.vector.simd=false 时使用SIMD实现，否则回退到标量实现。
+ * 供进程内检索、重排序和去重使用，避免为打分再请求一次向量库。
+ * 
+ * @author changyu496
+ */
+@Slf4j
+public final class VectorMath {
+    
+    private static final String SIMD_KERNELS = "com.mem0.core.vector.math.SimdVectorKernels";
+    
+    private static final VectorKernels KERNELS = loadKernels();
+    
+    private VectorMath() {
+    }
+    
+    /**
+     * 当前使用的计算内核
+     */
+    public static VectorKernels kernels() {
+        return KERNELS;
+    }
+    
+    /**
+     * 点积
+     */
+    public static float dot(float[] a, float[] b) {
+        checkDimension(a, b);
+        return KERNELS.dot(a, b);
+    }
+    
+    /**
+     * 余弦相似度，任一向量为零向量时返回0
+     */
+    public static float cosine(float[] a, float[] b) {
+        checkDimension(a, b);
+        float normA = KERNELS.dot(a, a);
+        float normB = KERNELS.dot(b, b);
+        if (normA == 0f || normB == 0f) {
+            return 0f;
+        }
+        return (float) (KERNELS.dot(a, b) / Math.sqrt((double) normA * normB));
+    }
+    
+    /**
+     * 欧几里得距离
+     */
+    public static float l2(float[] a, float[] b) {
+        checkDimension(a, b);
+        return (float) Math.sqrt(KERNELS.squaredDistance(a, b));
+    }
+    
+    /**
+     * 一对多余弦相似度，利用DenseVector预先计算的范数
+     * 
+     * @param query 查询向量
+     * @param candidates 候选向量
+     * @return 与候选顺序一一对应的相似度
+     */
+    public static float[] cosineMany(DenseVector query, List<DenseVector> candidates) {
+        float[][] values = new float[candidates.size()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = candidates.get(i).values();
+            checkDimension(query.values(), values[i]);
+        }
+        float[] scores = new float[values.length];
+        KERNELS.dotMany(query.values(), values, scores);
+        for (int i = 0; i < scores.length; i++) {
+            float denominator = query.norm() * candidates.get(i).norm();
+            scores[i] = denominator == 0f ? 0f : scores[i] / denominator;
+        }
+        return scores;
+    }
+    
+    private static void checkDimension(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + a.length + "，实际: " + b.length);
+        }
+    }
+    
+    private static VectorKernels loadKernels() {
+        if (Boolean.parseBoolean(System.getProperty("mem0.vector.simd", "true"))) {
+            try {
+                VectorKernels kernels = (VectorKernels) Class.forName(SIMD_KERNELS)
+                        .getDeclaredConstructor()
+                        .newInstance();
+                // 预先执行一次，确保运行时Vector API可链接
+                kernels.dot(new float[] {1f}, new float[] {1f});
+                log.info("向量计算使用SIMD内核: {}", kernels.name());
+                return kernels;
+            } catch (Throwable e) {
+                log.info("Vector API不可用，向量计算使用标量内核（启动参数添加 --add-modules jdk.incubator.vector 以启用SIMD）: {}",
+                        e.toString());
+            }
+        }
+        return new ScalarVectorKernels();
+    }
+}
@@ -1,5 +1,8 @@
 package com.mem0.core.vectorstore;
 
+import com.mem0.core.vector.DenseVector;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -18,15 +21,16 @@ public interface VectorStoreService {
      * @param vector 向量
      * @param metadata 元数据
      */
-    void storeVector(String indexName, String id, List<Float> vector, Map<String, Object> metadata);
+    void storeVector(String indexName, String id, DenseVector vector, Map<String, Object> metadata);
     
     /**
      * 批量存储向量
      * 
      * @param indexName 索引名称
      * @param vectors 向量数据列表
+     * @return 批量写入结果，包含逐条失败信息
      */
-    void storeVectors(String indexName, List<VectorData> vectors);
+    BulkResult storeVectors(String indexName, List<VectorData> vectors);
     
     /**
      * 向量相似度搜索
@@ -37,7 +41,40 @@ public interface VectorStoreService {
      * @param filters 过滤条件
      * @return 搜索结果
      */
-    List<SearchResult> search(String indexName, List<Float> queryVector, int limit, Map<String, Object> filters);
+    default List<SearchResult> search(String indexName, DenseVector queryVector, int limit, Map<String, Object> filters) {
+        return search(indexName, queryVector, limit, filters, null);
+    }
+    
+    /**
+     * 向量相似度搜索，只返回指定的元数据字段
+     * 
+     * @param indexName 索引名称
+     * @param queryVector 查询向量
+     * @param limit 返回结果数量限制
+     * @param filters 过滤条件
+     * @param fields 返回的元数据字段，null表示全部（不含向量），空列表表示只返回ID和分数
+     * @return 搜索结果
+     */
+    List<SearchResult> search(String indexName, DenseVector queryVector, int limit, Map<String, Object> filters,
+                              List<String> fields);
+    
+    /**
+     * 混合检索：关键词匹配与向量相似度融合排序，能召回包含姓名、日期等罕见词的记忆
+     * 
+     * 融合后的分数只用于排序，不是余弦相似度。不支持关键词检索的实现退化为向量搜索。
+     * 
+     * @param indexName 索引名称
+     * @param queryText 查询文本
+     * @param queryVector 查询向量
+     * @param limit 返回结果数量限制
+     * @param filters 过滤条件
+     * @param fields 返回的元数据字段，规则同 {@link #search(String, DenseVector, int, Map, List)}
+     * @return 按融合分数降序的搜索结果
+     */
+    default List<SearchResult> hybridSearch(String indexName, String queryText, DenseVector queryVector, int limit,
+                                            Map<String, Object> filters, List<String> fields) {
+        return search(indexName, queryVector, limit, filters, fields);
+    }
     
     /**
      * 删除向量
@@ -47,6 +84,62 @@ public interface VectorStoreService {
      */
     void deleteVector(String indexName, String id);
     
+    /**
+     * 按写入时的元数据定位并删除向量
+     * 
+     * 按租户路由或拆分专属索引时，元数据中的租户字段决定文档所在的分片和索引，可直接定位删除。
+     * 
+     * @param indexName 索引名称
+     * @param id 文档ID
+     * @param fields 写入时的元数据，为null时等同于 {@link #deleteVector(String, String)}
+     */
+    default void deleteVector(String indexName, String id, Map<String, Object> fields) {
+        deleteVector(indexName, id);
+    }
+    
+    /**
+     * 批量删除不知道租户的向量
+     * 
+     * @param indexName 索引名称
+     * @param ids 文档ID列表
+     */
+    default void deleteVectors(String indexName, List<String> ids) {
+        for (String id : ids) {
+            deleteVector(indexName, id);
+        }
+    }
+    
+    /**
+     * 批量获取文档元数据（不含向量）
+     * 
+     * @param indexName 索引名称
+     * @param ids 文档ID列表
+     * @return 文档ID到元数据的映射，不存在的文档不在结果中
+     */
+    Map<String, Map<String, Object>> getMetadata(String indexName, List<String> ids);
+    
+    /**
+     * 按写入时的元数据定位并批量获取文档元数据，规则同 {@link #deleteVector(String, String, Map)}
+     * 
+     * @param indexName 索引名称
+     * @param fieldsById 文档ID到写入时元数据的映射
+     * @return 文档ID到元数据的映射，不存在的文档不在结果中
+     */
+    default Map<String, Map<String, Object>> getMetadata(String indexName, Map<String, Map<String, Object>> fieldsById) {
+        return getMetadata(indexName, new ArrayList<>(fieldsById.keySet()));
+    }
+    
+    /**
+     * 按数值字段升序分页列出文档ID，缺少该字段的文档不会列出
+     * 
+     * @param indexName 索引名称
+     * @param sortField 取值唯一的数值字段
+     * @param after 上一页最后一条的字段值，只返回大于该值的文档
+     * @param limit 返回数量
+     * @return 文档ID列表
+     */
+    List<String> scanIds(String indexName, String sortField, long after, int limit);
+    
     /**
      * 创建索引
      * 
@@ -62,6 +155,14 @@ public interface VectorStoreService {
      */
     void deleteIndex(String indexName);
     
+    /**
+     * 将别名原子地切换到指定索引，别名原来指向的索引保留
+     * 
+     * @param aliasName 别名，读写均通过别名进行
+     * @param indexName 目标物理索引名称
+     */
+    void switchAlias(String aliasName, String indexName);
+    
     /**
      * 检查索引是否存在
      * 
@@ -75,10 +176,10 @@ public interface VectorStoreService {
      */
     class VectorData {
         private String id;
-        private List<Float> vector;
+        private DenseVector vector;
         private Map<String, Object> metadata;
         
-        public VectorData(String id, List<Float> vector, Map<String, Object> metadata) {
+        public VectorData(String id, DenseVector vector, Map<String, Object> metadata) {
             this.id = id;
             this.vector = vector;
             this.metadata = metadata;
@@ -87,14 +188,30 @@ public interface VectorStoreService {
         // Getters and setters
         public String getId() { return id; }
         public void setId(String id) { this.id = id; }
-        public List<Float> getVector() { return vector; }
-        public void setVector(List<Float> vector) { this.vector = vector; }
+        public DenseVector getVector() { return vector; }
+        public void setVector(DenseVector vector) { this.vector = vector; }
         public Map<String, Object> getMetadata() { return metadata; }
         public void setMetadata(Map<String, Object> metadata) { this.metadata = metadata; }
     }
     
     /**
-     * 搜索结果类
+     * 批量写入结果类
+     */
+    class BulkResult {
+        private int succeeded;
+        private final Map<String, String> failures = new java.util.LinkedHashMap<>();
+        
+        public synchronized void addSucceeded(int count) { this.succeeded += count; }
+        public synchronized void addFailure(String id, String reason) { this.failures.put(id, reason); }
+        
+        // Getters
+        public synchronized int getSucceeded() { return succeeded; }
+        public synchronized Map<String, String> getFailures() { return new java.util.LinkedHashMap<>(failures); }
+        public synchronized boolean hasFailures() { return !failures.isEmpty(); }
+    }
+    
+    /**
+     * 搜索结果类，score统一为余弦相似度，范围[-1, 1]
      */
     class SearchResult {
         private String id;
@@ -0,0 +1,80 @@
+package com.mem0.core.vectorstore.hnsw;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 二值量化的向量存储
+ * 
+ * 每维只保留符号位，查询向量同样二值化后按汉明距离估算余弦相似度：1 - 2 * 汉明距离 / 维度。
+ * 估算误差较大，只用于图遍历筛选候选，需配合较大的重排倍数。
+ * 
+ * @author changyu496
+ */
+public class BinaryVectorStorage implements QuantizedVectorStorage {
+    
+    private final int dimension;
+    private final int words;
+    private final int segmentCapacity;
+    private final List<long[]> segments = new ArrayList<>();
+    private int size;
+    
+    public BinaryVectorStorage(int dimension, int segmentCapacity) {
+        this.dimension = dimension;
+        this.words = (dimension + Long.SIZE - 1) / Long.SIZE;
+        this.segmentCapacity = Math.max(1, segmentCapacity);
+    }
+    
+    @Override
+    public int add(float[] normalized) {
+        int segmentIndex = size / segmentCapacity;
+        if (segmentIndex == segments.size()) {
+            segments.add(new long[segmentCapacity * words]);
+        }
+        long[] bits = toBits(normalized);
+        System.arraycopy(bits, 0, segments.get(segmentIndex), (size % segmentCapacity) * words, words);
+        return size++;
+    }
+    
+    @Override
+    public QueryScorer scorer(float[] normalized) {
+        long[] query = toBits(normalized);
+        return ordinal -> {
+            long[] segment = segments.get(ordinal / segmentCapacity);
+            int offset = (ordinal % segmentCapacity) * words;
+            int hamming = 0;
+            for (int i = 0; i < words; i++) {
+                hamming += Long.bitCount(segment[offset + i] ^ query[i]);
+            }
+            return 1f - 2f * hamming / dimension;
+        };
+    }
+    
+    @Override
+    public float similarity(int ordinal1, int ordinal2) {
+        long[] segment1 = segments.get(ordinal1 / segmentCapacity);
+        long[] segment2 = segments.get(ordinal2 / segmentCapacity);
+        int offset1 = (ordinal1 % segmentCapacity) * words;
+        int offset2 = (ordinal2 % segmentCapacity) * words;
+        int hamming = 0;
+        for (int i = 0; i < words; i++) {
+            hamming += Long.bitCount(segment1[offset1 + i] ^ segment2[offset2 + i]);
+        }
+        return 1f - 2f * hamming / dimension;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    private long[] toBits(float[] vector) {
+        long[] bits = new long[words];
+        for (int i = 0; i < dimension; i++) {
+            if (vector[i] > 0f) {
+                bits[i / Long.SIZE] |= 1L << (i % Long.SIZE);
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,865 @@
+package com.mem0.core.vectorstore.hnsw;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mem0.core.vectorstore.VectorStoreService.SearchResult;
+import com.mem0.core.vectorstore.hnsw.QuantizedVectorStorage.QueryScorer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 进程内HNSW向量索引
+ * 
+ * 向量归一化后存放在堆外，余弦相似度即点积。删除和向量变化的覆盖写采用墓碑标记，被删除的节点仍参与图遍历，
+ * 但不会出现在结果中；向量未变的覆盖写原地更新元数据。墓碑由 {@link #compact()} 清理。
+ * filterFields中的元数据字段维护倒排位图，过滤后候选较少时直接精确计算。
+ * 启用量化时图的构建与遍历使用量化向量，取 k * rescoreFactor 个候选后再用全精度向量重排；
+ * 全精度向量可映射到文件，只在重排和快照时访问。
+ * 
+ * @author changyu496
+ */
+public class HnswIndex {
+    
+    private static final int MAGIC = 0x484E5357;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_LEVEL = 16;
+    
+    private static final Comparator<Candidate> BY_SCORE_DESC = (a, b) -> Float.compare(b.score, a.score);
+    private static final Comparator<Candidate> BY_SCORE_ASC = (a, b) -> Float.compare(a.score, b.score);
+    
+    private final int dimension;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Set<String> filterFields;
+    private final int segmentCapacity;
+    private final VectorQuantization quantization;
+    
+    /**
+     * 全精度向量，未量化时也用于图遍历
+     */
+    private final OffHeapVectorStorage vectors;
+    /**
+     * 图遍历用的量化向量，不量化时为null；压缩时重新生成
+     */
+    private QuantizedVectorStorage quantized;
+    private final int rescoreFactor;
+    /**
+     * 节点 -> 层 -> [邻居数, 邻居1, 邻居2, ...]
+     */
+    private final List<int[][]> links = new ArrayList<>();
+    private final List<String> ids = new ArrayList<>();
+    private final List<Map<String, Object>> metadata = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    /**
+     * 字段 -> 值 -> 节点位图
+     */
+    private final Map<String, Map<String, BitSet>> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Random random = new Random();
+    
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int liveCount;
+    private volatile boolean dirty;
+    
+    public HnswIndex(int dimension, int m, int efConstruction, int segmentCapacity, Set<String> filterFields) {
+        this(dimension, m, efConstruction, segmentCapacity, filterFields, VectorQuantization.NONE, 1, null);
+    }
+    
+    /**
+     * @param quantization 图遍历所用向量的量化方式
+     * @param rescoreFactor 量化时按 k * rescoreFactor 取候选再用全精度向量重排
+     * @param vectorFile 全精度向量的映射文件，为null时存放在堆外内存
+     */
+    public HnswIndex(int dimension, int m, int efConstruction, int segmentCapacity, Set<String> filterFields,
+                     VectorQuantization quantization, int rescoreFactor, Path vectorFile) {
+        this.dimension = dimension;
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+        this.filterFields = filterFields;
+        this.segmentCapacity = segmentCapacity;
+        this.quantization = quantization;
+        this.vectors = new OffHeapVectorStorage(dimension, segmentCapacity, vectorFile);
+        this.quantized = quantization == VectorQuantization.NONE
+                ? null : QuantizedVectorStorage.create(quantization, dimension, segmentCapacity);
+        this.rescoreFactor = Math.max(1, rescoreFactor);
+    }
+    
+    /**
+     * 写入或覆盖向量
+     * 
+     * 向量未变时（如发件箱中继、对账和重建重复写入）原地更新元数据，不产生墓碑。
+     */
+    public void upsert(String id, float[] vector, Map<String, Object> meta) {
+        float[] normalized = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            Integer existing = ordinals.get(id);
+            if (existing != null && !deleted.get(existing)) {
+                if (sameVector(existing, normalized)) {
+                    removePostings(existing);
+                    metadata.set(existing, meta != null ? new HashMap<>(meta) : new HashMap<>());
+                    indexPostings(existing);
+                    dirty = true;
+                    return;
+                }
+                deleted.set(existing);
+                liveCount--;
+            }
+            
+            int node = addVector(normalized);
+            ids.add(id);
+            metadata.add(meta != null ? new HashMap<>(meta) : new HashMap<>());
+            ordinals.put(id, node);
+            liveCount++;
+            indexPostings(node);
+            dirty = true;
+            linkNode(node, normalized);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 压缩索引：丢弃墓碑节点，有效向量前移到连续序号后重建图
+     * 
+     * 持有写锁直到重建完成，期间读写都会阻塞，适合在加载快照时调用。
+     * 
+     * @return 清理的墓碑数
+     */
+    public int compact() {
+        lock.writeLock().lock();
+        try {
+            int removed = deleted.cardinality();
+            if (removed == 0) {
+                return 0;
+            }
+            int size = vectors.size();
+            List<String> oldIds = new ArrayList<>(ids);
+            List<Map<String, Object>> oldMetadata = new ArrayList<>(metadata);
+            ids.clear();
+            metadata.clear();
+            links.clear();
+            ordinals.clear();
+            postings.clear();
+            entryPoint = -1;
+            maxLevel = -1;
+            if (quantized != null) {
+                quantized = QuantizedVectorStorage.create(quantization, dimension, segmentCapacity);
+            }
+            
+            // 新序号不大于旧序号，按升序前移不会覆盖尚未处理的向量
+            float[] vector = new float[dimension];
+            int node = 0;
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                if (deleted.get(ordinal)) {
+                    continue;
+                }
+                vectors.get(ordinal, vector);
+                if (node != ordinal) {
+                    vectors.set(node, vector);
+                }
+                if (quantized != null) {
+                    quantized.add(vector);
+                }
+                ids.add(oldIds.get(ordinal));
+                metadata.add(oldMetadata.get(ordinal));
+                ordinals.put(oldIds.get(ordinal), node);
+                indexPostings(node);
+                linkNode(node, vector);
+                node++;
+            }
+            vectors.truncate(node);
+            deleted.clear();
+            liveCount = node;
+            dirty = true;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 删除向量
+     * 
+     * @return 是否存在并被删除
+     */
+    public boolean delete(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null || deleted.get(ordinal)) {
+                return false;
+            }
+            deleted.set(ordinal);
+            liveCount--;
+            dirty = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * 相似度搜索
+     * 
+     * @param query 查询向量
+     * @param k 返回数量
+     * @param efSearch 搜索宽度
+     * @param filters 元数据过滤条件（等值匹配）
+     * @param bruteForceThreshold 候选数不超过该值时精确计算
+     * @param fields 返回的元数据字段，null表示全部
+     * @return 按余弦相似度降序的结果
+     */
+    public List<SearchResult> search(float[] query, int k, int efSearch, Map<String, Object> filters, int bruteForceThreshold,
+                                     List<String> fields) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (liveCount == 0 || k <= 0) {
+                return new ArrayList<>();
+            }
+            
+            // 已建倒排的字段走位图，其余字段逐条比对元数据
+            BitSet filterBits = null;
+            Map<String, Object> residualFilters = new HashMap<>();
+            if (filters != null) {
+                for (Map.Entry<String, Object> entry : filters.entrySet()) {
+                    if (!filterFields.contains(entry.getKey())) {
+                        residualFilters.put(entry.getKey(), entry.getValue());
+                        continue;
+                    }
+                    BitSet bits = postings.getOrDefault(entry.getKey(), Map.of()).get(String.valueOf(entry.getValue()));
+                    if (bits == null) {
+                        return new ArrayList<>();
+                    }
+                    if (filterBits == null) {
+                        filterBits = (BitSet) bits.clone();
+                    } else {
+                        filterBits.and(bits);
+                    }
+                }
+            }
+            
+            final BitSet allowed = filterBits;
+            IntPredicate accept = node -> !deleted.get(node)
+                    && (allowed == null || allowed.get(node))
+                    && matches(node, residualFilters);
+            
+            QueryScorer scorer = scorer(normalized);
+            int candidateCount = quantized == null ? k : k * rescoreFactor;
+            List<Candidate> candidates;
+            if (allowed != null && allowed.cardinality() <= bruteForceThreshold) {
+                candidates = bruteForce(scorer, candidateCount, allowed, accept);
+            } else if (liveCount <= bruteForceThreshold) {
+                candidates = bruteForce(scorer, candidateCount, null, accept);
+            } else {
+                int current = entryPoint;
+                for (int l = maxLevel; l > 0; l--) {
+                    current = greedySearch(scorer, current, l);
+                }
+                candidates = searchLayer(scorer, current, Math.max(efSearch, candidateCount), 0, accept);
+            }
+            if (quantized != null) {
+                candidates = rescore(normalized, candidates, candidateCount);
+            }
+            
+            List<SearchResult> results = new ArrayList<>(Math.min(k, candidates.size()));
+            for (int i = 0; i < candidates.size() && i < k; i++) {
+                Candidate candidate = candidates.get(i);
+                results.add(new SearchResult(ids.get(candidate.node), candidate.score,
+                        project(metadata.get(candidate.node), fields)));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 复制元数据中要返回的字段，fields为null时复制全部
+     */
+    private static Map<String, Object> project(Map<String, Object> source, List<String> fields) {
+        if (fields == null) {
+            return new HashMap<>(source);
+        }
+        Map<String, Object> projected = new HashMap<>();
+        for (String field : fields) {
+            Object value = source.get(field);
+            if (value != null) {
+                projected.put(field, value);
+            }
+        }
+        return projected;
+    }
+    
+    /**
+     * 获取有效文档的元数据
+     * 
+     * @return 元数据副本，文档不存在时返回null
+     */
+    public Map<String, Object> getMetadata(String id) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null || deleted.get(ordinal)) {
+                return null;
+            }
+            return new HashMap<>(metadata.get(ordinal));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 按数值元数据字段升序列出有效文档ID
+     * 
+     * @param sortField 数值字段，缺少该字段的文档被跳过
+     * @param after 只返回字段值大于该值的文档
+     * @param limit 返回数量
+     */
+    public List<String> scanIds(String sortField, long after, int limit) {
+        // 大顶堆保留最小的limit个
+        PriorityQueue<long[]> smallest = new PriorityQueue<>((a, b) -> Long.compare(b[0], a[0]));
+        lock.readLock().lock();
+        try {
+            for (int ordinal : ordinals.values()) {
+                if (deleted.get(ordinal) || !(metadata.get(ordinal).get(sortField) instanceof Number)) {
+                    continue;
+                }
+                long value = ((Number) metadata.get(ordinal).get(sortField)).longValue();
+                if (value <= after) {
+                    continue;
+                }
+                if (smallest.size() < limit) {
+                    smallest.add(new long[] {value, ordinal});
+                } else if (value < smallest.peek()[0]) {
+                    smallest.poll();
+                    smallest.add(new long[] {value, ordinal});
+                }
+            }
+            List<long[]> sorted = new ArrayList<>(smallest);
+            sorted.sort(Comparator.comparingLong(entry -> entry[0]));
+            List<String> result = new ArrayList<>(sorted.size());
+            for (long[] entry : sorted) {
+                result.add(ids.get((int) entry[1]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 墓碑节点数
+     */
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 有效向量数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int getDimension() {
+        return dimension;
+    }
+    
+    public boolean isDirty() {
+        return dirty;
+    }
+    
+    /**
+     * 释放全精度向量的映射文件
+     */
+    public void close() {
+        vectors.close();
+    }
+    
+    // ------------------------------------------------------------------
+    // 图操作
+    // ------------------------------------------------------------------
+    
+    private int addVector(float[] normalized) {
+        int node = vectors.add(normalized);
+        if (quantized != null) {
+            quantized.add(normalized);
+        }
+        return node;
+    }
+    
+    /**
+     * 为已写入向量的节点分配层数并接入图
+     */
+    private void linkNode(int node, float[] normalized) {
+        int level = randomLevel();
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            nodeLinks[l] = new int[(l == 0 ? maxM0 : m) + 1];
+        }
+        links.add(nodeLinks);
+        
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+        
+        QueryScorer scorer = scorer(normalized);
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedySearch(scorer, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(scorer, current, efConstruction, l, null);
+            int[] selected = selectNeighbors(candidates, m);
+            nodeLinks[l][0] = selected.length;
+            System.arraycopy(selected, 0, nodeLinks[l], 1, selected.length);
+            for (int neighbor : selected) {
+                addLink(neighbor, node, l);
+            }
+            current = candidates.get(0).node;
+        }
+        
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+    
+    private boolean sameVector(int node, float[] normalized) {
+        float[] stored = new float[dimension];
+        vectors.get(node, stored);
+        return Arrays.equals(stored, normalized);
+    }
+    
+    private QueryScorer scorer(float[] normalized) {
+        return quantized != null ? quantized.scorer(normalized) : node -> vectors.dot(node, normalized);
+    }
+    
+    private float similarity(int node1, int node2) {
+        return quantized != null ? quantized.similarity(node1, node2) : vectors.dot(node1, node2);
+    }
+    
+    private int randomLevel() {
+        double r = -Math.log(1.0 - random.nextDouble()) * levelMultiplier;
+        return Math.min((int) r, MAX_LEVEL);
+    }
+    
+    private int greedySearch(QueryScorer scorer, int entry, int level) {
+        int current = entry;
+        float best = scorer.score(current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbors = links.get(current)[level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                float score = scorer.score(neighbors[i]);
+                if (score > best) {
+                    best = score;
+                    current = neighbors[i];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * 单层束搜索，accept为空时所有节点都可进入结果
+     */
+    private List<Candidate> searchLayer(QueryScorer scorer, int entry, int ef, int level, IntPredicate accept) {
+        BitSet visited = new BitSet(vectors.size());
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(BY_SCORE_DESC);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(BY_SCORE_ASC);
+        
+        Candidate start = new Candidate(entry, scorer.score(entry));
+        visited.set(entry);
+        candidates.add(start);
+        if (accept == null || accept.test(entry)) {
+            results.add(start);
+        }
+        
+        while (!candidates.isEmpty()) {
+            Candidate current = candidates.poll();
+            if (results.size() >= ef && current.score < results.peek().score) {
+                break;
+            }
+            int[] neighbors = links.get(current.node)[level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float score = scorer.score(neighbor);
+                if (results.size() < ef || score > results.peek().score) {
+                    Candidate candidate = new Candidate(neighbor, score);
+                    candidates.add(candidate);
+                    if (accept == null || accept.test(neighbor)) {
+                        results.add(candidate);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+        
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(BY_SCORE_DESC);
+        return sorted;
+    }
+    
+    private List<Candidate> bruteForce(QueryScorer scorer, int k, BitSet scope, IntPredicate accept) {
+        PriorityQueue<Candidate> results = new PriorityQueue<>(BY_SCORE_ASC);
+        int node = scope != null ? scope.nextSetBit(0) : 0;
+        while (node >= 0 && node < vectors.size()) {
+            if (accept.test(node)) {
+                float score = scorer.score(node);
+                if (results.size() < k) {
+                    results.add(new Candidate(node, score));
+                } else if (score > results.peek().score) {
+                    results.poll();
+                    results.add(new Candidate(node, score));
+                }
+            }
+            node = scope != null ? scope.nextSetBit(node + 1) : node + 1;
+        }
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(BY_SCORE_DESC);
+        return sorted;
+    }
+    
+    /**
+     * 启发式选择邻居：候选与已选邻居的相似度高于与基准点的相似度时跳过，保持图的多样性
+     */
+    private int[] selectNeighbors(List<Candidate> candidates, int maxCount) {
+        int[] selected = new int[Math.min(maxCount, candidates.size())];
+        int count = 0;
+        BitSet chosen = new BitSet();
+        for (Candidate candidate : candidates) {
+            if (count >= selected.length) {
+                break;
+            }
+            boolean keep = true;
+            for (int i = 0; i < count; i++) {
+                if (similarity(candidate.node, selected[i]) > candidate.score) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = candidate.node;
+                chosen.set(candidate.node);
+            }
+        }
+        // 启发式过严时按相似度补足
+        for (Candidate candidate : candidates) {
+            if (count >= selected.length) {
+                break;
+            }
+            if (!chosen.get(candidate.node)) {
+                selected[count++] = candidate.node;
+                chosen.set(candidate.node);
+            }
+        }
+        return selected;
+    }
+    
+    /**
+     * 用全精度向量重新打分，取前limit个
+     */
+    private List<Candidate> rescore(float[] query, List<Candidate> candidates, int limit) {
+        List<Candidate> rescored = new ArrayList<>(Math.min(limit, candidates.size()));
+        for (int i = 0; i < candidates.size() && i < limit; i++) {
+            int node = candidates.get(i).node;
+            rescored.add(new Candidate(node, vectors.dot(node, query)));
+        }
+        rescored.sort(BY_SCORE_DESC);
+        return rescored;
+    }
+    
+    private void addLink(int from, int to, int level) {
+        int[] fromLinks = links.get(from)[level];
+        int maxCount = fromLinks.length - 1;
+        if (fromLinks[0] < maxCount) {
+            fromLinks[++fromLinks[0]] = to;
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>(maxCount + 1);
+        for (int i = 1; i <= fromLinks[0]; i++) {
+            candidates.add(new Candidate(fromLinks[i], similarity(from, fromLinks[i])));
+        }
+        candidates.add(new Candidate(to, similarity(from, to)));
+        candidates.sort(BY_SCORE_DESC);
+        int[] selected = selectNeighbors(candidates, maxCount);
+        fromLinks[0] = selected.length;
+        System.arraycopy(selected, 0, fromLinks, 1, selected.length);
+    }
+    
+    // ------------------------------------------------------------------
+    // 过滤
+    // ------------------------------------------------------------------
+    
+    private void indexPostings(int node) {
+        Map<String, Object> meta = metadata.get(node);
+        for (String field : filterFields) {
+            Object value = meta.get(field);
+            if (value != null) {
+                postings.computeIfAbsent(field, f -> new HashMap<>())
+                        .computeIfAbsent(String.valueOf(value), v -> new BitSet())
+                        .set(node);
+            }
+        }
+    }
+    
+    private void removePostings(int node) {
+        Map<String, Object> meta = metadata.get(node);
+        for (String field : filterFields) {
+            Object value = meta.get(field);
+            Map<String, BitSet> values = value != null ? postings.get(field) : null;
+            BitSet bits = values != null ? values.get(String.valueOf(value)) : null;
+            if (bits != null) {
+                bits.clear(node);
+                if (bits.isEmpty()) {
+                    values.remove(String.valueOf(value));
+                }
+            }
+        }
+    }
+    
+    private boolean matches(int node, Map<String, Object> filters) {
+        if (filters.isEmpty()) {
+            return true;
+        }
+        Map<String, Object> meta = metadata.get(node);
+        for (Map.Entry<String, Object> entry : filters.entrySet()) {
+            Object value = meta.get(entry.getKey());
+            if (value == null || !String.valueOf(value).equals(String.valueOf(entry.getValue()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private float[] normalize(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + dimension + "，实际: " + vector.length);
+        }
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float[] normalized = vector.clone();
+        if (norm > 0.0) {
+            float inverse = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] *= inverse;
+            }
+        }
+        return normalized;
+    }
+    
+    // ------------------------------------------------------------------
+    // 快照
+    // ------------------------------------------------------------------
+    
+    /**
+     * 写入快照
+     * 
+     * 先写临时文件并fsync，再原子替换正式文件，进程崩溃时旧快照保持完整；文件末尾附CRC32校验。
+     */
+    public void writeSnapshot(Path file, ObjectMapper objectMapper) throws IOException {
+        lock.readLock().lock();
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(tmp.toFile())) {
+                CRC32 crc = new CRC32();
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new CheckedOutputStream(fos, crc), 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(dimension);
+                out.writeInt(m);
+                out.writeInt(efConstruction);
+                out.writeInt(vectors.size());
+                out.writeInt(entryPoint);
+                out.writeInt(maxLevel);
+                
+                float[] vector = new float[dimension];
+                for (int node = 0; node < vectors.size(); node++) {
+                    out.writeUTF(ids.get(node));
+                    out.writeBoolean(deleted.get(node));
+                    byte[] meta = objectMapper.writeValueAsBytes(metadata.get(node));
+                    out.writeInt(meta.length);
+                    out.write(meta);
+                    vectors.get(node, vector);
+                    for (float v : vector) {
+                        out.writeFloat(v);
+                    }
+                    int[][] nodeLinks = links.get(node);
+                    out.writeInt(nodeLinks.length);
+                    for (int[] levelLinks : nodeLinks) {
+                        out.writeInt(levelLinks[0]);
+                        for (int i = 1; i <= levelLinks[0]; i++) {
+                            out.writeInt(levelLinks[i]);
+                        }
+                    }
+                }
+                out.flush();
+                
+                // 校验值本身不参与计算，直接写入底层文件
+                DataOutputStream trailer = new DataOutputStream(fos);
+                trailer.writeLong(crc.getValue());
+                trailer.flush();
+                fos.getFD().sync();
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory(file.getParent());
+            dirty = false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 从快照加载索引
+     */
+    public static HnswIndex readSnapshot(Path file, int segmentCapacity, Set<String> filterFields,
+                                         ObjectMapper objectMapper) throws IOException {
+        return readSnapshot(file, segmentCapacity, filterFields, VectorQuantization.NONE, 1, null, objectMapper);
+    }
+    
+    /**
+     * 从快照加载索引，快照中保存全精度向量，量化向量在加载时重新生成
+     */
+    @SuppressWarnings("unchecked")
+    public static HnswIndex readSnapshot(Path file, int segmentCapacity, Set<String> filterFields,
+                                         VectorQuantization quantization, int rescoreFactor, Path vectorFile,
+                                         ObjectMapper objectMapper) throws IOException {
+        try (FileInputStream fis = new FileInputStream(file.toFile())) {
+            CRC32 crc = new CRC32();
+            DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(fis, 1 << 16), crc));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("不是有效的HNSW快照文件: " + file);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("不支持的HNSW快照版本: " + version);
+            }
+            int dimension = in.readInt();
+            int m = in.readInt();
+            int efConstruction = in.readInt();
+            int size = in.readInt();
+            HnswIndex index = new HnswIndex(dimension, m, efConstruction, segmentCapacity, filterFields,
+                    quantization, rescoreFactor, vectorFile);
+            index.entryPoint = in.readInt();
+            index.maxLevel = in.readInt();
+            
+            float[] vector = new float[dimension];
+            for (int node = 0; node < size; node++) {
+                String id = in.readUTF();
+                boolean isDeleted = in.readBoolean();
+                byte[] meta = new byte[in.readInt()];
+                in.readFully(meta);
+                for (int i = 0; i < dimension; i++) {
+                    vector[i] = in.readFloat();
+                }
+                int levels = in.readInt();
+                int[][] nodeLinks = new int[levels][];
+                for (int l = 0; l < levels; l++) {
+                    int count = in.readInt();
+                    nodeLinks[l] = new int[(l == 0 ? index.maxM0 : index.m) + 1];
+                    nodeLinks[l][0] = count;
+                    for (int i = 1; i <= count; i++) {
+                        nodeLinks[l][i] = in.readInt();
+                    }
+                }
+                
+                index.addVector(vector);
+                index.links.add(nodeLinks);
+                index.ids.add(id);
+                index.metadata.add(objectMapper.readValue(meta, Map.class));
+                if (isDeleted) {
+                    index.deleted.set(node);
+                } else {
+                    index.ordinals.put(id, node);
+                    index.liveCount++;
+                }
+                index.indexPostings(node);
+            }
+            
+            long expected = crc.getValue();
+            long actual = in.readLong();
+            if (expected != actual) {
+                throw new IOException("HNSW快照校验失败: " + file);
+            }
+            return index;
+        }
+    }
+    
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 部分平台不支持对目录fsync，忽略
+        }
+    }
+    
+    private static final class Candidate {
+        private final int node;
+        private final float score;
+        
+        private Candidate(int node, float score) {
+            this.node = node;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mem0.core.vectorstore.hnsw;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * int8标量量化的向量存储
+ * 
+ * 每条向量按自身的最大绝对值缩放到 [-127, 127]，另存一个缩放系数。
+ * 查询向量保持float32与int8向量做非对称点积，精度高于两侧都量化。
+ * 按段分配byte数组，每段固定容纳segmentCapacity条向量。
+ * 
+ * @author changyu496
+ */
+public class Int8VectorStorage implements QuantizedVectorStorage {
+    
+    private final int dimension;
+    private final int segmentCapacity;
+    private final List<byte[]> segments = new ArrayList<>();
+    private final List<float[]> scales = new ArrayList<>();
+    private int size;
+    
+    public Int8VectorStorage(int dimension, int segmentCapacity) {
+        this.dimension = dimension;
+        this.segmentCapacity = Math.max(1, segmentCapacity);
+    }
+    
+    @Override
+    public int add(float[] normalized) {
+        int segmentIndex = size / segmentCapacity;
+        if (segmentIndex == segments.size()) {
+            segments.add(new byte[segmentCapacity * dimension]);
+            scales.add(new float[segmentCapacity]);
+        }
+        float maxAbs = 0f;
+        for (float v : normalized) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        float scale = maxAbs > 0f ? maxAbs / 127f : 1f;
+        byte[] segment = segments.get(segmentIndex);
+        int offset = (size % segmentCapacity) * dimension;
+        for (int i = 0; i < dimension; i++) {
+            segment[offset + i] = (byte) Math.round(normalized[i] / scale);
+        }
+        scales.get(segmentIndex)[size % segmentCapacity] = scale;
+        return size++;
+    }
+    
+    @Override
+    public QueryScorer scorer(float[] normalized) {
+        return ordinal -> {
+            byte[] segment = segments.get(ordinal / segmentCapacity);
+            int offset = (ordinal % segmentCapacity) * dimension;
+            float sum = 0f;
+            for (int i = 0; i < dimension; i++) {
+                sum += segment[offset + i] * normalized[i];
+            }
+            return sum * scales.get(ordinal / segmentCapacity)[ordinal % segmentCapacity];
+        };
+    }
+    
+    @Override
+    public float similarity(int ordinal1, int ordinal2) {
+        byte[] segment1 = segments.get(ordinal1 / segmentCapacity);
+        byte[] segment2 = segments.get(ordinal2 / segmentCapacity);
+        int offset1 = (ordinal1 % segmentCapacity) * dimension;
+        int offset2 = (ordinal2 % segmentCapacity) * dimension;
+        int sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += segment1[offset1 + i] * segment2[offset2 + i];
+        }
+        return sum * scales.get(ordinal1 / segmentCapacity)[ordinal1 % segmentCapacity]
+                * scales.get(ordinal2 / segmentCapacity)[ordinal2 % segmentCapacity];
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+}
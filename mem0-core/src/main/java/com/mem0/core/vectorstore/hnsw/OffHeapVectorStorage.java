@@ -0,0 +1,157 @@
+package com.mem0.core.vectorstore.hnsw;
+
+import com.mem0.core.vector.math.VectorKernels;
+import com.mem0.core.vector.math.VectorMath;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 堆外向量存储
+ * 
+ * 向量按段存放在DirectByteBuffer中，每段固定容纳segmentCapacity条向量，
+ * 新增时按段扩容，不会产生大量float[]对象，也不受GC搬移影响。
+ * 点积直接在堆外缓冲区上由 {@link VectorMath} 的内核计算，不复制到堆内。
+ * 指定文件时各段映射到该文件，由操作系统按需换入换出，常驻内存只包含最近访问的向量。
+ * 
+ * @author changyu496
+ */
+public class OffHeapVectorStorage {
+    
+    private final int dimension;
+    private final int segmentCapacity;
+    private final int vectorBytes;
+    private final VectorKernels kernels = VectorMath.kernels();
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private final Path file;
+    private final FileChannel channel;
+    private int size;
+    
+    public OffHeapVectorStorage(int dimension, int segmentCapacity) {
+        this(dimension, segmentCapacity, null);
+    }
+    
+    /**
+     * @param file 映射文件，为null时使用DirectByteBuffer；文件已存在时清空重建
+     */
+    public OffHeapVectorStorage(int dimension, int segmentCapacity, Path file) {
+        this.dimension = dimension;
+        this.segmentCapacity = Math.max(1, segmentCapacity);
+        this.vectorBytes = dimension * Float.BYTES;
+        this.file = file;
+        try {
+            this.channel = file == null ? null : FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开向量文件失败: " + file, e);
+        }
+    }
+    
+    /**
+     * 追加向量
+     * 
+     * @param vector 向量，长度必须等于维度
+     * @return 向量序号
+     */
+    public int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + dimension + "，实际: " + vector.length);
+        }
+        int segmentIndex = size / segmentCapacity;
+        if (segmentIndex == segments.size()) {
+            segments.add(allocateSegment(segmentIndex).order(ByteOrder.nativeOrder()));
+        }
+        segments.get(segmentIndex).asFloatBuffer().put((size % segmentCapacity) * dimension, vector);
+        return size++;
+    }
+    
+    /**
+     * 覆盖已有序号的向量
+     */
+    public void set(int ordinal, float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + dimension + "，实际: " + vector.length);
+        }
+        segments.get(ordinal / segmentCapacity).asFloatBuffer().put((ordinal % segmentCapacity) * dimension, vector);
+    }
+    
+    /**
+     * 截断到指定条数，释放多余的段
+     */
+    public void truncate(int newSize) {
+        size = Math.min(size, Math.max(0, newSize));
+        int segmentCount = (size + segmentCapacity - 1) / segmentCapacity;
+        while (segments.size() > segmentCount) {
+            segments.remove(segments.size() - 1);
+        }
+    }
+    
+    /**
+     * 读取向量到目标数组
+     */
+    public void get(int ordinal, float[] target) {
+        segments.get(ordinal / segmentCapacity).asFloatBuffer().get((ordinal % segmentCapacity) * dimension, target);
+    }
+    
+    /**
+     * 计算存储向量与查询向量的点积
+     */
+    public float dot(int ordinal, float[] query) {
+        return kernels.dot(segments.get(ordinal / segmentCapacity), offset(ordinal), query);
+    }
+    
+    /**
+     * 计算两条存储向量的点积
+     */
+    public float dot(int ordinal1, int ordinal2) {
+        return kernels.dot(segments.get(ordinal1 / segmentCapacity), offset(ordinal1),
+                segments.get(ordinal2 / segmentCapacity), offset(ordinal2), dimension);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * 关闭并删除映射文件，已映射的段在回收前仍可读
+     */
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("删除向量文件失败: " + file, e);
+        }
+    }
+    
+    public int getDimension() {
+        return dimension;
+    }
+    
+    private ByteBuffer allocateSegment(int segmentIndex) {
+        long segmentBytes = (long) segmentCapacity * vectorBytes;
+        if (channel == null) {
+            return ByteBuffer.allocateDirect((int) segmentBytes);
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, segmentIndex * segmentBytes, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("映射向量文件失败: " + file, e);
+        }
+    }
+    
+    private int offset(int ordinal) {
+        return (ordinal % segmentCapacity) * vectorBytes;
+    }
+}
@@ -0,0 +1,55 @@
+package com.mem0.core.vectorstore.hnsw;
+
+/**
+ * 量化向量存储，供HNSW图遍历计算近似相似度
+ * 
+ * 存入的向量须已归一化，近似相似度与余弦相似度同量纲，最终结果由全精度向量重排。
+ * 
+ * @author changyu496
+ */
+public interface QuantizedVectorStorage {
+    
+    /**
+     * 追加向量
+     * 
+     * @param normalized 已归一化的向量
+     * @return 向量序号
+     */
+    int add(float[] normalized);
+    
+    /**
+     * 为查询向量创建打分器，查询向量只量化一次
+     * 
+     * @param normalized 已归一化的查询向量
+     */
+    QueryScorer scorer(float[] normalized);
+    
+    /**
+     * 两条存储向量的近似相似度
+     */
+    float similarity(int ordinal1, int ordinal2);
+    
+    int size();
+    
+    /**
+     * 按量化方式创建存储
+     */
+    static QuantizedVectorStorage create(VectorQuantization quantization, int dimension, int segmentCapacity) {
+        switch (quantization) {
+            case INT8:
+                return new Int8VectorStorage(dimension, segmentCapacity);
+            case BINARY:
+                return new BinaryVectorStorage(dimension, segmentCapacity);
+            default:
+                throw new IllegalArgumentException("不需要量化存储: " + quantization.getCode());
+        }
+    }
+    
+    /**
+     * 查询向量与存储向量的近似相似度
+     */
+    @FunctionalInterface
+    interface QueryScorer {
+        float score(int ordinal);
+    }
+}
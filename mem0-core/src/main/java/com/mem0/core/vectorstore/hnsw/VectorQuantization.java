@@ -0,0 +1,51 @@
+package com.mem0.core.vectorstore.hnsw;
+
+/**
+ * HNSW图遍历所用向量的量化方式枚举
+ * 
+ * @author changyu496
+ */
+public enum VectorQuantization {
+    /**
+     * 不量化，图遍历直接使用float32向量
+     */
+    NONE("none", "不量化"),
+    
+    /**
+     * 每维1字节的标量量化，内存约为float32的1/4
+     */
+    INT8("int8", "int8标量量化"),
+    
+    /**
+     * 每维1位的符号量化，内存约为float32的1/32，需要更大的重排倍数
+     */
+    BINARY("binary", "二值量化");
+    
+    private final String code;
+    private final String description;
+    
+    VectorQuantization(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    /**
+     * 根据代码获取量化方式
+     */
+    public static VectorQuantization fromCode(String code) {
+        for (VectorQuantization quantization : values()) {
+            if (quantization.code.equalsIgnoreCase(code)) {
+                return quantization;
+            }
+        }
+        throw new IllegalArgumentException("Unknown vector quantization code: " + code);
+    }
+}
@@ -1,35 +1,73 @@
 package com.mem0.core.vectorstore.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mem0.core.vector.DenseVector;
 import com.mem0.core.vectorstore.VectorStoreService;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.CountRequest;
 import org.elasticsearch.client.indices.CreateIndexRequest;
 import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
 import org.elasticsearch.xcontent.XContentType;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.DeleteByQueryRequest;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.client.GetAliasesResponse;
 import org.elasticsearch.action.index.IndexResponse;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NStringEntity;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 /**
  * 基于Elasticsearch的向量存储服务实现
@@ -37,10 +75,17 @@ import java.util.*;
  * @author changyu496
  */
 @Service
+@ConditionalOnProperty(name = "mem0.vector-store.type", havingValue = "elasticsearch", matchIfMissing = true)
 public class ElasticsearchVectorStoreService implements VectorStoreService {
     
     private static final Logger log = LoggerFactory.getLogger(ElasticsearchVectorStoreService.class);
     
+    private static final String APP_ID_FIELD = "app_id";
+    private static final String CONTENT_FIELD = "content";
+    private static final String LEGACY_INDEX_SUFFIX = "_legacy";
+    
+    private static final String INDEX_TEMPLATE_LOCATION = "elasticsearch/vector-index-template.json";
+    
     @Autowired
     @Qualifier("restHighLevelClient")
     private RestHighLevelClient elasticsearchClient;
@@ -51,19 +96,177 @@ public class ElasticsearchVectorStoreService implements VectorStoreService {
     @Value("${elasticsearch.index-prefix:mem0_vectors}")
     private String indexPrefix;
     
+    /**
+     * 共享索引的主分片数与副本数
+     */
+    @Value("${elasticsearch.index.number-of-shards:1}")
+    private int numberOfShards;
+    
+    @Value("${elasticsearch.index.number-of-replicas:0}")
+    private int numberOfReplicas;
+    
+    /**
+     * 向量索引类型：hnsw（float32）或 int8_hnsw（int8量化，需要ES 8.12+）
+     */
+    @Value("${elasticsearch.index.vector-index-type:hnsw}")
+    private String vectorIndexType;
+    
+    /**
+     * 路由字段（如 user_id、app_id），为空表示不使用自定义路由
+     * 
+     * 同一租户的文档写入同一分片，带该字段过滤的搜索只访问一个分片。
+     */
+    @Value("${elasticsearch.routing.field:}")
+    private String routingField;
+    
+    /**
+     * 使用专属索引的应用ID，逗号分隔；其余应用共用共享索引
+     */
+    @Value("${elasticsearch.routing.dedicated-app-ids:}")
+    private String dedicatedAppIdsValue;
+    
+    /**
+     * 专属索引的主分片数
+     */
+    @Value("${elasticsearch.routing.dedicated-number-of-shards:1}")
+    private int dedicatedNumberOfShards;
+    
+    /**
+     * 单个bulk请求的最大文档数
+     */
+    @Value("${elasticsearch.bulk.batch-size:500}")
+    private int bulkBatchSize;
+    
+    /**
+     * 单个bulk请求的最大字节数
+     */
+    @Value("${elasticsearch.bulk.max-bytes:5mb}")
+    private String bulkMaxBytes;
+    
+    /**
+     * 同时在途的bulk请求数
+     */
+    @Value("${elasticsearch.bulk.concurrency:2}")
+    private int bulkConcurrency;
+    
+    /**
+     * bulk请求的刷新策略：false、true、wait_for
+     */
+    @Value("${elasticsearch.bulk.refresh-policy:false}")
+    private String bulkRefreshPolicy;
+    
+    /**
+     * 搜索模式：knn（HNSW近似搜索）或 script_score（精确打分）
+     */
+    @Value("${elasticsearch.search.mode:knn}")
+    private String searchMode;
+    
+    /**
+     * kNN候选数 = limit * 该系数，且不小于min-num-candidates
+     */
+    @Value("${elasticsearch.search.num-candidates-factor:10}")
+    private int numCandidatesFactor;
+    
+    @Value("${elasticsearch.search.min-num-candidates:100}")
+    private int minNumCandidates;
+    
+    /**
+     * kNN取 limit * 该倍数个候选，再用全精度向量的余弦相似度重排；1表示不重排
+     */
+    @Value("${elasticsearch.search.rescore-factor:1}")
+    private int rescoreFactor;
+    
+    /**
+     * 混合检索的融合方式：
+     * rrf - 关键词与kNN两路结果在一次 _msearch 中取回，由客户端做倒数排名融合；
+     * weighted - 单个请求中按权重累加两路分数；
+     * server_rrf - 使用ES的 rank.rrf（技术预览，需要付费许可），请求被拒绝时退回 rrf
+     */
+    @Value("${elasticsearch.search.hybrid.fusion:rrf}")
+    private String hybridFusion;
+    
+    /**
+     * 关键词与向量两路各取的候选数
+     */
+    @Value("${elasticsearch.search.hybrid.window-size:50}")
+    private int hybridWindowSize;
+    
+    @Value("${elasticsearch.search.hybrid.rank-constant:60}")
+    private int hybridRankConstant;
+    
+    /**
+     * weighted 融合时关键词与向量分数的权重
+     */
+    @Value("${elasticsearch.search.hybrid.text-weight:0.3}")
+    private float hybridTextWeight;
+    
+    @Value("${elasticsearch.search.hybrid.vector-weight:1.0}")
+    private float hybridVectorWeight;
+    
+    /**
+     * ES拒绝 rank.rrf 后置为false，之后直接使用客户端融合
+     */
+    private volatile boolean serverRrfAvailable = true;
+    
+    /**
+     * 过滤后文档数不超过该值时改用精确打分，0表示关闭
+     */
+    @Value("${elasticsearch.search.exact-threshold:1000}")
+    private long exactSearchThreshold;
+    
+    @Value("${elasticsearch.search.tenant-size-cache-ttl-ms:60000}")
+    private long tenantSizeCacheTtlMs;
+    
+    /**
+     * 过滤条件 -> [文档数, 统计时间]
+     */
+    private final Map<String, long[]> tenantSizeCache = new ConcurrentHashMap<>();
+    
+    /**
+     * 专属索引名 -> [是否存在, 检查时间]
+     */
+    private final Map<String, long[]> dedicatedIndexCache = new ConcurrentHashMap<>();
+    
+    private Set<String> dedicatedAppIds = Set.of();
+    
+    /**
+     * 索引模板是否已安装，启动时安装失败则在首次建索引前重试
+     */
+    private volatile boolean indexTemplateInstalled;
+    
+    @PostConstruct
+    public void init() {
+        Set<String> appIds = new LinkedHashSet<>();
+        for (String appId : dedicatedAppIdsValue.split(",")) {
+            if (!appId.isBlank()) {
+                appIds.add(appId.trim());
+            }
+        }
+        dedicatedAppIds = appIds;
+        if (!dedicatedAppIds.isEmpty() || isRoutingEnabled()) {
+            log.info("向量索引租户路由 - 路由字段: {}, 专属索引应用: {}", routingField, dedicatedAppIds);
+        }
+        try {
+            putIndexTemplate();
+        } catch (RuntimeException e) {
+            log.warn("安装向量索引模板失败，将在创建索引前重试: {}", e.getMessage());
+        }
+    }
+    
     @Override
-    public void storeVector(String indexName, String id, List<Float> vector, Map<String, Object> metadata) {
+    public void storeVector(String indexName, String id, DenseVector vector, Map<String, Object> metadata) {
         try {
-            String fullIndexName = getFullIndexName(indexName);
+            String fullIndexName = resolveIndexName(indexName, metadata);
             
             Map<String, Object> document = new HashMap<>();
-            document.put("vector", vector);
+            document.put("vector", vector.values());
             if (metadata != null) {
                 document.putAll(metadata);
             }
             
             IndexRequest request = new IndexRequest(fullIndexName)
                     .id(id)
+                    .routing(routingOf(metadata))
                     .source(document, XContentType.JSON);
             
             // 添加响应处理
@@ -74,7 +277,7 @@ public class ElasticsearchVectorStoreService implements VectorStoreService {
                 response.status() != org.elasticsearch.rest.RestStatus.OK) {
                 throw new RuntimeException("存储向量失败，状态码: " + response.status());
             }
-            
+        
         } catch (IOException e) {
             // 如果是解析响应体的问题，但操作实际成功了，可以忽略
             if (e.getMessage() != null && e.getMessage().contains("Unable to parse response body")) {
@@ -86,90 +289,569 @@ public class ElasticsearchVectorStoreService implements VectorStoreService {
     }
     
     @Override
-    public void storeVectors(String indexName, List<VectorData> vectors) {
+    public BulkResult storeVectors(String indexName, List<VectorData> vectors) {
+        BulkResult result = new BulkResult();
+        if (vectors == null || vectors.isEmpty()) {
+            return result;
+        }
+        
+        List<BulkRequest> batches = buildBulkBatches(indexName, vectors);
+        
+        log.info("批量存储向量 - 索引: {}, 文档数: {}, 批次数: {}", getFullIndexName(indexName), vectors.size(), batches.size());
+        
+        // 通过信号量限制同时在途的bulk请求数
+        Semaphore permits = new Semaphore(Math.max(1, bulkConcurrency));
+        CountDownLatch done = new CountDownLatch(batches.size());
+        for (BulkRequest batch : batches) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("批量存储向量被中断", e);
+            }
+            elasticsearchClient.bulkAsync(batch, RequestOptions.DEFAULT, new ActionListener<BulkResponse>() {
+                @Override
+                public void onResponse(BulkResponse response) {
+                    try {
+                        collectBulkResponse(response, result);
+                    } finally {
+                        permits.release();
+                        done.countDown();
+                    }
+                }
+                
+                @Override
+                public void onFailure(Exception e) {
+                    try {
+                        // 如果是解析响应体的问题，但操作实际成功了，可以忽略
+                        if (e.getMessage() != null && e.getMessage().contains("Unable to parse response body")) {
+                            log.warn("批量存储向量成功，但响应解析失败: {}", e.getMessage());
+                            result.addSucceeded(batch.numberOfActions());
+                        } else {
+                            log.error("批量存储向量请求失败，文档数: {}", batch.numberOfActions(), e);
+                            batch.requests().forEach(request -> result.addFailure(request.id(), e.getMessage()));
+                        }
+                    } finally {
+                        permits.release();
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("批量存储向量被中断", e);
+        }
+        
+        if (result.hasFailures()) {
+            log.warn("批量存储向量部分失败 - 成功: {}, 失败: {}", result.getSucceeded(), result.getFailures().size());
+        }
+        return result;
+    }
+    
+    /**
+     * 按文档数和字节数上限拆分bulk请求，每个文档按租户决定索引与路由
+     */
+    private List<BulkRequest> buildBulkBatches(String indexName, List<VectorData> vectors) {
+        long maxBytes = ByteSizeValue.parseBytesSizeValue(bulkMaxBytes, "elasticsearch.bulk.max-bytes").getBytes();
+        int maxActions = Math.max(1, bulkBatchSize);
+        WriteRequest.RefreshPolicy refreshPolicy = WriteRequest.RefreshPolicy.parse(bulkRefreshPolicy);
+        
+        List<BulkRequest> batches = new ArrayList<>();
+        BulkRequest current = new BulkRequest().setRefreshPolicy(refreshPolicy);
         for (VectorData vectorData : vectors) {
-            storeVector(indexName, vectorData.getId(), vectorData.getVector(), vectorData.getMetadata());
+            Map<String, Object> document = new HashMap<>();
+            document.put("vector", vectorData.getVector().values());
+            if (vectorData.getMetadata() != null) {
+                document.putAll(vectorData.getMetadata());
+            }
+            IndexRequest request = new IndexRequest(resolveIndexName(indexName, vectorData.getMetadata()))
+                    .id(vectorData.getId())
+                    .routing(routingOf(vectorData.getMetadata()))
+                    .source(document, XContentType.JSON);
+            
+            // 当前批次已满则另起一批，单个超大文档独占一批
+            if (current.numberOfActions() > 0
+                    && (current.numberOfActions() >= maxActions
+                        || current.estimatedSizeInBytes() + request.source().length() > maxBytes)) {
+                batches.add(current);
+                current = new BulkRequest().setRefreshPolicy(refreshPolicy);
+            }
+            current.add(request);
+        }
+        if (current.numberOfActions() > 0) {
+            batches.add(current);
+        }
+        return batches;
+    }
+    
+    /**
+     * 汇总bulk响应中的逐条结果
+     */
+    private void collectBulkResponse(BulkResponse response, BulkResult result) {
+        int succeeded = 0;
+        for (BulkItemResponse item : response.getItems()) {
+            if (item.isFailed()) {
+                result.addFailure(item.getId(), item.getFailureMessage());
+            } else {
+                succeeded++;
+            }
         }
+        result.addSucceeded(succeeded);
     }
     
     @Override
-    public List<SearchResult> search(String indexName, List<Float> queryVector, int limit, Map<String, Object> filters) {
+    public List<SearchResult> search(String indexName, DenseVector queryVector, int limit, Map<String, Object> filters,
+                                     List<String> fields) {
         try {
-            String fullIndexName = getFullIndexName(indexName);
+            String fullIndexName = resolveIndexName(indexName, filters);
+            // 过滤条件包含路由字段时只搜索该租户所在的分片
+            String routing = routingOf(filters);
             
-            log.info("开始向量搜索 - 索引: {}, 查询向量维度: {}, 限制: {}, 过滤条件: {}", 
-                    fullIndexName, queryVector.size(), limit, filters);
+            log.info("开始向量搜索 - 索引: {}, 路由: {}, 模式: {}, 查询向量维度: {}, 限制: {}, 过滤条件: {}", 
+                    fullIndexName, routing, searchMode, queryVector.dimension(), limit, filters);
             
-            SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
+            BoolQueryBuilder filterQuery = buildFilterQuery(filters);
             
-            // 构建向量查询
-            Map<String, Object> scriptParams = new HashMap<>();
-            scriptParams.put("query_vector", queryVector);
-            
-            Script script = new Script(ScriptType.INLINE, "painless", 
-                "cosineSimilarity(params.query_vector, 'vector') + 1.0", scriptParams);
-            
-            // 构建基础查询
-            BoolQueryBuilder boolQuery = QueryBuilders.boolQuery();
-            
-            // 添加过滤条件
-            if (filters != null && !filters.isEmpty()) {
-                for (Map.Entry<String, Object> entry : filters.entrySet()) {
-                    boolQuery.filter(QueryBuilders.termQuery(entry.getKey(), entry.getValue()));
-                    log.info("添加过滤条件: {} = {}", entry.getKey(), entry.getValue());
-                }
+            List<SearchResult> results;
+            if ("knn".equalsIgnoreCase(searchMode) && !isSmallTenant(fullIndexName, routing, filterQuery, filters)) {
+                results = searchKnn(fullIndexName, routing, queryVector, limit, filterQuery, fields);
+            } else {
+                results = searchExact(fullIndexName, routing, queryVector, limit, filterQuery, fields);
             }
             
-            // 如果没有过滤条件，使用matchAllQuery
-            if (filters == null || filters.isEmpty()) {
-                boolQuery.must(QueryBuilders.matchAllQuery());
-                log.info("使用matchAllQuery，无过滤条件");
+            log.info("最终返回结果数量: {}", results.size());
+            return results;
+        } catch (IOException e) {
+            log.error("搜索向量失败", e);
+            throw new RuntimeException("搜索向量失败", e);
+        }
+    }
+    
+    /**
+     * 构建过滤条件
+     */
+    private BoolQueryBuilder buildFilterQuery(Map<String, Object> filters) {
+        BoolQueryBuilder boolQuery = QueryBuilders.boolQuery();
+        if (filters != null) {
+            for (Map.Entry<String, Object> entry : filters.entrySet()) {
+                boolQuery.filter(QueryBuilders.termQuery(entry.getKey(), entry.getValue()));
             }
+        }
+        return boolQuery;
+    }
+    
+    /**
+     * 判断过滤后的文档数是否小到直接精确打分更划算
+     * 
+     * 文档数按过滤条件缓存一段时间，避免每次搜索都多一次_count请求。
+     */
+    private boolean isSmallTenant(String fullIndexName, String routing, BoolQueryBuilder filterQuery,
+                                  Map<String, Object> filters) throws IOException {
+        if (exactSearchThreshold <= 0) {
+            return false;
+        }
+        String cacheKey = fullIndexName + "|" + new TreeMap<>(filters == null ? Map.of() : filters);
+        long now = System.currentTimeMillis();
+        long[] cached = tenantSizeCache.get(cacheKey);
+        if (cached == null || now - cached[1] > tenantSizeCacheTtlMs) {
+            CountRequest countRequest = new CountRequest(fullIndexName).routing(routing).query(filterQuery);
+            long count = elasticsearchClient.count(countRequest, RequestOptions.DEFAULT).getCount();
+            cached = new long[]{count, now};
+            if (tenantSizeCache.size() >= 10000) {
+                tenantSizeCache.clear();
+            }
+            tenantSizeCache.put(cacheKey, cached);
+        }
+        return cached[0] <= exactSearchThreshold;
+    }
+    
+    /**
+     * 精确搜索：对所有命中过滤条件的文档执行script_score余弦打分
+     */
+    private List<SearchResult> searchExact(String fullIndexName, String routing, DenseVector queryVector, int limit,
+                                           BoolQueryBuilder filterQuery, List<String> fields) throws IOException {
+        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
+        
+        // 构建向量查询
+        Map<String, Object> scriptParams = new HashMap<>();
+        scriptParams.put("query_vector", queryVector.values());
+        
+        Script script = new Script(ScriptType.INLINE, "painless", 
+            "cosineSimilarity(params.query_vector, 'vector') + 1.0", scriptParams);
+        
+        // 如果没有过滤条件，使用matchAllQuery
+        if (!filterQuery.hasClauses()) {
+            filterQuery.must(QueryBuilders.matchAllQuery());
+        }
+        
+        // 将过滤条件与向量查询结合
+        sourceBuilder.query(QueryBuilders.scriptScoreQuery(filterQuery, script));
+        sourceBuilder.size(limit);
+        sourceBuilder.sort(SortBuilders.scoreSort().order(SortOrder.DESC));
+        sourceBuilder.fetchSource(toFetchSourceContext(fields));
+        
+        SearchRequest searchRequest = new SearchRequest(fullIndexName);
+        searchRequest.routing(routing);
+        searchRequest.source(sourceBuilder);
+        
+        SearchResponse response = elasticsearchClient.search(searchRequest, RequestOptions.DEFAULT);
+        
+        log.info("ES响应 - 总命中数: {}, 最大分数: {}", 
+                response.getHits().getTotalHits().value, 
+                response.getHits().getMaxScore());
+        
+        List<SearchResult> results = new ArrayList<>();
+        for (SearchHit hit : response.getHits().getHits()) {
+            Map<String, Object> metadata = hit.hasSource() ? hit.getSourceAsMap() : new HashMap<>();
             
-            // 将过滤条件与向量查询结合
-            sourceBuilder.query(QueryBuilders.scriptScoreQuery(boolQuery, script));
-            sourceBuilder.size(limit);
-            sourceBuilder.sort(SortBuilders.scoreSort().order(SortOrder.DESC));
-            
-            SearchRequest searchRequest = new SearchRequest(fullIndexName);
-            searchRequest.source(sourceBuilder);
-            
-            log.info("ES查询请求: {}", searchRequest.source().toString());
-            
-            SearchResponse response = elasticsearchClient.search(searchRequest, RequestOptions.DEFAULT);
-            
-            log.info("ES响应 - 总命中数: {}, 最大分数: {}", 
-                    response.getHits().getTotalHits().value, 
-                    response.getHits().getMaxScore());
+            // script_score的分数为 cosine + 1
+            results.add(new SearchResult(hit.getId(), hit.getScore() - 1.0, metadata));
+        }
+        return results;
+    }
+    
+    /**
+     * 搜索结果的_source过滤：始终排除向量，fields为空列表时不取_source，只返回ID和分数
+     * 
+     * 旧索引的_source仍包含向量，在服务端排除可避免每条命中回传整条向量。
+     */
+    private FetchSourceContext toFetchSourceContext(List<String> fields) {
+        if (fields == null) {
+            return new FetchSourceContext(true, Strings.EMPTY_ARRAY, new String[] {"vector"});
+        }
+        if (fields.isEmpty()) {
+            return FetchSourceContext.DO_NOT_FETCH_SOURCE;
+        }
+        return new FetchSourceContext(true, fields.toArray(new String[0]), new String[] {"vector"});
+    }
+    
+    /**
+     * 近似搜索：使用dense_vector上的HNSW索引执行kNN，过滤条件在图遍历时预先应用
+     */
+    private List<SearchResult> searchKnn(String fullIndexName, String routing, DenseVector queryVector, int limit,
+                                         BoolQueryBuilder filterQuery, List<String> fields) throws IOException {
+        JsonNode hits = performSearch(fullIndexName, routing, buildKnnBody(queryVector, limit, filterQuery, fields));
+        log.info("ES kNN响应 - 总命中数: {}, 最大分数: {}", 
+                hits.path("total").path("value").asLong(), hits.path("max_score").asDouble());
+        return toKnnResults(hits);
+    }
+    
+    /**
+     * 构建kNN搜索请求体，量化索引按 rescore-factor 多取候选并用全精度向量重排
+     */
+    private XContentBuilder buildKnnBody(DenseVector queryVector, int limit, BoolQueryBuilder filterQuery,
+                                         List<String> fields) throws IOException {
+        // num_candidates越大召回越高，ES上限为10000
+        int numCandidates = Math.min(10000, Math.max(limit * numCandidatesFactor, minNumCandidates));
+        // 量化索引的kNN分数是近似值，多取候选后用全精度向量重排
+        boolean rescore = rescoreFactor > 1;
+        int k = rescore ? Math.min(10000, limit * rescoreFactor) : limit;
+        
+        XContentBuilder body = XContentFactory.jsonBuilder();
+        body.startObject();
+        body.startObject("knn");
+        body.field("field", "vector");
+        body.array("query_vector", queryVector.values());
+        body.field("k", k);
+        body.field("num_candidates", Math.max(numCandidates, k));
+        if (filterQuery.hasClauses()) {
+            body.field("filter", filterQuery);
+        }
+        body.endObject();
+        body.field("size", limit);
+        if (rescore) {
+            body.startObject("rescore");
+            body.field("window_size", k);
+            body.startObject("query");
+            body.startObject("rescore_query");
+            body.startObject("script_score");
+            body.startObject("query").startObject("match_all").endObject().endObject();
+            body.startObject("script");
+            body.field("source", "cosineSimilarity(params.query_vector, 'vector') + 1.0");
+            body.startObject("params").array("query_vector", queryVector.values()).endObject();
+            body.endObject();
+            body.endObject();
+            body.endObject();
+            body.field("query_weight", 0);
+            body.field("rescore_query_weight", 1);
+            body.endObject();
+            body.endObject();
+        }
+        writeSourceFilter(body, fields);
+        body.endObject();
+        return body;
+    }
+    
+    private List<SearchResult> toKnnResults(JsonNode hits) {
+        boolean rescore = rescoreFactor > 1;
+        List<SearchResult> results = new ArrayList<>();
+        for (JsonNode hit : hits.path("hits")) {
+            // cosine相似度的kNN分数为 (1 + cosine) / 2，重排后的分数为 cosine + 1
+            double score = rescore ? hit.path("_score").asDouble() - 1.0 : hit.path("_score").asDouble() * 2.0 - 1.0;
+            results.add(new SearchResult(hit.path("_id").asText(), score, toMetadata(hit)));
+        }
+        return results;
+    }
+    
+    @Override
+    public List<SearchResult> hybridSearch(String indexName, String queryText, DenseVector queryVector, int limit,
+                                           Map<String, Object> filters, List<String> fields) {
+        if (queryText == null || queryText.isBlank()) {
+            return search(indexName, queryVector, limit, filters, fields);
+        }
+        try {
+            String fullIndexName = resolveIndexName(indexName, filters);
+            String routing = routingOf(filters);
+            // 两路各取前window个参与融合
+            int window = Math.min(10000, Math.max(hybridWindowSize, limit));
+            log.info("开始混合检索 - 索引: {}, 路由: {}, 融合: {}, 窗口: {}, 限制: {}, 过滤条件: {}",
+                    fullIndexName, routing, hybridFusion, window, limit, filters);
             
-            List<SearchResult> results = new ArrayList<>();
-            for (SearchHit hit : response.getHits().getHits()) {
-                Map<String, Object> source = hit.getSourceAsMap();
-                Map<String, Object> metadata = new HashMap<>(source);
-                metadata.remove("vector"); // 移除向量数据，只保留元数据
-                
-                log.info("ES召回结果 - ID: {}, 分数: {}, 内容: {}", 
-                        hit.getId(), hit.getScore(), source.get("content"));
-                
-                results.add(new SearchResult(hit.getId(), hit.getScore(), metadata));
+            List<SearchResult> results;
+            if ("weighted".equalsIgnoreCase(hybridFusion)) {
+                results = searchWeighted(fullIndexName, routing, queryText, queryVector, limit, window, filters, fields);
+            } else if ("server_rrf".equalsIgnoreCase(hybridFusion) && serverRrfAvailable) {
+                try {
+                    results = searchServerRrf(fullIndexName, routing, queryText, queryVector, limit, window, filters, fields);
+                } catch (ResponseException e) {
+                    // 基础许可或参数不兼容的版本会拒绝 rank.rrf
+                    serverRrfAvailable = false;
+                    log.warn("ES不支持 rank.rrf，改用客户端倒数排名融合: {}", e.getMessage());
+                    results = searchClientRrf(fullIndexName, routing, queryText, queryVector, limit, window, filters, fields);
+                }
+            } else {
+                results = searchClientRrf(fullIndexName, routing, queryText, queryVector, limit, window, filters, fields);
             }
-            
-            log.info("最终返回结果数量: {}", results.size());
+            log.info("混合检索返回结果数量: {}", results.size());
             return results;
         } catch (IOException e) {
-            log.error("搜索向量失败", e);
-            throw new RuntimeException("搜索向量失败", e);
+            log.error("混合检索失败", e);
+            throw new RuntimeException("混合检索失败", e);
+        }
+    }
+    
+    /**
+     * 关键词与kNN两路结果通过一次 _msearch 取回，按 1 / (rank-constant + 排名) 累加融合
+     */
+    private List<SearchResult> searchClientRrf(String fullIndexName, String routing, String queryText,
+                                               DenseVector queryVector, int limit, int window,
+                                               Map<String, Object> filters, List<String> fields) throws IOException {
+        BoolQueryBuilder textQuery = buildFilterQuery(filters);
+        textQuery.must(QueryBuilders.matchQuery(CONTENT_FIELD, queryText));
+        XContentBuilder textBody = XContentFactory.jsonBuilder();
+        textBody.startObject();
+        textBody.field("query", textQuery);
+        textBody.field("size", window);
+        writeSourceFilter(textBody, fields);
+        textBody.endObject();
+        XContentBuilder knnBody = buildKnnBody(queryVector, window, buildFilterQuery(filters), fields);
+        
+        List<JsonNode> responses = performMultiSearch(fullIndexName, routing, List.of(textBody, knnBody));
+        
+        Map<String, Double> scores = new HashMap<>();
+        Map<String, Map<String, Object>> metadata = new HashMap<>();
+        for (JsonNode hits : responses) {
+            int rank = 0;
+            for (JsonNode hit : hits.path("hits")) {
+                String id = hit.path("_id").asText();
+                scores.merge(id, 1.0 / (hybridRankConstant + ++rank), Double::sum);
+                metadata.putIfAbsent(id, toMetadata(hit));
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(limit)
+                .map(entry -> new SearchResult(entry.getKey(), entry.getValue(), metadata.get(entry.getKey())))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 单个请求中关键词查询与kNN按 text-weight / vector-weight 加权累加分数
+     */
+    private List<SearchResult> searchWeighted(String fullIndexName, String routing, String queryText,
+                                              DenseVector queryVector, int limit, int window,
+                                              Map<String, Object> filters, List<String> fields) throws IOException {
+        XContentBuilder body = buildHybridBody(queryText, queryVector, limit, window, filters, fields, false);
+        return toHybridResults(performSearch(fullIndexName, routing, body));
+    }
+    
+    /**
+     * 使用ES 8.8~8.13 的顶层 rank.rrf 融合，8.14 起改为 retriever.rrf
+     */
+    private List<SearchResult> searchServerRrf(String fullIndexName, String routing, String queryText,
+                                               DenseVector queryVector, int limit, int window,
+                                               Map<String, Object> filters, List<String> fields) throws IOException {
+        XContentBuilder body = buildHybridBody(queryText, queryVector, limit, window, filters, fields, true);
+        return toHybridResults(performSearch(fullIndexName, routing, body));
+    }
+    
+    private XContentBuilder buildHybridBody(String queryText, DenseVector queryVector, int limit, int window,
+                                            Map<String, Object> filters, List<String> fields,
+                                            boolean rrf) throws IOException {
+        int numCandidates = Math.min(10000, Math.max(window, Math.max(limit * numCandidatesFactor, minNumCandidates)));
+        BoolQueryBuilder textQuery = buildFilterQuery(filters);
+        textQuery.must(QueryBuilders.matchQuery(CONTENT_FIELD, queryText).boost(rrf ? 1.0f : hybridTextWeight));
+        
+        XContentBuilder body = XContentFactory.jsonBuilder();
+        body.startObject();
+        body.field("query", textQuery);
+        body.startObject("knn");
+        body.field("field", "vector");
+        body.array("query_vector", queryVector.values());
+        body.field("k", window);
+        body.field("num_candidates", numCandidates);
+        BoolQueryBuilder filterQuery = buildFilterQuery(filters);
+        if (filterQuery.hasClauses()) {
+            body.field("filter", filterQuery);
+        }
+        if (!rrf) {
+            body.field("boost", hybridVectorWeight);
+        }
+        body.endObject();
+        if (rrf) {
+            body.startObject("rank").startObject("rrf");
+            body.field("window_size", window);
+            body.field("rank_constant", hybridRankConstant);
+            body.endObject().endObject();
+        }
+        body.field("size", limit);
+        writeSourceFilter(body, fields);
+        body.endObject();
+        return body;
+    }
+    
+    /**
+     * 融合后的分数只用于排序，不再是余弦相似度
+     */
+    private List<SearchResult> toHybridResults(JsonNode hits) {
+        List<SearchResult> results = new ArrayList<>();
+        for (JsonNode hit : hits.path("hits")) {
+            results.add(new SearchResult(hit.path("_id").asText(), hit.path("_score").asDouble(), toMetadata(hit)));
+        }
+        return results;
+    }
+    
+    /**
+     * 写入_source过滤，规则同 {@link #toFetchSourceContext(List)}
+     */
+    private void writeSourceFilter(XContentBuilder body, List<String> fields) throws IOException {
+        FetchSourceContext sourceContext = toFetchSourceContext(fields);
+        if (sourceContext.fetchSource()) {
+            body.startObject("_source");
+            if (sourceContext.includes().length > 0) {
+                body.array("includes", sourceContext.includes());
+            }
+            body.array("excludes", sourceContext.excludes());
+            body.endObject();
+        } else {
+            body.field("_source", false);
+        }
+    }
+    
+    /**
+     * 通过低级客户端执行搜索，返回响应中的hits
+     * 
+     * High Level REST Client 7.x 不支持顶层knn和rank，直接发送请求体。
+     */
+    private JsonNode performSearch(String fullIndexName, String routing, XContentBuilder body) throws IOException {
+        Request request = new Request("POST", "/" + fullIndexName + "/_search");
+        if (routing != null) {
+            request.addParameter("routing", routing);
         }
+        request.setJsonEntity(Strings.toString(body));
+        Response response = elasticsearchClient.getLowLevelClient().performRequest(request);
+        return objectMapper.readTree(response.getEntity().getContent()).path("hits");
+    }
+    
+    /**
+     * 通过 _msearch 在一次往返中执行多个搜索，按请求顺序返回各自的hits
+     */
+    private List<JsonNode> performMultiSearch(String fullIndexName, String routing,
+                                              List<XContentBuilder> bodies) throws IOException {
+        XContentBuilder header = XContentFactory.jsonBuilder();
+        header.startObject();
+        header.field("index", fullIndexName);
+        if (routing != null) {
+            header.field("routing", routing);
+        }
+        header.endObject();
+        String headerLine = Strings.toString(header);
+        
+        StringBuilder payload = new StringBuilder();
+        for (XContentBuilder body : bodies) {
+            payload.append(headerLine).append('\n').append(Strings.toString(body)).append('\n');
+        }
+        Request request = new Request("POST", "/_msearch");
+        request.setEntity(new NStringEntity(payload.toString(), ContentType.create("application/x-ndjson", StandardCharsets.UTF_8)));
+        Response response = elasticsearchClient.getLowLevelClient().performRequest(request);
+        
+        List<JsonNode> results = new ArrayList<>();
+        for (JsonNode item : objectMapper.readTree(response.getEntity().getContent()).path("responses")) {
+            if (item.has("error")) {
+                throw new IOException("ES多重搜索失败: " + item.get("error"));
+            }
+            results.add(item.path("hits"));
+        }
+        return results;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toMetadata(JsonNode hit) {
+        Map<String, Object> metadata = hit.has("_source")
+                ? objectMapper.convertValue(hit.get("_source"), Map.class) : null;
+        return metadata != null ? metadata : new HashMap<>();
     }
     
     @Override
     public void deleteVector(String indexName, String id) {
+        if (!isTenantRoutingEnabled()) {
+            deleteDocument(getFullIndexName(indexName), id, null);
+            return;
+        }
+        try {
+            // 不知道租户时无法定位分片和专属索引，按ID在所有索引中删除
+            deleteVectorByQuery(indexName, List.of(id));
+        } catch (IOException e) {
+            throw new RuntimeException("删除向量失败", e);
+        }
+    }
+    
+    @Override
+    public void deleteVector(String indexName, String id, Map<String, Object> fields) {
+        if (fields == null || !isTenantRoutingEnabled()) {
+            deleteVector(indexName, id);
+            return;
+        }
+        deleteDocument(resolveIndexName(indexName, fields), id, routingOf(fields));
+    }
+    
+    @Override
+    public void deleteVectors(String indexName, List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (!isTenantRoutingEnabled()) {
+            for (String id : ids) {
+                deleteVector(indexName, id);
+            }
+            return;
+        }
+        try {
+            deleteVectorByQuery(indexName, ids);
+        } catch (IOException e) {
+            throw new RuntimeException("批量删除向量失败", e);
+        }
+    }
+    
+    private void deleteDocument(String fullIndexName, String id, String routing) {
         try {
-            String fullIndexName = getFullIndexName(indexName);
-            
             // 添加响应处理
             org.elasticsearch.action.delete.DeleteResponse response = elasticsearchClient.delete(
-                    new org.elasticsearch.action.delete.DeleteRequest(fullIndexName, id),
+                    new org.elasticsearch.action.delete.DeleteRequest(fullIndexName, id).routing(routing),
                     RequestOptions.DEFAULT
             );
             
@@ -178,7 +860,7 @@ public class ElasticsearchVectorStoreService implements VectorStoreService {
                 response.status() != org.elasticsearch.rest.RestStatus.NOT_FOUND) {
                 throw new RuntimeException("删除向量失败，状态码: " + response.status());
             }
-            
+        
         } catch (IOException e) {
             // 如果是解析响应体的问题，但操作实际成功了，可以忽略
             if (e.getMessage() != null && e.getMessage().contains("Unable to parse response body")) {
@@ -189,34 +871,186 @@ public class ElasticsearchVectorStoreService implements VectorStoreService {
         }
     }
     
+    /**
+     * 按ID删除共享索引与专属索引中的文档
+     * 
+     * 启用路由后只凭ID无法确定文档所在的分片和索引，改为按ID查询删除。
+     */
+    private void deleteVectorByQuery(String indexName, List<String> ids) throws IOException {
+        DeleteByQueryRequest request = new DeleteByQueryRequest(getAllIndexNames(indexName));
+        request.setQuery(QueryBuilders.idsQuery().addIds(ids.toArray(new String[0])));
+        request.setIndicesOptions(IndicesOptions.lenientExpandOpen());
+        request.setConflicts("proceed");
+        request.setRefresh("true".equalsIgnoreCase(bulkRefreshPolicy));
+        BulkByScrollResponse response = elasticsearchClient.deleteByQuery(request, RequestOptions.DEFAULT);
+        if (!response.getBulkFailures().isEmpty() || !response.getSearchFailures().isEmpty()) {
+            throw new RuntimeException("删除向量失败: " + ids);
+        }
+    }
+    
     @Override
-    public void createIndex(String indexName, int dimension) {
+    public Map<String, Map<String, Object>> getMetadata(String indexName, List<String> ids) {
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        if (isTenantRoutingEnabled()) {
+            return searchMetadata(indexName, ids);
+        }
+        String fullIndexName = getFullIndexName(indexName);
+        MultiGetRequest request = new MultiGetRequest();
+        for (String id : ids) {
+            request.add(new MultiGetRequest.Item(fullIndexName, id));
+        }
+        return multiGetMetadata(request);
+    }
+    
+    @Override
+    public Map<String, Map<String, Object>> getMetadata(String indexName, Map<String, Map<String, Object>> fieldsById) {
+        if (fieldsById.isEmpty()) {
+            return new HashMap<>();
+        }
+        if (!isTenantRoutingEnabled()) {
+            return getMetadata(indexName, new ArrayList<>(fieldsById.keySet()));
+        }
+        // 租户已知的文档按路由和所在索引直接读取，其余按ID在所有索引中搜索
+        MultiGetRequest request = new MultiGetRequest();
+        List<String> unknown = new ArrayList<>();
+        fieldsById.forEach((id, fields) -> {
+            if (fields == null) {
+                unknown.add(id);
+            } else {
+                request.add(new MultiGetRequest.Item(resolveIndexName(indexName, fields), id).routing(routingOf(fields)));
+            }
+        });
+        Map<String, Map<String, Object>> result = request.getItems().isEmpty() ? new HashMap<>() : multiGetMetadata(request);
+        if (!unknown.isEmpty()) {
+            result.putAll(searchMetadata(indexName, unknown));
+        }
+        return result;
+    }
+    
+    private Map<String, Map<String, Object>> multiGetMetadata(MultiGetRequest request) {
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        // 只取元数据，不回传向量
+        FetchSourceContext sourceContext = new FetchSourceContext(true, null, new String[] {"vector"});
+        request.getItems().forEach(item -> item.fetchSourceContext(sourceContext));
         try {
-            String fullIndexName = getFullIndexName(indexName);
+            MultiGetResponse response = elasticsearchClient.mget(request, RequestOptions.DEFAULT);
+            for (MultiGetItemResponse item : response.getResponses()) {
+                if (item.isFailed()) {
+                    throw new RuntimeException("获取文档失败: " + item.getId() + ", " + item.getFailure().getMessage());
+                }
+                if (item.getResponse().isExists()) {
+                    result.put(item.getId(), item.getResponse().getSourceAsMap());
+                }
+            }
+            return result;
+        } catch (IOException e) {
+            throw new RuntimeException("批量获取文档失败", e);
+        }
+    }
+    
+    /**
+     * 按ID查询共享索引与专属索引中文档的元数据，用于启用路由后无法直接mget的场景
+     */
+    private Map<String, Map<String, Object>> searchMetadata(String indexName, List<String> ids) {
+        try {
+            SearchSourceBuilder source = new SearchSourceBuilder()
+                    .query(QueryBuilders.idsQuery().addIds(ids.toArray(new String[0])))
+                    .fetchSource(null, new String[] {"vector"})
+                    .size(ids.size());
+            SearchRequest request = new SearchRequest(getAllIndexNames(indexName))
+                    .indicesOptions(IndicesOptions.lenientExpandOpen())
+                    .source(source);
+            
+            Map<String, Map<String, Object>> result = new HashMap<>();
+            for (SearchHit hit : elasticsearchClient.search(request, RequestOptions.DEFAULT).getHits().getHits()) {
+                result.put(hit.getId(), hit.getSourceAsMap());
+            }
+            return result;
+        } catch (IOException e) {
+            throw new RuntimeException("批量获取文档失败", e);
+        }
+    }
+    
+    @Override
+    public List<String> scanIds(String indexName, String sortField, long after, int limit) {
+        try {
+            SearchSourceBuilder source = new SearchSourceBuilder()
+                    .query(QueryBuilders.existsQuery(sortField))
+                    .sort(SortBuilders.fieldSort(sortField).order(SortOrder.ASC))
+                    .searchAfter(new Object[] {after})
+                    .fetchSource(false)
+                    .size(limit);
+            
+            SearchRequest request = new SearchRequest(getAllIndexNames(indexName))
+                    .indicesOptions(IndicesOptions.lenientExpandOpen())
+                    .source(source);
+            SearchResponse response = elasticsearchClient.search(request, RequestOptions.DEFAULT);
+            List<String> ids = new ArrayList<>();
+            for (SearchHit hit : response.getHits().getHits()) {
+                ids.add(hit.getId());
+            }
+            return ids;
+        } catch (IOException e) {
+            throw new RuntimeException("扫描文档ID失败", e);
+        }
+    }
+    
+    @Override
+    public void createIndex(String indexName, int dimension) {
+        if (!indexTemplateInstalled) {
+            putIndexTemplate();
+        }
+        String fullIndexName = getFullIndexName(indexName);
+        createPhysicalIndex(fullIndexName, numberOfShards, dimension);
+        for (String appId : dedicatedAppIds) {
+            String dedicatedIndexName = getDedicatedIndexName(fullIndexName, appId);
+            createPhysicalIndex(dedicatedIndexName, dedicatedNumberOfShards, dimension);
+            dedicatedIndexCache.remove(dedicatedIndexName);
+        }
+    }
+    
+    /**
+     * 创建或更新向量索引模板，匹配共享索引、版本索引与专属索引
+     * 
+     * 模板定义过滤字段为keyword、content为只记录词频的text、_source不保存向量，
+     * 只对之后创建的索引生效，已有索引需通过重建迁移。模板随应用版本变化，每次启动时更新一次。
+     */
+    private void putIndexTemplate() {
+        try (InputStream in = new ClassPathResource(INDEX_TEMPLATE_LOCATION).getInputStream()) {
+            ObjectNode template = (ObjectNode) objectMapper.readTree(in);
+            template.putArray("index_patterns").add(indexPrefix).add(indexPrefix + "_*");
             
+            Request request = new Request("PUT", "/_index_template/" + indexPrefix);
+            request.setJsonEntity(objectMapper.writeValueAsString(template));
+            elasticsearchClient.getLowLevelClient().performRequest(request);
+            indexTemplateInstalled = true;
+        } catch (IOException e) {
+            throw new RuntimeException("创建索引模板失败", e);
+        }
+    }
+    
+    private void createPhysicalIndex(String fullIndexName, int shards, int dimension) {
+        try {
             CreateIndexRequest request = new CreateIndexRequest(fullIndexName);
             request.settings(Settings.builder()
-                    .put("index.number_of_shards", 1)
-                    .put("index.number_of_replicas", 0)
+                    .put("index.number_of_shards", shards)
+                    .put("index.number_of_replicas", numberOfReplicas)
             );
             
-            // 定义映射
-            Map<String, Object> properties = new HashMap<>();
-            
-            // 向量字段映射
+            // 建索引请求中的字段定义会整体替换模板中的同名字段，因此向量字段在这里完整定义；
+            // 其余字段映射来自索引模板
             Map<String, Object> vectorMapping = new HashMap<>();
             vectorMapping.put("type", "dense_vector");
             vectorMapping.put("dims", dimension);
             vectorMapping.put("index", true);
             vectorMapping.put("similarity", "cosine");
+            vectorMapping.put("index_options", Map.of("type", vectorIndexType));
+            Map<String, Object> properties = new HashMap<>();
             properties.put("vector", vectorMapping);
             
-            // 元数据字段映射
-            Map<String, Object> metadataMapping = new HashMap<>();
-            metadataMapping.put("type", "object");
-            metadataMapping.put("dynamic", true);
-            properties.put("metadata", metadataMapping);
-            
             Map<String, Object> mapping = new HashMap<>();
             mapping.put("properties", properties);
             
@@ -231,16 +1065,112 @@ public class ElasticsearchVectorStoreService implements VectorStoreService {
     @Override
     public void deleteIndex(String indexName) {
         try {
-            String fullIndexName = getFullIndexName(indexName);
-            elasticsearchClient.indices().delete(
-                    new DeleteIndexRequest(fullIndexName),
-                    RequestOptions.DEFAULT
-            );
+            DeleteIndexRequest request = new DeleteIndexRequest(getAllIndexNames(indexName));
+            request.indicesOptions(IndicesOptions.lenientExpandOpen());
+            elasticsearchClient.indices().delete(request, RequestOptions.DEFAULT);
+            dedicatedIndexCache.clear();
         } catch (IOException e) {
             throw new RuntimeException("删除索引失败", e);
         }
     }
     
+    @Override
+    public void switchAlias(String aliasName, String indexName) {
+        List<String> clonedLegacyIndices = new ArrayList<>();
+        try {
+            String alias = getFullIndexName(aliasName);
+            String target = getFullIndexName(indexName);
+            
+            IndicesAliasesRequest request = new IndicesAliasesRequest();
+            addSwitchAliasActions(request, alias, target, clonedLegacyIndices);
+            // 专属索引的别名随共享索引一起切换
+            for (String appId : dedicatedAppIds) {
+                String dedicatedTarget = getDedicatedIndexName(target, appId);
+                if (elasticsearchClient.indices().exists(new GetIndexRequest(dedicatedTarget), RequestOptions.DEFAULT)) {
+                    addSwitchAliasActions(request, getDedicatedIndexName(alias, appId), dedicatedTarget,
+                            clonedLegacyIndices);
+                }
+            }
+            
+            elasticsearchClient.indices().updateAliases(request, RequestOptions.DEFAULT);
+            dedicatedIndexCache.clear();
+            log.info("索引别名切换 - 别名: {}, 索引: {}", alias, target);
+        } catch (IOException e) {
+            rollbackLegacyClones(clonedLegacyIndices);
+            throw new RuntimeException("切换别名失败", e);
+        } catch (RuntimeException e) {
+            rollbackLegacyClones(clonedLegacyIndices);
+            throw e;
+        }
+    }
+    
+    /**
+     * 把别名从原索引移到目标索引
+     */
+    private void addSwitchAliasActions(IndicesAliasesRequest request, String alias, String target,
+                                       List<String> clonedLegacyIndices) throws IOException {
+        GetAliasesResponse current = elasticsearchClient.indices().getAlias(
+                new GetAliasesRequest(alias), RequestOptions.DEFAULT);
+        if (!current.getAliases().isEmpty()) {
+            for (String index : current.getAliases().keySet()) {
+                if (!index.equals(target)) {
+                    request.addAliasAction(AliasActions.remove().index(index).alias(alias));
+                }
+            }
+        } else if (elasticsearchClient.indices().exists(new GetIndexRequest(alias), RequestOptions.DEFAULT)) {
+            // 首次迁移：与别名同名的旧物理索引必须删除，别名才能取代它；删除前先克隆保留以便回退
+            cloneLegacyIndex(alias);
+            clonedLegacyIndices.add(alias);
+            request.addAliasAction(AliasActions.removeIndex().index(alias));
+        }
+        request.addAliasAction(AliasActions.add().index(target).alias(alias).writeIndex(true));
+    }
+    
+    /**
+     * 把与别名同名的旧物理索引克隆为 {@code <别名>_legacy}
+     * 
+     * 克隆要求源索引只读，从加写锁到别名切换完成之间写入旧索引的请求会失败，
+     * 启用发件箱时这些写入会重试到新索引。克隆失败时恢复写入并放弃本次切换。
+     */
+    private void cloneLegacyIndex(String legacyIndex) throws IOException {
+        String cloneName = legacyIndex + LEGACY_INDEX_SUFFIX;
+        if (elasticsearchClient.indices().exists(new GetIndexRequest(cloneName), RequestOptions.DEFAULT)) {
+            throw new IllegalStateException("旧索引的克隆 " + cloneName + " 已存在，请确认后手动删除再切换");
+        }
+        setWriteBlock(legacyIndex, true);
+        try {
+            Request clone = new Request("POST", "/" + legacyIndex + "/_clone/" + cloneName);
+            clone.addParameter("wait_for_active_shards", "1");
+            clone.setJsonEntity("{\"settings\":{\"index.blocks.write\":null}}");
+            elasticsearchClient.getLowLevelClient().performRequest(clone);
+        } catch (IOException | RuntimeException e) {
+            setWriteBlock(legacyIndex, false);
+            throw e;
+        }
+        log.warn("首次切换别名，旧索引 {} 已克隆为 {}，原索引随别名切换删除", legacyIndex, cloneName);
+    }
+    
+    /**
+     * 别名切换失败时删除已创建的克隆并恢复旧索引写入，下次切换重新克隆
+     */
+    private void rollbackLegacyClones(List<String> legacyIndices) {
+        for (String legacyIndex : legacyIndices) {
+            try {
+                elasticsearchClient.indices().delete(
+                        new DeleteIndexRequest(legacyIndex + LEGACY_INDEX_SUFFIX), RequestOptions.DEFAULT);
+                setWriteBlock(legacyIndex, false);
+            } catch (IOException | RuntimeException e) {
+                log.error("恢复旧索引 {} 失败，请手动解除写锁并删除克隆", legacyIndex, e);
+            }
+        }
+    }
+    
+    private void setWriteBlock(String index, boolean blocked) throws IOException {
+        Request request = new Request("PUT", "/" + index + "/_settings");
+        request.setJsonEntity("{\"index.blocks.write\":" + blocked + "}");
+        elasticsearchClient.getLowLevelClient().performRequest(request);
+    }
+    
     @Override
     public boolean indexExists(String indexName) {
         try {
@@ -252,6 +1182,76 @@ public class ElasticsearchVectorStoreService implements VectorStoreService {
         }
     }
     
+    /**
+     * 按租户确定文档所在的索引：专属应用且其专属索引已创建时使用专属索引，否则使用共享索引
+     * 
+     * 专属索引随索引版本创建，新增专属应用后需通过重建索引迁移数据，迁移完成前仍读写共享索引。
+     */
+    private String resolveIndexName(String indexName, Map<String, Object> fields) {
+        String fullIndexName = getFullIndexName(indexName);
+        Object appId = fields == null ? null : fields.get(APP_ID_FIELD);
+        if (appId == null || !dedicatedAppIds.contains(appId.toString())) {
+            return fullIndexName;
+        }
+        String dedicatedIndexName = getDedicatedIndexName(fullIndexName, appId.toString());
+        return dedicatedIndexExists(dedicatedIndexName) ? dedicatedIndexName : fullIndexName;
+    }
+    
+    private boolean dedicatedIndexExists(String dedicatedIndexName) {
+        long now = System.currentTimeMillis();
+        long[] cached = dedicatedIndexCache.get(dedicatedIndexName);
+        if (cached == null || now - cached[1] > tenantSizeCacheTtlMs) {
+            try {
+                boolean exists = elasticsearchClient.indices().exists(
+                        new GetIndexRequest(dedicatedIndexName), RequestOptions.DEFAULT);
+                cached = new long[]{exists ? 1 : 0, now};
+                dedicatedIndexCache.put(dedicatedIndexName, cached);
+            } catch (IOException e) {
+                throw new RuntimeException("检查索引是否存在失败", e);
+            }
+        }
+        return cached[0] == 1;
+    }
+    
+    /**
+     * 共享索引及全部专属索引的名称，用于无法确定租户的按ID操作
+     */
+    private String[] getAllIndexNames(String indexName) {
+        String fullIndexName = getFullIndexName(indexName);
+        List<String> indexNames = new ArrayList<>();
+        indexNames.add(fullIndexName);
+        for (String appId : dedicatedAppIds) {
+            indexNames.add(getDedicatedIndexName(fullIndexName, appId));
+        }
+        return indexNames.toArray(new String[0]);
+    }
+    
+    private String getDedicatedIndexName(String fullIndexName, String appId) {
+        return fullIndexName + "_app_" + appId.toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * 文档或过滤条件中路由字段的值，未启用路由或没有该字段时返回null
+     */
+    private String routingOf(Map<String, Object> fields) {
+        if (!isRoutingEnabled() || fields == null) {
+            return null;
+        }
+        Object value = fields.get(routingField);
+        return value == null || value.toString().isBlank() ? null : value.toString();
+    }
+    
+    private boolean isRoutingEnabled() {
+        return routingField != null && !routingField.isBlank();
+    }
+    
+    /**
+     * 启用路由或专属索引后，文档的分片和索引取决于租户，只凭ID无法直接定位
+     */
+    private boolean isTenantRoutingEnabled() {
+        return isRoutingEnabled() || !dedicatedAppIds.isEmpty();
+    }
+    
     private String getFullIndexName(String indexName) {
         if (indexName == null || indexName.trim().isEmpty()) {
             return indexPrefix;
@@ -0,0 +1,341 @@
+package com.mem0.core.vectorstore.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mem0.core.vector.DenseVector;
+import com.mem0.core.vectorstore.VectorStoreService;
+import com.mem0.core.vectorstore.hnsw.HnswIndex;
+import com.mem0.core.vectorstore.hnsw.VectorQuantization;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于进程内HNSW的向量存储服务实现
+ * 
+ * 适用于单节点和边缘部署，省去每次搜索到Elasticsearch的网络往返。
+ * 通过 mem0.vector-store.type=hnsw 启用，索引定期快照到本地磁盘，启动时自动加载。
+ * 
+ * @author changyu496
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "mem0.vector-store.type", havingValue = "hnsw")
+public class HnswVectorStoreService implements VectorStoreService {
+    
+    private static final String SNAPSHOT_SUFFIX = ".hnsw";
+    private static final String VECTOR_FILE_SUFFIX = ".vec";
+    private static final String DEFAULT_INDEX_NAME = "default";
+    private static final String ALIAS_FILE = "aliases.json";
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${mem0.vector-store.hnsw.data-dir:./data/hnsw}")
+    private String dataDir;
+    
+    /**
+     * 每个节点的最大邻居数，第0层为其两倍
+     */
+    @Value("${mem0.vector-store.hnsw.m:16}")
+    private int m;
+    
+    @Value("${mem0.vector-store.hnsw.ef-construction:200}")
+    private int efConstruction;
+    
+    @Value("${mem0.vector-store.hnsw.ef-search:100}")
+    private int efSearch;
+    
+    /**
+     * 过滤后候选数不超过该值时直接精确计算
+     */
+    @Value("${mem0.vector-store.hnsw.brute-force-threshold:2000}")
+    private int bruteForceThreshold;
+    
+    /**
+     * 建立倒排位图的元数据字段
+     */
+    @Value("${mem0.vector-store.hnsw.filter-fields:app_id,agent_id,user_id,run_id}")
+    private String filterFieldsConfig;
+    
+    /**
+     * 每个堆外段容纳的向量数
+     */
+    @Value("${mem0.vector-store.hnsw.segment-capacity:8192}")
+    private int segmentCapacity;
+    
+    @Value("${mem0.vector-store.hnsw.snapshot-interval-seconds:30}")
+    private long snapshotIntervalSeconds;
+    
+    /**
+     * 图遍历所用向量的量化方式：none、int8、binary
+     */
+    @Value("${mem0.vector-store.hnsw.quantization:none}")
+    private String quantizationCode;
+    
+    /**
+     * 量化时按 limit * 该倍数取候选，再用全精度向量重排
+     */
+    @Value("${mem0.vector-store.hnsw.rescore-factor:4}")
+    private int rescoreFactor;
+    
+    /**
+     * 加载快照时墓碑占全部节点的比例达到该值则压缩索引，大于1时关闭
+     */
+    @Value("${mem0.vector-store.hnsw.compact-deleted-ratio:0.2}")
+    private double compactDeletedRatio;
+    
+    private VectorQuantization quantization;
+    
+    private final Map<String, HnswIndex> indices = new ConcurrentHashMap<>();
+    
+    /**
+     * 别名 -> 物理索引名称
+     */
+    private final Map<String, String> aliases = new ConcurrentHashMap<>();
+    
+    private Set<String> filterFields;
+    
+    private ScheduledExecutorService snapshotExecutor;
+    
+    @PostConstruct
+    public void init() throws IOException {
+        quantization = VectorQuantization.fromCode(quantizationCode);
+        filterFields = new HashSet<>();
+        for (String field : filterFieldsConfig.split(",")) {
+            if (!field.trim().isEmpty()) {
+                filterFields.add(field.trim());
+            }
+        }
+        
+        Path directory = Paths.get(dataDir);
+        Files.createDirectories(directory);
+        Path aliasFile = directory.resolve(ALIAS_FILE);
+        if (Files.exists(aliasFile)) {
+            aliases.putAll(objectMapper.readValue(aliasFile.toFile(),
+                    objectMapper.getTypeFactory().constructMapType(HashMap.class, String.class, String.class)));
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                name = name.substring(0, name.length() - SNAPSHOT_SUFFIX.length());
+                HnswIndex index = HnswIndex.readSnapshot(file, segmentCapacity, filterFields,
+                        quantization, rescoreFactor, vectorFilePath(name), objectMapper);
+                compactIfNeeded(name, index);
+                indices.put(name, index);
+                log.info("加载HNSW索引快照 - 索引: {}, 向量数: {}, 维度: {}, 量化: {}",
+                        name, index.size(), index.getDimension(), quantization.getCode());
+            }
+        }
+        
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hnsw-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotExecutor.scheduleWithFixedDelay(this::snapshotAll,
+                snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdown();
+        }
+        snapshotAll();
+    }
+    
+    @Override
+    public void storeVector(String indexName, String id, DenseVector vector, Map<String, Object> metadata) {
+        getOrCreateIndex(indexName, vector.dimension()).upsert(id, vector.values(), metadata);
+    }
+    
+    @Override
+    public BulkResult storeVectors(String indexName, List<VectorData> vectors) {
+        BulkResult result = new BulkResult();
+        for (VectorData vectorData : vectors) {
+            try {
+                storeVector(indexName, vectorData.getId(), vectorData.getVector(), vectorData.getMetadata());
+                result.addSucceeded(1);
+            } catch (Exception e) {
+                result.addFailure(vectorData.getId(), e.getMessage());
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public List<SearchResult> search(String indexName, DenseVector queryVector, int limit, Map<String, Object> filters,
+                                     List<String> fields) {
+        HnswIndex index = indices.get(resolveName(indexName));
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        return index.search(queryVector.values(), limit, efSearch, filters, bruteForceThreshold, fields);
+    }
+    
+    @Override
+    public void deleteVector(String indexName, String id) {
+        HnswIndex index = indices.get(resolveName(indexName));
+        if (index != null) {
+            index.delete(id);
+        }
+    }
+    
+    @Override
+    public Map<String, Map<String, Object>> getMetadata(String indexName, List<String> ids) {
+        HnswIndex index = indices.get(resolveName(indexName));
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        if (index == null) {
+            return result;
+        }
+        for (String id : ids) {
+            Map<String, Object> metadata = index.getMetadata(id);
+            if (metadata != null) {
+                result.put(id, metadata);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public List<String> scanIds(String indexName, String sortField, long after, int limit) {
+        HnswIndex index = indices.get(resolveName(indexName));
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        return index.scanIds(sortField, after, limit);
+    }
+    
+    @Override
+    public void createIndex(String indexName, int dimension) {
+        getOrCreateIndex(indexName, dimension);
+    }
+    
+    @Override
+    public void deleteIndex(String indexName) {
+        String name = resolveName(indexName);
+        HnswIndex index = indices.remove(name);
+        if (index != null) {
+            index.close();
+        }
+        try {
+            Files.deleteIfExists(snapshotPath(name));
+            // 打开的量化索引关闭时已删除自己的向量文件；这里清理之前量化运行未正常关闭时遗留的文件，与当前量化配置无关
+            Files.deleteIfExists(Paths.get(dataDir, name + VECTOR_FILE_SUFFIX));
+        } catch (IOException e) {
+            throw new RuntimeException("删除索引失败", e);
+        }
+    }
+    
+    @Override
+    public void switchAlias(String aliasName, String indexName) {
+        String alias = baseName(aliasName);
+        String target = baseName(indexName);
+        if (!indices.containsKey(target)) {
+            throw new IllegalArgumentException("索引不存在: " + target);
+        }
+        Map<String, String> updated = new HashMap<>(aliases);
+        updated.put(alias, target);
+        try {
+            // 先落盘再生效，重启后别名不丢失
+            Path aliasFile = Paths.get(dataDir, ALIAS_FILE);
+            Path tmp = Paths.get(dataDir, ALIAS_FILE + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), updated);
+            Files.move(tmp, aliasFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("切换别名失败", e);
+        }
+        aliases.put(alias, target);
+        log.info("HNSW索引别名切换 - 别名: {}, 索引: {}", alias, target);
+    }
+    
+    @Override
+    public boolean indexExists(String indexName) {
+        return indices.containsKey(resolveName(indexName));
+    }
+    
+    /**
+     * 将有变更的索引写入快照
+     */
+    private void snapshotAll() {
+        for (Map.Entry<String, HnswIndex> entry : indices.entrySet()) {
+            if (!entry.getValue().isDirty()) {
+                continue;
+            }
+            try {
+                long start = System.currentTimeMillis();
+                entry.getValue().writeSnapshot(snapshotPath(entry.getKey()), objectMapper);
+                log.info("HNSW索引快照完成 - 索引: {}, 向量数: {}, 耗时: {}ms",
+                        entry.getKey(), entry.getValue().size(), System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.error("HNSW索引快照失败 - 索引: {}", entry.getKey(), e);
+            }
+        }
+    }
+    
+    /**
+     * 墓碑比例达到阈值时压缩，覆盖写和删除留下的节点不会在快照中无限累积
+     */
+    private void compactIfNeeded(String name, HnswIndex index) {
+        int deletedCount = index.deletedCount();
+        if (deletedCount == 0 || deletedCount < (deletedCount + index.size()) * compactDeletedRatio) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        index.compact();
+        log.info("HNSW索引压缩完成 - 索引: {}, 清理墓碑: {}, 向量数: {}, 耗时: {}ms",
+                name, deletedCount, index.size(), System.currentTimeMillis() - start);
+    }
+    
+    private HnswIndex getOrCreateIndex(String indexName, int dimension) {
+        HnswIndex index = indices.computeIfAbsent(resolveName(indexName),
+                name -> new HnswIndex(dimension, m, efConstruction, segmentCapacity, filterFields,
+                        quantization, rescoreFactor, vectorFilePath(name)));
+        if (index.getDimension() != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配，索引维度: " + index.getDimension() + "，实际: " + dimension);
+        }
+        return index;
+    }
+    
+    private Path snapshotPath(String name) {
+        return Paths.get(dataDir, name + SNAPSHOT_SUFFIX);
+    }
+    
+    /**
+     * 量化时全精度向量映射到数据目录下的文件，只在重排时按需读入；不量化时存放在堆外内存
+     */
+    private Path vectorFilePath(String name) {
+        return quantization == VectorQuantization.NONE ? null : Paths.get(dataDir, name + VECTOR_FILE_SUFFIX);
+    }
+    
+    /**
+     * 解析为物理索引名称，别名指向其目标索引
+     */
+    private String resolveName(String indexName) {
+        String name = baseName(indexName);
+        return aliases.getOrDefault(name, name);
+    }
+    
+    private String baseName(String indexName) {
+        if (indexName == null || indexName.trim().isEmpty()) {
+            return DEFAULT_INDEX_NAME;
+        }
+        return indexName;
+    }
+}
@@ -92,6 +92,65 @@ CREATE TABLE IF NOT EXISTS `session` (
   KEY `idx_status` (`status`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='会话表';
 
+-- 嵌入向量缓存表
+CREATE TABLE IF NOT EXISTS `embedding_cache` (
+  `cache_key` char(64) NOT NULL COMMENT '缓存键：模型名与归一化文本的SHA-256',
+  `model` varchar(100) NOT NULL COMMENT '嵌入模型名称',
+  `dimension` int NOT NULL COMMENT '向量维度',
+  `vector` mediumblob NOT NULL COMMENT '向量数据（小端序float数组）',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`cache_key`),
+  KEY `idx_model` (`model`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='嵌入向量缓存表';
+
+-- 记忆向量同步发件箱表
+CREATE TABLE IF NOT EXISTS `memory_outbox` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `memory_id` bigint NOT NULL COMMENT '记忆表主键ID',
+  `operation` varchar(20) NOT NULL COMMENT '操作类型：upsert、delete',
+  `status` tinyint NOT NULL DEFAULT '0' COMMENT '状态：0-待同步，1-已放弃',
+  `attempts` int NOT NULL DEFAULT '0' COMMENT '已尝试次数',
+  `next_attempt_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '下次尝试时间',
+  `last_error` varchar(1000) DEFAULT NULL COMMENT '最近一次失败原因',
+  `locked_by` varchar(64) DEFAULT NULL COMMENT '领取该事件的中继批次',
+  `locked_until` datetime DEFAULT NULL COMMENT '领取到期时间，到期未完成可被其他实例重新领取',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_status_next_attempt` (`status`, `next_attempt_at`),
+  KEY `idx_memory_id` (`memory_id`),
+  KEY `idx_locked_by` (`locked_by`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='记忆向量同步发件箱表';
+
+-- 对账任务检查点表
+CREATE TABLE IF NOT EXISTS `reconcile_checkpoint` (
+  `job_name` varchar(100) NOT NULL COMMENT '任务名称',
+  `phase` varchar(20) NOT NULL COMMENT '阶段：rows-核对记忆表，vectors-清理孤立向量，done-已完成',
+  `last_id` bigint NOT NULL DEFAULT '0' COMMENT '当前阶段已处理到的记忆ID',
+  `scanned` bigint NOT NULL DEFAULT '0' COMMENT '已扫描数',
+  `missing` bigint NOT NULL DEFAULT '0' COMMENT '补写的缺失向量数',
+  `stale` bigint NOT NULL DEFAULT '0' COMMENT '重写的过期向量数',
+  `orphaned` bigint NOT NULL DEFAULT '0' COMMENT '删除的孤立向量数',
+  `failed` bigint NOT NULL DEFAULT '0' COMMENT '修复失败数',
+  `started_at` datetime DEFAULT NULL COMMENT '本轮开始时间',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`job_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='对账任务检查点表';
+
+-- 向量索引版本表
+CREATE TABLE IF NOT EXISTS `vector_index_version` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `index_name` varchar(100) NOT NULL COMMENT '物理索引名称',
+  `embedding_model` varchar(100) NOT NULL COMMENT '嵌入模型名称',
+  `dimension` int DEFAULT NULL COMMENT '向量维度，为空时使用模型默认维度',
+  `status` tinyint NOT NULL DEFAULT '0' COMMENT '状态：0-构建中，1-使用中，2-已停用，3-切换中',
+  `last_id` bigint NOT NULL DEFAULT '0' COMMENT '回填已处理到的记忆ID',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_index_name` (`index_name`),
+  KEY `idx_status` (`status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='向量索引版本表';
+
 -- 插入测试数据
 INSERT INTO `app` (`app_key`, `app_name`, `description`, `status`) VALUES
 ('test_app_key', '测试应用', '这是一个测试应用', 1)
@@ -1,13 +1,20 @@
 package com.mem0.server.controller;
 
+import com.mem0.core.dto.MemoryJob;
+import com.mem0.core.embedding.EmbeddingCache;
 import com.mem0.core.dto.PageResult;
 import com.mem0.core.entity.Agent;
 import com.mem0.core.entity.App;
 import com.mem0.core.entity.Memory;
+import com.mem0.core.memory.InferenceMode;
 import com.mem0.core.service.AgentService;
 import com.mem0.core.service.AppService;
+import com.mem0.core.service.AsyncMemoryService;
 import com.mem0.core.service.MemoryInferenceService;
+import com.mem0.core.service.MemoryOutboxRelay;
+import com.mem0.core.service.MemoryReconcileService;
 import com.mem0.core.service.MemoryService;
+import com.mem0.core.service.VectorReindexService;
 import com.mem0.core.utils.JsonUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,9 +26,14 @@ import org.springframework.ai.embedding.EmbeddingRequest;
 import org.springframework.ai.embedding.EmbeddingResponse;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
 import com.alibaba.cloud.ai.dashscope.embedding.DashScopeEmbeddingOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
 /**
  * 测试控制器
@@ -40,8 +52,16 @@ public class TestController {
     private final AgentService agentService;
     private final MemoryService memoryService;
     private final MemoryInferenceService memoryInferenceService;
+    private final AsyncMemoryService asyncMemoryService;
+    private final EmbeddingCache embeddingCache;
+    private final MemoryOutboxRelay memoryOutboxRelay;
+    private final MemoryReconcileService memoryReconcileService;
+    private final VectorReindexService vectorReindexService;
     private final com.mem0.core.vector.VectorStoreService vectorStoreService;
     
+    @Value("${spring.ai.dashscope.chat.options.model:qwen-plus}")
+    private String chatModelName;
+    
     /**
      * 测试聊天功能
      */
@@ -51,7 +71,7 @@ public class TestController {
             String message = request.get("message");
             // 创建聊天选项
             DashScopeChatOptions options = DashScopeChatOptions.builder()
-                    .withModel("qwen-plus")
+                    .withModel(chatModelName)
                     .withTemperature(0.7)
                     .build();
             // 调用聊天模型
@@ -79,21 +99,17 @@ public class TestController {
             String text = request.get("text");
             // 创建嵌入选项
             DashScopeEmbeddingOptions options = DashScopeEmbeddingOptions.builder()
-                    .withModel("text-embedding-v1")
+                    .withModel(vectorStoreService.getActiveEmbeddingModel())
                     .build();
             // 获取嵌入向量
             EmbeddingResponse embeddingResponse = embeddingModel.call(new EmbeddingRequest(
                 List.of(text), options
             ));
             float[] embeddings = embeddingResponse.getResult().getOutput();
-            List<Float> embeddingList = new ArrayList<>();
-            for (float f : embeddings) {
-                embeddingList.add(f);
-            }
             Map<String, Object> result = new HashMap<>();
             result.put("text", text);
-            result.put("embeddings", embeddingList);
-            result.put("dimensions", embeddingList.size());
+            result.put("embeddings", embeddings);
+            result.put("dimensions", embeddings.length);
             result.put("timestamp", new Date());
             return result;
         } catch (Exception e) {
@@ -104,6 +120,101 @@ public class TestController {
         }
     }
     
+    /**
+     * 嵌入向量缓存命中统计
+     */
+    @GetMapping("/embed/cache/stats")
+    public Map<String, Object> embeddingCacheStats() {
+        return embeddingCache.getStats();
+    }
+    
+    /**
+     * 向量同步发件箱统计
+     */
+    @GetMapping("/outbox/stats")
+    public Map<String, Object> outboxStats() {
+        return memoryOutboxRelay.getStats();
+    }
+    
+    /**
+     * 启动记忆表与向量库对账，默认从上次的检查点继续
+     */
+    @PostMapping("/reconcile")
+    public Map<String, Object> startReconcile(@RequestParam(defaultValue = "false") boolean restart) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("started", memoryReconcileService.start(restart));
+        result.put("status", memoryReconcileService.getStatus());
+        return result;
+    }
+    
+    /**
+     * 停止对账，进度保留在检查点中
+     */
+    @PostMapping("/reconcile/stop")
+    public Map<String, Object> stopReconcile() {
+        memoryReconcileService.stop();
+        return memoryReconcileService.getStatus();
+    }
+    
+    /**
+     * 对账进度
+     */
+    @GetMapping("/reconcile/status")
+    public Map<String, Object> reconcileStatus() {
+        return memoryReconcileService.getStatus();
+    }
+    
+    /**
+     * 启动或继续向量索引重建，完成后读写别名切换到新索引
+     * 
+     * 请求体: {"model": "text-embedding-v3", "dimensions": 1024}
+     */
+    @PostMapping("/reindex")
+    public Map<String, Object> startReindex(@RequestBody Map<String, Object> request) {
+        Object model = request.get("model");
+        if (model == null || model.toString().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "model is required");
+        }
+        Object dimensions = request.get("dimensions");
+        Map<String, Object> result = new HashMap<>();
+        try {
+            result.put("started", vectorReindexService.start(model.toString(),
+                    dimensions != null ? Integer.valueOf(dimensions.toString()) : null));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+        result.put("status", vectorReindexService.getStatus());
+        return result;
+    }
+    
+    /**
+     * 停止向量索引重建，构建中的索引保留
+     */
+    @PostMapping("/reindex/stop")
+    public Map<String, Object> stopReindex() {
+        vectorReindexService.stop();
+        return vectorReindexService.getStatus();
+    }
+    
+    /**
+     * 放弃构建中的索引并删除
+     */
+    @PostMapping("/reindex/abort")
+    public Map<String, Object> abortReindex() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("aborted", vectorReindexService.abort());
+        result.put("status", vectorReindexService.getStatus());
+        return result;
+    }
+    
+    /**
+     * 向量索引重建进度
+     */
+    @GetMapping("/reindex/status")
+    public Map<String, Object> reindexStatus() {
+        return vectorReindexService.getStatus();
+    }
+    
     /**
      * 测试应用创建
      */
@@ -136,6 +247,52 @@ public class TestController {
      */
     @PostMapping("/memory/add")
     public List<MemoryInferenceService.MemoryOperationResult> addMemory(@RequestBody Map<String, Object> request) {
+        AddMemoryCommand command = parseAddMemoryRequest(request);
+        
+        // 调用推理服务
+        return memoryInferenceService.addMemoryWithInference(
+                command.messages, command.metadata, command.filters, command.infer, command.mode, null);
+    }
+    
+    /**
+     * 异步记忆添加：立即返回任务ID，由后台线程完成推理和写入
+     */
+    @PostMapping("/memory/add/async")
+    public Map<String, Object> addMemoryAsync(@RequestBody Map<String, Object> request) {
+        AddMemoryCommand command = parseAddMemoryRequest(request);
+        String callbackUrl = (String) request.get("callbackUrl");
+        
+        Map<String, Object> result = new HashMap<>();
+        try {
+            MemoryJob job = asyncMemoryService.submitAddMemory(
+                    command.messages, command.metadata, command.filters, command.infer, command.mode, callbackUrl);
+            result.put("jobId", job.getJobId());
+            result.put("status", job.getStatus());
+        } catch (IllegalArgumentException e) {
+            result.put("error", e.getMessage());
+        } catch (RejectedExecutionException e) {
+            result.put("error", "Async memory queue is full, please retry later");
+        }
+        result.put("timestamp", new Date());
+        return result;
+    }
+    
+    /**
+     * 查询异步记忆任务状态和结果
+     */
+    @GetMapping("/memory/jobs/{jobId}")
+    public MemoryJob getMemoryJob(@PathVariable String jobId) {
+        MemoryJob job = asyncMemoryService.getJob(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Job not found: " + jobId);
+        }
+        return job;
+    }
+    
+    /**
+     * 解析添加记忆请求
+     */
+    private AddMemoryCommand parseAddMemoryRequest(Map<String, Object> request) {
         @SuppressWarnings("unchecked")
         List<Map<String, String>> messages = (List<Map<String, String>>) request.get("messages");
         String userId = (String) request.get("userId");
@@ -145,11 +302,11 @@ public class TestController {
         @SuppressWarnings("unchecked")
         Map<String, Object> metadata = (Map<String, Object>) request.get("metadata");
         Boolean infer = (Boolean) request.get("infer");
-        String memoryType = (String) request.get("memoryType");
-        String prompt = (String) request.get("prompt");
         if (infer == null) {
             infer = true; // 默认进行推理
         }
+        // 推理模式：two_step 或 fused，不传时使用配置的默认模式
+        String mode = (String) request.get("mode");
         
         // 构建过滤条件
         Map<String, Object> filters = new HashMap<>();
@@ -181,8 +338,36 @@ public class TestController {
             processedMetadata.put("app_id", appId);
         }
         
-        // 调用推理服务
-        return memoryInferenceService.addMemoryWithInference(messages, processedMetadata, filters, infer);
+        InferenceMode inferenceMode = null;
+        if (mode != null) {
+            try {
+                inferenceMode = InferenceMode.fromCode(mode);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        }
+        
+        return new AddMemoryCommand(messages, processedMetadata, filters, infer, inferenceMode);
+    }
+    
+    /**
+     * 解析后的添加记忆参数
+     */
+    private static class AddMemoryCommand {
+        private final List<Map<String, String>> messages;
+        private final Map<String, Object> metadata;
+        private final Map<String, Object> filters;
+        private final boolean infer;
+        private final InferenceMode mode;
+        
+        AddMemoryCommand(List<Map<String, String>> messages, Map<String, Object> metadata,
+                         Map<String, Object> filters, boolean infer, InferenceMode mode) {
+            this.messages = messages;
+            this.metadata = metadata;
+            this.filters = filters;
+            this.infer = infer;
+            this.mode = mode;
+        }
     }
     
     /**
@@ -319,6 +504,8 @@ public class TestController {
     
     /**
      * 测试向量搜索
+     * 
+     * 请求体可带 fields 指定返回的元数据字段，如 ["content"]；为 [] 时只返回记忆ID和相似度
      */
     @PostMapping("/vector/search")
     public Map<String, Object> searchVectors(@RequestBody Map<String, Object> request) {
@@ -329,23 +516,16 @@ public class TestController {
                 limit = 10;
             }
             
-            // 获取查询文本的嵌入向量
-            DashScopeEmbeddingOptions options = DashScopeEmbeddingOptions.builder()
-                    .withModel("text-embedding-v1")
-                    .build();
-            EmbeddingResponse embeddingResponse = embeddingModel.call(new EmbeddingRequest(
-                List.of(query), options
-            ));
-            float[] embeddings = embeddingResponse.getResult().getOutput();
-            List<Float> queryVector = new ArrayList<>();
-            for (float f : embeddings) {
-                queryVector.add(f);
+            List<?> results;
+            if (request.get("fields") instanceof List<?> fields) {
+                List<String> fieldNames = fields.stream().map(String::valueOf).collect(Collectors.toList());
+                results = vectorStoreService.searchSimilarWithScores(query, vectorStoreService.getEmbeddings(query),
+                        limit, null, fieldNames);
+            } else {
+                // 执行向量搜索（嵌入在searchMemories内部获取）
+                results = vectorStoreService.searchMemories(query, limit, null);
             }
             
-            // 执行向量搜索
-            List<com.mem0.core.entity.Memory> results = 
-                vectorStoreService.searchMemories(query, limit, null);
-            
             Map<String, Object> result = new HashMap<>();
             result.put("query", query);
             result.put("results", results);
@@ -28,7 +28,13 @@ echo "创建索引: ${INDEX_NAME}"
 echo "删除已存在的索引..."
 curl -X DELETE "${ES_URL}/${INDEX_NAME}" -H "Content-Type: application/json" 2>/dev/null || true
 
-# 创建新索引
+# 创建索引模板（字段映射与服务启动时创建索引所用的模板一致）
+TEMPLATE_FILE="$(dirname "$0")/../mem0-core/src/main/resources/elasticsearch/vector-index-template.json"
+echo "创建索引模板..."
+curl -X PUT "${ES_URL}/_index_template/${INDEX_NAME}" -H "Content-Type: application/json" -d @"${TEMPLATE_FILE}"
+
+# 创建新索引，向量维度随嵌入模型变化，其余映射来自模板
+echo ""
 echo "创建新索引..."
 curl -X PUT "${ES_URL}/${INDEX_NAME}" -H "Content-Type: application/json" -d '{
   "settings": {
@@ -41,41 +47,7 @@ curl -X PUT "${ES_URL}/${INDEX_NAME}" -H "Content-Type: application/json" -d '{
     "properties": {
       "vector": {
         "type": "dense_vector",
-        "dims": '"${DIMENSION}"',
-        "index": true,
-        "similarity": "cosine"
-      },
-      "content": {
-        "type": "text",
-        "analyzer": "standard"
-      },
-      "memory_id": {
-        "type": "keyword"
-      },
-      "app_id": {
-        "type": "long"
-      },
-      "agent_id": {
-        "type": "long"
-      },
-      "user_id": {
-        "type": "long"
-      },
-      "memory_type": {
-        "type": "keyword"
-      },
-      "version": {
-        "type": "integer"
-      },
-      "created_at": {
-        "type": "date"
-      },
-      "updated_at": {
-        "type": "date"
-      },
-      "metadata": {
-        "type": "object",
-        "dynamic": true
+        "dims": '"${DIMENSION}"'
       }
     }
   }
@@ -47,6 +47,60 @@ CREATE TABLE IF NOT EXISTS memory (
     INDEX idx_created_at (created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='记忆表';
 
+-- 创建嵌入向量缓存表
+CREATE TABLE IF NOT EXISTS embedding_cache (
+    cache_key CHAR(64) PRIMARY KEY COMMENT '缓存键：模型名与归一化文本的SHA-256',
+    model VARCHAR(100) NOT NULL COMMENT '嵌入模型名称',
+    dimension INT NOT NULL COMMENT '向量维度',
+    vector MEDIUMBLOB NOT NULL COMMENT '向量数据（小端序float数组）',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    INDEX idx_model (model)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='嵌入向量缓存表';
+
+-- 创建记忆向量同步发件箱表
+CREATE TABLE IF NOT EXISTS memory_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    memory_id BIGINT NOT NULL COMMENT '记忆表主键ID',
+    operation VARCHAR(20) NOT NULL COMMENT '操作类型：upsert、delete',
+    status TINYINT NOT NULL DEFAULT 0 COMMENT '状态：0-待同步，1-已放弃',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已尝试次数',
+    next_attempt_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '下次尝试时间',
+    last_error VARCHAR(1000) COMMENT '最近一次失败原因',
+    locked_by VARCHAR(64) COMMENT '领取该事件的中继批次',
+    locked_until TIMESTAMP NULL COMMENT '领取到期时间，到期未完成可被其他实例重新领取',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    INDEX idx_status_next_attempt (status, next_attempt_at),
+    INDEX idx_memory_id (memory_id),
+    INDEX idx_locked_by (locked_by)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='记忆向量同步发件箱表';
+
+-- 创建对账任务检查点表
+CREATE TABLE IF NOT EXISTS reconcile_checkpoint (
+    job_name VARCHAR(100) PRIMARY KEY COMMENT '任务名称',
+    phase VARCHAR(20) NOT NULL COMMENT '阶段：rows-核对记忆表，vectors-清理孤立向量，done-已完成',
+    last_id BIGINT NOT NULL DEFAULT 0 COMMENT '当前阶段已处理到的记忆ID',
+    scanned BIGINT NOT NULL DEFAULT 0 COMMENT '已扫描数',
+    missing BIGINT NOT NULL DEFAULT 0 COMMENT '补写的缺失向量数',
+    stale BIGINT NOT NULL DEFAULT 0 COMMENT '重写的过期向量数',
+    orphaned BIGINT NOT NULL DEFAULT 0 COMMENT '删除的孤立向量数',
+    failed BIGINT NOT NULL DEFAULT 0 COMMENT '修复失败数',
+    started_at TIMESTAMP NULL COMMENT '本轮开始时间',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='对账任务检查点表';
+
+-- 创建向量索引版本表
+CREATE TABLE IF NOT EXISTS vector_index_version (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    index_name VARCHAR(100) NOT NULL UNIQUE COMMENT '物理索引名称',
+    embedding_model VARCHAR(100) NOT NULL COMMENT '嵌入模型名称',
+    dimension INT COMMENT '向量维度，为空时使用模型默认维度',
+    status TINYINT NOT NULL DEFAULT 0 COMMENT '状态：0-构建中，1-使用中，2-已停用，3-切换中',
+    last_id BIGINT NOT NULL DEFAULT 0 COMMENT '回填已处理到的记忆ID',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX idx_status (status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='向量索引版本表';
+
 -- 创建提示词表
 CREATE TABLE IF NOT EXISTS prompt (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -23,6 +23,8 @@ if [ $? -ne 0 ]; then
     echo "警告: 无法连接到数据库，请确保MySQL服务已启动且数据库已创建"
     echo "可以运行以下命令创建数据库:"
     echo "mysql -u root -p < scripts/init-db.sql"
+    echo "由旧版本升级的数据库请执行:"
+    echo "mysql -u root -p < scripts/migrate-vector-sync.sql"
 fi
 
 # 编译项目